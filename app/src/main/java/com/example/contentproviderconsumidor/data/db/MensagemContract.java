@@ -60,5 +60,64 @@ public final class MensagemContract {
         // Nome da coluna que indica se a mensagem é favorita.
         // É armazenado como um INTEGER, onde 1 significa 'verdadeiro' (favorita) e 0 'falso'.
         public static final String COLUNA_FAVORITA = "favorita";
+
+        // --- Colunas calculadas na projeção (não existem na tabela do provedor) ---
+
+        // Quantidade máxima de caracteres do texto lida nas consultas de listas.
+        public static final int TAMANHO_PREFIXO_TEXTO = 280;
+
+        // Alias do prefixo do texto, calculado com substr() na própria consulta.
+        public static final String COLUNA_TEXTO_PREFIXO = "texto_prefixo";
+
+        // Alias do tamanho total do texto, calculado com length(), para saber se o prefixo está truncado.
+        public static final String COLUNA_TEXTO_TAMANHO = "texto_tamanho";
+
+        // Caracteres que não contam no comprimento normalizado do texto: espaços e a pontuação ASCII comum.
+        public static final String CARACTERES_FORA_DO_COMPRIMENTO = " \t\n\r.,;:!?\"'-()";
+
+        // Alias do comprimento normalizado do texto (sem os caracteres acima), calculado com replace().
+        // Textos que diferem só em espaçamento ou pontuação têm o mesmo comprimento normalizado, o que
+        // permite à deduplicação comparar textos truncados sem ler o texto inteiro.
+        public static final String COLUNA_TEXTO_COMPRIMENTO_NORMALIZADO = "texto_comprimento_normalizado";
+
+        /**
+         * Projeção usada nas listas: ID, autor, favorita e apenas um prefixo limitado do texto.
+         * Evita que o texto completo de todas as linhas atravesse o IPC e ocupe a CursorWindow.
+         */
+        public static final String[] PROJECAO_LISTA = {
+                _ID,
+                "substr(" + COLUNA_TEXTO + ", 1, " + TAMANHO_PREFIXO_TEXTO + ") AS " + COLUNA_TEXTO_PREFIXO,
+                "length(" + COLUNA_TEXTO + ") AS " + COLUNA_TEXTO_TAMANHO,
+                expressaoComprimentoNormalizado() + " AS " + COLUNA_TEXTO_COMPRIMENTO_NORMALIZADO,
+                COLUNA_AUTOR,
+                COLUNA_FAVORITA
+        };
+
+        /**
+         * Projeção alternativa para provedores que não aceitam expressões na projeção:
+         * lê o texto inteiro, mas ainda restringe as colunas às que o app usa.
+         */
+        public static final String[] PROJECAO_LISTA_SIMPLES = {
+                _ID, COLUNA_TEXTO, COLUNA_AUTOR, COLUNA_FAVORITA
+        };
+
+        /** Projeção usada para buscar o texto completo de uma única mensagem, por ID. */
+        public static final String[] PROJECAO_TEXTO_COMPLETO = {_ID, COLUNA_TEXTO};
+
+        /**
+         * Monta a expressão SQL do comprimento normalizado: {@code length()} do texto depois de
+         * remover, com {@code replace()} aninhados, cada caractere de
+         * {@link #CARACTERES_FORA_DO_COMPRIMENTO}. Deve contar exatamente o mesmo que
+         * {@code IndiceDeduplicacao.comprimentoNormalizado} conta a partir do texto completo.
+         */
+        private static String expressaoComprimentoNormalizado() {
+            String expressao = COLUNA_TEXTO;
+            for (int i = 0; i < CARACTERES_FORA_DO_COMPRIMENTO.length(); i++) {
+                char c = CARACTERES_FORA_DO_COMPRIMENTO.charAt(i);
+                String literal = c < 0x20 ? "char(" + (int) c + ")" : "'" + (c == '\'' ? "''" : String.valueOf(c)) + "'";
+                expressao = "replace(" + expressao + ", " + literal + ", '')";
+            }
+            return "length(" + expressao + ")";
+        }
     }
 }
\ No newline at end of file
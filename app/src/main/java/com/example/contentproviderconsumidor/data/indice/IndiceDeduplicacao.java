@@ -0,0 +1,532 @@
+package com.example.contentproviderconsumidor.data.indice;
+
+import com.example.contentproviderconsumidor.data.db.MensagemContract;
+import com.example.contentproviderconsumidor.data.memoria.CacheGerenciado;
+import com.example.contentproviderconsumidor.data.memoria.NivelDescarte;
+import com.example.contentproviderconsumidor.data.model.Mensagem;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Índice que agrupa mensagens equivalentes do catálogo, para que a mesma frase cadastrada
+ * várias vezes no provedor (com espaços, pontuação, acentos ou grafia do autor diferentes)
+ * apareça apenas uma vez no sorteio e nas listas.
+ * <p>
+ * Para cada linha decodificada é calculado um hash de 64 bits do conteúdo normalizado de
+ * {@code texto} e {@code autor}: letras e dígitos em minúsculas, sem acentos, ignorando todo o
+ * resto. Linhas com o mesmo hash formam um grupo, e o menor ID do grupo é o seu representante
+ * canônico.
+ * <p>
+ * As listas leem só um prefixo do texto, então o hash é definido para poder ser calculado tanto
+ * a partir do texto completo ({@link #registrar}) quanto do prefixo ({@link #registrarPrefixo}):
+ * entram nele as primeiras {@link #CARACTERES_NO_HASH} letras e dígitos do texto, o autor e o
+ * comprimento normalizado do texto completo (sem espaços nem a pontuação ASCII comum, calculado
+ * pelo provedor em {@code MensagemContract.MensagemEntry.COLUNA_TEXTO_COMPRIMENTO_NORMALIZADO}).
+ * Com isso a mesma linha cai sempre no mesmo hash, venha ela de onde vier.
+ * <p>
+ * O hash sozinho não basta para juntar duas linhas: textos diferentes podem colidir, e textos
+ * que diferem só depois das primeiras {@link #CARACTERES_NO_HASH} letras, com o mesmo comprimento
+ * normalizado, colidem sempre. Por isso cada linha guarda também uma impressão do conteúdo inteiro
+ * (todas as letras e dígitos do texto e o autor, com outra semente), e duas linhas com o mesmo
+ * hash só são equivalentes se as impressões também coincidirem. A impressão só é conhecida quando
+ * o texto inteiro foi lido: uma linha registrada por um prefixo truncado fica sozinha no seu grupo
+ * até ser conferida. {@link #idsAVerificar()} lista as que colidem com outra linha, para quem usa
+ * o índice ler o texto inteiro delas e registrá-lo com {@link #registrar}.
+ * <p>
+ * Limitações conhecidas: textos que diferem em pontuação fora do ASCII (travessão, reticências
+ * tipográficas) ou em acentos gravados decompostos não são agrupados; e um prefixo com menos de
+ * {@link #CARACTERES_NO_HASH} letras (quase só espaços ou pontuação) pode separar equivalentes.
+ * <p>
+ * O índice é mantido de forma incremental ({@link #registrar}, {@link #remover} e as varreduras
+ * completas com {@link #iniciarVarredura()}/{@link #finalizarVarredura()}) e guarda tudo em
+ * arrays primitivos: cada linha custa algumas dezenas de bytes, o que o mantém pequeno mesmo
+ * com um milhão de linhas. Todos os métodos públicos são sincronizados.
+ * <p>
+ * Como {@link CacheGerenciado}, o índice é descartado por inteiro quando falta memória; ele se
+ * refaz na próxima varredura do catálogo.
+ */
+public class IndiceDeduplicacao implements CacheGerenciado {
+
+    /** Limite flexível de memória do índice (algumas centenas de milhares de linhas). */
+    private static final long LIMITE_BYTES = 16L * 1024 * 1024;
+
+    /** Capacidade dos arrays de entradas depois de um descarte. */
+    private static final int CAPACIDADE_MINIMA = 16;
+
+    /** Marca o fim de uma lista encadeada de entradas. */
+    private static final int NENHUMA = -1;
+
+    /** Impressão de conteúdo de uma linha cujo texto inteiro ainda não foi lido. */
+    private static final long CONTEUDO_DESCONHECIDO = 0;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIMO = 0x100000001b3L;
+
+    /** Semente da impressão de conteúdo, diferente da do hash para que as duas não colidam juntas. */
+    private static final long SEMENTE_CONTEUDO = 0x84222325cbf29ce4L;
+
+    /**
+     * Quantas letras e dígitos do começo do texto entram no hash. Fica bem abaixo do prefixo lido
+     * pelas listas ({@code TAMANHO_PREFIXO_TEXTO} caracteres), que em texto corrido traz folgado
+     * essa quantidade mesmo com os espaços e a pontuação.
+     */
+    public static final int CARACTERES_NO_HASH = 160;
+
+    // --- Entradas: uma posição por linha do catálogo, em arrays paralelos ---
+
+    /** ID da linha guardada em cada entrada. */
+    private long[] idEntrada;
+
+    /** Hash de conteúdo da linha guardada em cada entrada. */
+    private long[] hashEntrada;
+
+    /** Impressão do conteúdo inteiro da linha, ou {@link #CONTEUDO_DESCONHECIDO}. */
+    private long[] conteudoEntrada;
+
+    /** Próxima entrada do mesmo grupo (ou da lista de entradas livres). */
+    private int[] proximaEntrada;
+
+    /** Última varredura completa em que a linha foi vista. */
+    private int[] geracaoEntrada;
+
+    /** Quantidade de posições já usadas nos arrays de entradas. */
+    private int entradasUsadas;
+
+    /** Início da lista de entradas liberadas por remoções, reaproveitadas antes de crescer os arrays. */
+    private int primeiraLivre = NENHUMA;
+
+    /** ID da linha → entrada. */
+    private final TabelaLongInt entradaPorId;
+
+    /** Hash de conteúdo → primeira entrada do grupo. */
+    private final TabelaLongInt grupoPorHash;
+
+    /** Geração da varredura completa em andamento. */
+    private int geracaoAtual;
+
+    /** Linhas descartadas por falta de memória. */
+    private long descartes;
+
+    public IndiceDeduplicacao() {
+        this(1024);
+    }
+
+    /**
+     * @param capacidadeInicial Quantidade de linhas esperada, para evitar redimensionamentos.
+     */
+    public IndiceDeduplicacao(int capacidadeInicial) {
+        int capacidade = Math.max(CAPACIDADE_MINIMA, capacidadeInicial);
+        idEntrada = new long[capacidade];
+        hashEntrada = new long[capacidade];
+        conteudoEntrada = new long[capacidade];
+        proximaEntrada = new int[capacidade];
+        geracaoEntrada = new int[capacidade];
+        entradaPorId = new TabelaLongInt(capacidade);
+        grupoPorHash = new TabelaLongInt(capacidade);
+    }
+
+    // --- Manutenção incremental ---
+
+    /**
+     * Registra (ou atualiza) uma linha do catálogo no índice. Deve ser chamado para cada linha
+     * decodificada do Cursor. Se o conteúdo de um ID mudou, ele é movido para o grupo correto.
+     *
+     * @param id    O ID da mensagem.
+     * @param texto O texto da mensagem.
+     * @param autor O autor da mensagem.
+     */
+    public synchronized void registrar(long id, String texto, String autor) {
+        registrarComHash(id, hashConteudo(texto, autor), impressaoConteudo(texto, autor));
+    }
+
+    /**
+     * Registra uma linha da qual só se conhece um prefixo do texto (consultas de lista).
+     * Produz o mesmo hash que {@link #registrar} produziria com o texto completo, desde que o
+     * prefixo contenha as primeiras {@link #CARACTERES_NO_HASH} letras e dígitos do texto.
+     * A linha só entra no grupo das equivalentes depois que o texto inteiro for registrado; se
+     * isso já aconteceu e o hash não mudou, a conferência anterior continua valendo.
+     *
+     * @param id                     O ID da mensagem.
+     * @param prefixo                O prefixo lido do texto.
+     * @param comprimentoNormalizado O comprimento normalizado do texto completo, calculado pelo provedor.
+     * @param autor                  O autor da mensagem.
+     */
+    public synchronized void registrarPrefixo(long id, String prefixo, int comprimentoNormalizado, String autor) {
+        registrarComHash(id, hashConteudo(prefixo, comprimentoNormalizado, autor), CONTEUDO_DESCONHECIDO);
+    }
+
+    private void registrarComHash(long id, long hash, long conteudo) {
+        int entrada = entradaPorId.obter(id);
+        if (entrada != TabelaLongInt.AUSENTE) {
+            geracaoEntrada[entrada] = geracaoAtual;
+            if (hashEntrada[entrada] == hash) {
+                if (conteudo != CONTEUDO_DESCONHECIDO) {
+                    conteudoEntrada[entrada] = conteudo;
+                }
+                return;
+            }
+            // O conteúdo mudou: sai do grupo antigo antes de entrar no novo.
+            desligarDoGrupo(entrada);
+        } else {
+            entrada = novaEntrada();
+            idEntrada[entrada] = id;
+            geracaoEntrada[entrada] = geracaoAtual;
+            entradaPorId.colocar(id, entrada);
+        }
+        hashEntrada[entrada] = hash;
+        conteudoEntrada[entrada] = conteudo;
+        int primeira = grupoPorHash.obter(hash);
+        proximaEntrada[entrada] = primeira != TabelaLongInt.AUSENTE ? primeira : NENHUMA;
+        grupoPorHash.colocar(hash, entrada);
+    }
+
+    /**
+     * Remove uma linha do índice (ex.: quando ela deixou de existir no provedor).
+     *
+     * @param id O ID da mensagem removida.
+     */
+    public synchronized void remover(long id) {
+        int entrada = entradaPorId.remover(id);
+        if (entrada == TabelaLongInt.AUSENTE) {
+            return;
+        }
+        desligarDoGrupo(entrada);
+        proximaEntrada[entrada] = primeiraLivre;
+        primeiraLivre = entrada;
+    }
+
+    /**
+     * Inicia uma varredura completa do catálogo. Toda linha registrada a partir daqui é marcada
+     * como "vista"; {@link #finalizarVarredura()} remove as que não foram.
+     */
+    public synchronized void iniciarVarredura() {
+        geracaoAtual++;
+    }
+
+    /**
+     * Conclui a varredura completa iniciada por {@link #iniciarVarredura()}, removendo do índice
+     * as linhas que não apareceram nela (foram apagadas no provedor).
+     */
+    public synchronized void finalizarVarredura() {
+        for (int entrada = 0; entrada < entradasUsadas; entrada++) {
+            if (geracaoEntrada[entrada] != geracaoAtual
+                    && entradaPorId.obter(idEntrada[entrada]) == entrada) {
+                remover(idEntrada[entrada]);
+            }
+        }
+    }
+
+    /** Esvazia o índice. */
+    public synchronized void limpar() {
+        entradaPorId.limpar();
+        grupoPorHash.limpar();
+        entradasUsadas = 0;
+        primeiraLivre = NENHUMA;
+    }
+
+    /**
+     * Lista as linhas que só foram vistas por um prefixo truncado e têm o mesmo hash de outra linha:
+     * podem ser duplicatas, mas só se juntam ao grupo depois que o texto inteiro for registrado
+     * com {@link #registrar}.
+     *
+     * @return Os IDs a conferir, possivelmente vazio.
+     */
+    public synchronized long[] idsAVerificar() {
+        long[] ids = new long[8];
+        int total = 0;
+        for (int entrada = 0; entrada < entradasUsadas; entrada++) {
+            if (conteudoEntrada[entrada] != CONTEUDO_DESCONHECIDO
+                    || entradaPorId.obter(idEntrada[entrada]) != entrada) {
+                continue;
+            }
+            boolean sozinha = grupoPorHash.obter(hashEntrada[entrada]) == entrada
+                    && proximaEntrada[entrada] == NENHUMA;
+            if (sozinha) {
+                continue;
+            }
+            if (total == ids.length) {
+                ids = Arrays.copyOf(ids, total * 2);
+            }
+            ids[total++] = idEntrada[entrada];
+        }
+        return Arrays.copyOf(ids, total);
+    }
+
+    // --- Consultas ---
+
+    /**
+     * Retorna o ID canônico do grupo ao qual a mensagem pertence: o menor ID entre as
+     * mensagens equivalentes. Mensagens desconhecidas pelo índice são o próprio grupo.
+     *
+     * @param id O ID de uma mensagem.
+     * @return O ID canônico do seu grupo.
+     */
+    public synchronized long idCanonico(long id) {
+        int entrada = entradaPorId.obter(id);
+        if (entrada == TabelaLongInt.AUSENTE) {
+            return id;
+        }
+        long menor = id;
+        for (int e = grupoPorHash.obter(hashEntrada[entrada]); e != NENHUMA; e = proximaEntrada[e]) {
+            if (equivalentes(entrada, e)) {
+                menor = Math.min(menor, idEntrada[e]);
+            }
+        }
+        return menor;
+    }
+
+    /**
+     * Retorna todos os IDs equivalentes à mensagem informada (incluindo ela mesma).
+     *
+     * @param id O ID de uma mensagem.
+     * @return Os IDs do grupo, em ordem crescente.
+     */
+    public synchronized long[] idsDoGrupo(long id) {
+        int entrada = entradaPorId.obter(id);
+        if (entrada == TabelaLongInt.AUSENTE) {
+            return new long[]{id};
+        }
+        long[] ids = new long[8];
+        int total = 0;
+        for (int e = grupoPorHash.obter(hashEntrada[entrada]); e != NENHUMA; e = proximaEntrada[e]) {
+            if (!equivalentes(entrada, e)) {
+                continue;
+            }
+            if (total == ids.length) {
+                ids = Arrays.copyOf(ids, total * 2);
+            }
+            ids[total++] = idEntrada[e];
+        }
+        ids = Arrays.copyOf(ids, total);
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    /**
+     * Colapsa uma lista de mensagens, mantendo apenas a primeira ocorrência de cada grupo de
+     * equivalentes e preservando a ordem original.
+     *
+     * @param mensagens A lista original (não é modificada).
+     * @return Uma nova lista sem duplicatas.
+     */
+    public synchronized List<Mensagem> colapsar(List<Mensagem> mensagens) {
+        List<Mensagem> resultado = new ArrayList<>(mensagens.size());
+        TabelaLongInt gruposVistos = new TabelaLongInt(mensagens.size());
+        for (Mensagem mensagem : mensagens) {
+            long grupo = idCanonico(mensagem.getId());
+            if (gruposVistos.obter(grupo) == TabelaLongInt.AUSENTE) {
+                gruposVistos.colocar(grupo, 1);
+                resultado.add(mensagem);
+            }
+        }
+        return resultado;
+    }
+
+    /** @return A quantidade de linhas indexadas. */
+    public synchronized int getTotalLinhas() {
+        return entradaPorId.tamanho();
+    }
+
+    /**
+     * @return A quantidade de hashes distintos. Linhas ainda não conferidas e colisões entre textos
+     *         diferentes dividem um hash, então pode haver mais mensagens únicas que hashes.
+     */
+    public synchronized int getTotalGrupos() {
+        return grupoPorHash.tamanho();
+    }
+
+    /** @return A memória aproximada, em bytes, ocupada pelas estruturas do índice. */
+    @Override
+    public synchronized long getBytesOcupados() {
+        long porEntrada = Long.BYTES + Long.BYTES + Long.BYTES + Integer.BYTES + Integer.BYTES;
+        return idEntrada.length * porEntrada + entradaPorId.bytesOcupados() + grupoPorHash.bytesOcupados();
+    }
+
+    // --- Controle de memória ---
+
+    @Override
+    public String getNome() {
+        return "indiceDuplicatas";
+    }
+
+    @Override
+    public NivelDescarte getNivel() {
+        return NivelDescarte.INDICES;
+    }
+
+    @Override
+    public long getLimiteBytes() {
+        return LIMITE_BYTES;
+    }
+
+    /**
+     * O índice não descarta por partes: se ocupar mais que {@code bytesAlvo}, é esvaziado e seus
+     * arrays voltam à capacidade mínima.
+     */
+    @Override
+    public synchronized void reduzirPara(long bytesAlvo) {
+        if (getBytesOcupados() <= bytesAlvo) {
+            return;
+        }
+        descartes += entradaPorId.tamanho();
+        idEntrada = new long[CAPACIDADE_MINIMA];
+        hashEntrada = new long[CAPACIDADE_MINIMA];
+        conteudoEntrada = new long[CAPACIDADE_MINIMA];
+        proximaEntrada = new int[CAPACIDADE_MINIMA];
+        geracaoEntrada = new int[CAPACIDADE_MINIMA];
+        entradaPorId.liberar();
+        grupoPorHash.liberar();
+        entradasUsadas = 0;
+        primeiraLivre = NENHUMA;
+    }
+
+    @Override
+    public synchronized long getDescartes() {
+        return descartes;
+    }
+
+    // --- Hash de conteúdo ---
+
+    /**
+     * Calcula o hash de conteúdo normalizado de uma mensagem (FNV-1a de 64 bits).
+     * Considera apenas letras e dígitos, em minúsculas e sem acentos, de forma que diferenças de
+     * espaçamento, pontuação, caixa e acentuação não distinguem duas mensagens.
+     *
+     * @param texto O texto completo da mensagem.
+     * @param autor O autor da mensagem.
+     * @return O hash de 64 bits do conteúdo normalizado.
+     */
+    public static long hashConteudo(String texto, String autor) {
+        return hashConteudo(texto, comprimentoNormalizado(texto), autor);
+    }
+
+    /**
+     * Calcula o hash de conteúdo a partir de um texto possivelmente truncado: as primeiras
+     * {@link #CARACTERES_NO_HASH} letras e dígitos de {@code texto}, o autor e o comprimento
+     * normalizado do texto completo.
+     */
+    private static long hashConteudo(String texto, int comprimentoNormalizado, String autor) {
+        long hash = acumular(FNV_OFFSET, texto, CARACTERES_NO_HASH);
+        // Separador entre os campos, para que "ab" + "c" não colida com "a" + "bc".
+        hash = (hash ^ 0x1F) * FNV_PRIMO;
+        hash = acumular(hash, autor, Integer.MAX_VALUE);
+        return (hash ^ comprimentoNormalizado) * FNV_PRIMO;
+    }
+
+    /**
+     * Calcula a impressão do conteúdo inteiro: todas as letras e dígitos do texto e do autor,
+     * normalizados como no hash, mas com outra semente e sem limite de caracteres.
+     */
+    private static long impressaoConteudo(String texto, String autor) {
+        long impressao = acumular(SEMENTE_CONTEUDO, texto, Integer.MAX_VALUE);
+        impressao = (impressao ^ 0x1F) * FNV_PRIMO;
+        impressao = acumular(impressao, autor, Integer.MAX_VALUE);
+        // O zero é reservado para "desconhecido".
+        return impressao != CONTEUDO_DESCONHECIDO ? impressao : 1;
+    }
+
+    /**
+     * Conta os caracteres do texto que não estão em
+     * {@link MensagemContract.MensagemEntry#CARACTERES_FORA_DO_COMPRIMENTO}, do mesmo jeito que a
+     * expressão SQL de {@code COLUNA_TEXTO_COMPRIMENTO_NORMALIZADO} conta no provedor
+     * (um por code point, como o {@code length()} do SQLite).
+     *
+     * @param texto O texto completo da mensagem.
+     * @return O comprimento normalizado, ou 0 para {@code null}.
+     */
+    public static int comprimentoNormalizado(String texto) {
+        if (texto == null) {
+            return 0;
+        }
+        String ignorados = MensagemContract.MensagemEntry.CARACTERES_FORA_DO_COMPRIMENTO;
+        int comprimento = 0;
+        for (int i = 0; i < texto.length(); ) {
+            int c = texto.codePointAt(i);
+            if (ignorados.indexOf(c) < 0) {
+                comprimento++;
+            }
+            i += Character.charCount(c);
+        }
+        return comprimento;
+    }
+
+    /**
+     * Acumula no hash as letras e dígitos de {@code valor}, em minúsculas e sem acentos,
+     * parando depois de {@code limite} caracteres acumulados.
+     */
+    private static long acumular(long hash, String valor, int limite) {
+        if (valor == null) {
+            return hash;
+        }
+        // Só decompõe os acentos quando há caracteres fora do ASCII, evitando a alocação no caso comum.
+        String fonte = valor;
+        for (int i = 0; i < valor.length(); i++) {
+            if (valor.charAt(i) >= 0x80) {
+                fonte = Normalizer.normalize(valor, Normalizer.Form.NFD);
+                break;
+            }
+        }
+        int acumulados = 0;
+        for (int i = 0; i < fonte.length() && acumulados < limite; i++) {
+            char c = fonte.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                hash = (hash ^ Character.toLowerCase(c)) * FNV_PRIMO;
+                acumulados++;
+            }
+        }
+        return hash;
+    }
+
+    // --- Métodos Privados ---
+
+    /** Obtém uma entrada livre, reaproveitando as removidas ou crescendo os arrays. */
+    private int novaEntrada() {
+        if (primeiraLivre != NENHUMA) {
+            int entrada = primeiraLivre;
+            primeiraLivre = proximaEntrada[entrada];
+            return entrada;
+        }
+        if (entradasUsadas == idEntrada.length) {
+            int novaCapacidade = idEntrada.length * 2;
+            idEntrada = Arrays.copyOf(idEntrada, novaCapacidade);
+            hashEntrada = Arrays.copyOf(hashEntrada, novaCapacidade);
+            conteudoEntrada = Arrays.copyOf(conteudoEntrada, novaCapacidade);
+            proximaEntrada = Arrays.copyOf(proximaEntrada, novaCapacidade);
+            geracaoEntrada = Arrays.copyOf(geracaoEntrada, novaCapacidade);
+        }
+        return entradasUsadas++;
+    }
+
+    /**
+     * Indica se duas entradas do mesmo hash são a mesma mensagem: a própria entrada, ou duas
+     * entradas cujo conteúdo inteiro foi conferido e coincide.
+     */
+    private boolean equivalentes(int entrada, int outra) {
+        return entrada == outra
+                || (conteudoEntrada[entrada] != CONTEUDO_DESCONHECIDO
+                && conteudoEntrada[entrada] == conteudoEntrada[outra]);
+    }
+
+    /** Retira a entrada da lista encadeada do seu grupo, apagando o grupo se ele ficar vazio. */
+    private void desligarDoGrupo(int entrada) {
+        long hash = hashEntrada[entrada];
+        int primeira = grupoPorHash.obter(hash);
+        if (primeira == entrada) {
+            if (proximaEntrada[entrada] == NENHUMA) {
+                grupoPorHash.remover(hash);
+            } else {
+                grupoPorHash.colocar(hash, proximaEntrada[entrada]);
+            }
+            return;
+        }
+        for (int e = primeira; e != NENHUMA; e = proximaEntrada[e]) {
+            if (proximaEntrada[e] == entrada) {
+                proximaEntrada[e] = proximaEntrada[entrada];
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.example.contentproviderconsumidor.data.indice;
+
+import com.example.contentproviderconsumidor.data.model.Mensagem;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Índice das mensagens (favoritas) agrupadas por autor, em ordem alfabética.
+ * <p>
+ * Comparar nomes com um {@link Collator} a cada recarga custa caro com milhares de linhas.
+ * Aqui a {@link CollationKey} de cada autor é calculada uma única vez, quando o autor aparece
+ * pela primeira vez, e as facetas ficam em um {@link TreeMap} ordenado por essas chaves. Cada
+ * faceta guarda a lista ordenada dos IDs daquele autor. Grafias que o {@link Collator} considera
+ * iguais (espaços nas pontas, caixa, acentos: "João", "joao", " JOAO ") caem na mesma faceta, que
+ * é exibida com a primeira grafia vista.
+ * <p>
+ * O índice é atualizado de forma incremental: {@link #sincronizar(List)} compara a nova lista
+ * com o conteúdo atual e aplica apenas as inserções e remoções necessárias, de forma que marcar
+ * ou desmarcar uma favorita não reordena tudo. Todos os métodos públicos são sincronizados e
+ * devem ser chamados fora da thread principal.
+ */
+public class IndiceFacetasAutor {
+
+    /** Nome usado como faceta para mensagens sem autor. */
+    public static final String AUTOR_DESCONHECIDO = "Desconhecido";
+
+    /**
+     * Comparador sensível ao idioma, na força primária: ignora caixa e acentos, de forma que as
+     * grafias de um mesmo nome compartilham a chave de ordenação (e a faceta).
+     */
+    private final Collator collator;
+
+    /** Facetas em ordem alfabética de autor. */
+    private final TreeMap<CollationKey, Faceta> facetasOrdenadas = new TreeMap<>();
+
+    /** Facetas indexadas pelo nome do autor, para localizar a faceta sem calcular a chave de novo. */
+    private final Map<String, Faceta> facetasPorAutor = new HashMap<>();
+
+    /** Mensagens indexadas, por ID. */
+    private final Map<Long, Mensagem> mensagensPorId = new HashMap<>();
+
+    public IndiceFacetasAutor() {
+        this(new Locale("pt", "BR"));
+    }
+
+    /**
+     * @param localidade A localidade que define a ordem alfabética dos autores.
+     */
+    public IndiceFacetasAutor(Locale localidade) {
+        collator = Collator.getInstance(localidade);
+        collator.setStrength(Collator.PRIMARY);
+    }
+
+    /**
+     * Torna o conteúdo do índice igual à lista informada, aplicando apenas as diferenças.
+     *
+     * @param mensagens O conjunto atual de mensagens (por exemplo, as favoritas).
+     * @return {@code true} se algo mudou no índice.
+     */
+    public synchronized boolean sincronizar(List<Mensagem> mensagens) {
+        boolean mudou = false;
+        Set<Long> idsNovos = new HashSet<>(mensagens.size() * 2);
+        for (Mensagem mensagem : mensagens) {
+            idsNovos.add(mensagem.getId());
+        }
+        // Remove primeiro as que saíram, copiando as chaves para não alterar o mapa durante a iteração.
+        for (Long id : new ArrayList<>(mensagensPorId.keySet())) {
+            if (!idsNovos.contains(id)) {
+                remover(id);
+                mudou = true;
+            }
+        }
+        for (Mensagem mensagem : mensagens) {
+            mudou |= adicionar(mensagem);
+        }
+        return mudou;
+    }
+
+    /**
+     * Insere ou atualiza uma mensagem no índice.
+     *
+     * @param mensagem A mensagem a ser indexada.
+     * @return {@code true} se o índice mudou.
+     */
+    public synchronized boolean adicionar(Mensagem mensagem) {
+        Mensagem anterior = mensagensPorId.get(mensagem.getId());
+        if (anterior != null) {
+            if (nomeAutor(anterior).equals(nomeAutor(mensagem))) {
+                // Mesmo autor: só o conteúdo pode ter mudado; a posição na faceta continua a mesma.
+                boolean mudou = !Objects.equals(anterior.getTexto(), mensagem.getTexto());
+                mensagensPorId.put(mensagem.getId(), mensagem);
+                return mudou;
+            }
+            remover(mensagem.getId());
+        }
+        mensagensPorId.put(mensagem.getId(), mensagem);
+        faceta(nomeAutor(mensagem)).inserir(mensagem.getId());
+        return true;
+    }
+
+    /**
+     * Remove uma mensagem do índice, apagando a faceta do autor se ela ficar vazia.
+     *
+     * @param id O ID da mensagem.
+     */
+    public synchronized void remover(long id) {
+        Mensagem mensagem = mensagensPorId.remove(id);
+        if (mensagem == null) {
+            return;
+        }
+        Faceta faceta = facetasPorAutor.get(nomeAutor(mensagem));
+        if (faceta != null) {
+            faceta.remover(id);
+            if (faceta.tamanho == 0) {
+                // Grafias com a mesma chave (ex.: "João" e "joao") compartilham a faceta; remove todas.
+                facetasPorAutor.values().removeIf(f -> f == faceta);
+                facetasOrdenadas.remove(faceta.chave);
+            }
+        }
+    }
+
+    /**
+     * @return Os autores indexados, em ordem alfabética.
+     */
+    public synchronized List<String> autores() {
+        List<String> autores = new ArrayList<>(facetasOrdenadas.size());
+        for (Faceta faceta : facetasOrdenadas.values()) {
+            autores.add(faceta.autor);
+        }
+        return autores;
+    }
+
+    /**
+     * Monta os grupos (autor + mensagens) em ordem alfabética de autor, sem nenhuma ordenação
+     * adicional: a ordem já está mantida pelo índice.
+     *
+     * @param filtroAutor Se não nulo, retorna apenas o grupo desse autor.
+     * @return A lista de grupos, possivelmente vazia.
+     */
+    public synchronized List<GrupoAutor> grupos(String filtroAutor) {
+        List<GrupoAutor> grupos = new ArrayList<>();
+        if (filtroAutor != null) {
+            Faceta faceta = facetasPorAutor.get(filtroAutor);
+            if (faceta != null) {
+                grupos.add(materializar(faceta));
+            }
+            return grupos;
+        }
+        for (Faceta faceta : facetasOrdenadas.values()) {
+            grupos.add(materializar(faceta));
+        }
+        return grupos;
+    }
+
+    /** @return {@code true} se o autor tem ao menos uma mensagem indexada. */
+    public synchronized boolean contemAutor(String autor) {
+        return facetasPorAutor.containsKey(autor);
+    }
+
+    /** @return A quantidade de mensagens indexadas. */
+    public synchronized int tamanho() {
+        return mensagensPorId.size();
+    }
+
+    /** Esvazia o índice. As chaves de ordenação são recalculadas sob demanda. */
+    public synchronized void limpar() {
+        facetasOrdenadas.clear();
+        facetasPorAutor.clear();
+        mensagensPorId.clear();
+    }
+
+    // --- Métodos Privados ---
+
+    private Faceta faceta(String autor) {
+        Faceta faceta = facetasPorAutor.get(autor);
+        if (faceta == null) {
+            // A chave de ordenação é calculada uma única vez por autor.
+            CollationKey chave = collator.getCollationKey(autor);
+            faceta = facetasOrdenadas.get(chave);
+            if (faceta == null) {
+                faceta = new Faceta(autor, chave);
+                facetasOrdenadas.put(chave, faceta);
+            }
+            facetasPorAutor.put(autor, faceta);
+        }
+        return faceta;
+    }
+
+    private GrupoAutor materializar(Faceta faceta) {
+        List<Mensagem> mensagens = new ArrayList<>(faceta.tamanho);
+        for (int i = 0; i < faceta.tamanho; i++) {
+            mensagens.add(mensagensPorId.get(faceta.ids[i]));
+        }
+        return new GrupoAutor(faceta.autor, mensagens);
+    }
+
+    private static String nomeAutor(Mensagem mensagem) {
+        String autor = mensagem.getAutor();
+        return autor == null || autor.trim().isEmpty() ? AUTOR_DESCONHECIDO : autor.trim();
+    }
+
+    /**
+     * Uma faceta: o autor, sua chave de ordenação pré-calculada e a lista ordenada de IDs.
+     * Os IDs ficam em um array primitivo, mantido ordenado por busca binária.
+     */
+    private static final class Faceta {
+        final String autor;
+        final CollationKey chave;
+        long[] ids = new long[4];
+        int tamanho;
+
+        Faceta(String autor, CollationKey chave) {
+            this.autor = autor;
+            this.chave = chave;
+        }
+
+        void inserir(long id) {
+            int posicao = Arrays.binarySearch(ids, 0, tamanho, id);
+            if (posicao >= 0) {
+                return;
+            }
+            posicao = -posicao - 1;
+            if (tamanho == ids.length) {
+                ids = Arrays.copyOf(ids, tamanho * 2);
+            }
+            System.arraycopy(ids, posicao, ids, posicao + 1, tamanho - posicao);
+            ids[posicao] = id;
+            tamanho++;
+        }
+
+        void remover(long id) {
+            int posicao = Arrays.binarySearch(ids, 0, tamanho, id);
+            if (posicao < 0) {
+                return;
+            }
+            System.arraycopy(ids, posicao + 1, ids, posicao, tamanho - posicao - 1);
+            tamanho--;
+        }
+    }
+
+    /**
+     * Um grupo pronto para exibição: o nome do autor e suas mensagens, já na ordem do índice.
+     */
+    public static final class GrupoAutor {
+        private final String autor;
+        private final List<Mensagem> mensagens;
+
+        public GrupoAutor(String autor, List<Mensagem> mensagens) {
+            this.autor = autor;
+            this.mensagens = mensagens;
+        }
+
+        public String getAutor() {
+            return autor;
+        }
+
+        public List<Mensagem> getMensagens() {
+            return mensagens;
+        }
+    }
+}
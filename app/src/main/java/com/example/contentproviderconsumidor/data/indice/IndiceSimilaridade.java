@@ -0,0 +1,762 @@
+package com.example.contentproviderconsumidor.data.indice;
+
+import com.example.contentproviderconsumidor.data.db.MensagemContract;
+import com.example.contentproviderconsumidor.data.memoria.CacheGerenciado;
+import com.example.contentproviderconsumidor.data.memoria.NivelDescarte;
+import com.example.contentproviderconsumidor.data.model.Mensagem;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Índice de similaridade textual entre mensagens, usado para recomendar frases parecidas com uma
+ * mensagem ("mais como esta") ou com o conjunto de favoritas do usuário.
+ * <p>
+ * Cada mensagem vira um vetor esparso TF-IDF sobre os termos do {@code texto}: palavras em
+ * minúsculas, sem acentos, descartando palavras vazias do português ("de", "que", "para"...).
+ * O peso de um termo em uma mensagem é {@code (1 + ln tf) * idf}, com
+ * {@code idf = ln(1 + N / df)}, e a similaridade é o cosseno entre os vetores.
+ * <p>
+ * As consultas não comparam a consulta com todas as mensagens: percorrem apenas as listas
+ * invertidas (termo → mensagens que o contêm) dos termos da consulta, acumulando a pontuação
+ * das mensagens encontradas. Para limitar o custo, só os {@link #MAX_TERMOS_CONSULTA} termos de
+ * maior peso da consulta são usados, e termos muito comuns (presentes em mais de
+ * {@link #FRACAO_TERMO_COMUM} das mensagens) são ignorados depois dos primeiros — eles tocariam
+ * boa parte do catálogo e quase não mudam a ordem do resultado.
+ * <p>
+ * O índice é mantido de forma incremental ({@link #sincronizar(List)}, {@link #atualizar} e
+ * {@link #remover}); a tokenização das mensagens novas ou alteradas roda em paralelo, em todos
+ * os núcleos. As normas dos vetores dependem do idf, que muda com o catálogo; elas são
+ * recalculadas (também em paralelo) quando as alterações acumuladas passam de
+ * {@link #FRACAO_ALTERACOES_PARA_NORMAS} do índice. Todos os métodos públicos são sincronizados.
+ * <p>
+ * Só o começo de cada texto é indexado: os primeiros
+ * {@link MensagemContract.MensagemEntry#TAMANHO_PREFIXO_TEXTO} caracteres, o mesmo prefixo que as
+ * consultas de lista trazem do provedor. Ler o texto inteiro de todo o catálogo custaria, a cada
+ * varredura, o IPC que a projeção com prefixo existe para evitar. Por isso textos mais longos são
+ * comparados só pelo começo, e uma alteração depois desse ponto não muda o índice. Toda entrada
+ * (o catálogo, {@link #atualizar} e {@link #semelhantesAoTexto}) é cortada no mesmo ponto, para
+ * que uma mensagem consultada pelo texto completo dê o mesmo resultado que a sua versão indexada.
+ * <p>
+ * Como {@link CacheGerenciado}, o índice não é reduzido pela verificação de limites
+ * ({@link #isLimitadoPeloOrcamento()}): ele só pode ser descartado inteiro e refazê-lo exige ler o
+ * catálogo todo, então reduzi-lo a cada verificação o faria ser descartado e refeito sem parar.
+ * Em vez disso, ele recebe uma parte fixa do orçamento (o limite informado no construtor), que
+ * conta no total, e para de receber mensagens novas ao atingi-la ({@link #getMensagensForaDoLimite()});
+ * só os avisos de falta de memória do sistema o descartam.
+ */
+public class IndiceSimilaridade implements CacheGerenciado {
+
+    /** Quantidade máxima de termos usados em uma consulta (os de maior peso). */
+    private static final int MAX_TERMOS_CONSULTA = 32;
+
+    /** Fração das mensagens acima da qual um termo é considerado comum demais para ser percorrido. */
+    private static final double FRACAO_TERMO_COMUM = 0.2;
+
+    /** Termos percorridos antes que os termos comuns passem a ser ignorados. */
+    private static final int TERMOS_ANTES_DA_PODA = 3;
+
+    /** Fração de mensagens alteradas que dispara o recálculo de todas as normas. */
+    private static final double FRACAO_ALTERACOES_PARA_NORMAS = 0.1;
+
+    /** Tamanho mínimo de um termo, em caracteres. */
+    private static final int TAMANHO_MINIMO_TERMO = 2;
+
+    /**
+     * Custo aproximado, em bytes, de uma mensagem no índice além dos seus termos (posição na
+     * tabela de IDs, hash, norma e os arrays do vetor). Com ~20 termos por mensagem, 100 mil
+     * mensagens ocupam algo entre 35 e 55MB: mais que a parte do orçamento que cabe ao índice na
+     * maioria dos aparelhos, e por isso catálogos grandes são indexados só em parte
+     * ({@link #getMensagensForaDoLimite()}).
+     */
+    private static final int BYTES_POR_MENSAGEM = Long.BYTES + Integer.BYTES + Float.BYTES + 2 * 16 + 16;
+
+    /** Custo de cada termo de uma mensagem: a entrada no vetor da mensagem e na lista invertida. */
+    private static final int BYTES_POR_TERMO = 2 * (Integer.BYTES + Float.BYTES);
+
+    /**
+     * De quantas em quantas mensagens inseridas a memória é medida de novo durante uma indexação.
+     * Entre as medições ela é estimada, e a estimativa não conta o crescimento dos arrays.
+     */
+    private static final int MENSAGENS_ENTRE_MEDICOES = 4096;
+
+    private static final int CAPACIDADE_INICIAL = 1024;
+
+    /** Palavras vazias do português, já normalizadas (minúsculas e sem acentos). */
+    private static final Set<String> PALAVRAS_VAZIAS = new HashSet<>();
+
+    static {
+        String[] palavras = (
+                "a à ao aos aquela aquelas aquele aqueles aquilo as às até com como da das de dela delas "
+                + "dele deles depois do dos e é ela elas ele eles em entre era eram és essa essas esse "
+                + "esses esta está estão estas estava estavam este estes eu foi fomos for foram fosse "
+                + "fossem fui há isso isto já la lhe lhes lo mais mas me mesmo meu meus minha minhas "
+                + "muito na não nas nem no nos nós nossa nossas nosso nossos num numa o os ou para pela "
+                + "pelas pelo pelos por qual quando que quem são se seja sejam sem ser será seu seus "
+                + "só sua suas também te tem têm tinha tinham tu tua tuas teu teus um uma umas uns "
+                + "vai vão você vocês vos ter sao pra pro cada tudo todo toda todos todas nada algo "
+                + "onde assim ainda sempre nunca porque pois sobre sob ja tao tão lá aqui ali"
+        ).split(" ");
+        for (String palavra : palavras) {
+            PALAVRAS_VAZIAS.add(normalizar(palavra));
+        }
+    }
+
+    /** Uma mensagem recomendada e a sua similaridade (cosseno, de 0 a 1) com a consulta. */
+    public static final class Resultado {
+        private final long id;
+        private final float similaridade;
+
+        public Resultado(long id, float similaridade) {
+            this.id = id;
+            this.similaridade = similaridade;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public float getSimilaridade() {
+            return similaridade;
+        }
+    }
+
+    // --- Vocabulário e listas invertidas, indexados pelo número do termo ---
+
+    private final Map<String, Integer> numeroTermo = new HashMap<>();
+    private int totalTermos;
+
+    /** Em quantas mensagens cada termo aparece. */
+    private int[] frequenciaDocumentos = new int[CAPACIDADE_INICIAL];
+
+    /** Lista invertida de cada termo: as posições das mensagens que o contêm... */
+    private int[][] listaPosicoes = new int[CAPACIDADE_INICIAL][];
+
+    /** ...e o peso {@code 1 + ln tf} do termo em cada uma delas. */
+    private float[][] listaPesos = new float[CAPACIDADE_INICIAL][];
+
+    private int[] tamanhoLista = new int[CAPACIDADE_INICIAL];
+
+    // --- Mensagens, indexadas pela posição ---
+
+    /** ID da mensagem → posição. */
+    private TabelaLongInt posicaoPorId = new TabelaLongInt(CAPACIDADE_INICIAL);
+
+    private long[] idPosicao = new long[CAPACIDADE_INICIAL];
+
+    /** Hash do texto indexado, para detectar alterações. */
+    private int[] hashTextoPosicao = new int[CAPACIDADE_INICIAL];
+
+    /** Termos da mensagem (null em posições livres) e o peso {@code 1 + ln tf} de cada um. */
+    private int[][] termosPosicao = new int[CAPACIDADE_INICIAL][];
+    private float[][] pesosPosicao = new float[CAPACIDADE_INICIAL][];
+
+    /** Norma do vetor TF-IDF da mensagem. */
+    private float[] normaPosicao = new float[CAPACIDADE_INICIAL];
+
+    private int posicoesUsadas;
+    private int[] posicoesLivres = new int[16];
+    private int totalLivres;
+    private int totalMensagens;
+    private int alteracoesDesdeNormas;
+
+    // --- Espaço de trabalho das consultas, reaproveitado entre elas ---
+
+    private float[] acumulador = new float[0];
+    private int[] tocadas = new int[0];
+
+    private long descartes;
+    private long ultimaConsultaNanos;
+
+    /** Memória máxima, em bytes; acima dela, mensagens novas não são indexadas. */
+    private final long limiteBytes;
+
+    /** Mensagens da última sincronização que ficaram fora do índice por causa do limite. */
+    private int mensagensForaDoLimite;
+
+    /**
+     * @param limiteBytes A memória máxima do índice, em bytes. Mensagens novas que passariam do
+     *                    limite não são indexadas (não aparecem nas recomendações).
+     */
+    public IndiceSimilaridade(long limiteBytes) {
+        this.limiteBytes = limiteBytes;
+    }
+
+    // --- Manutenção incremental ---
+
+    /**
+     * Sincroniza o índice com o catálogo completo: indexa as mensagens novas, reindexa as que
+     * tiveram o texto alterado e remove as que não estão mais na lista. Mensagens inalteradas
+     * não são processadas de novo.
+     *
+     * @param catalogo Todas as mensagens do catálogo.
+     * @return Quantas mensagens foram indexadas, reindexadas ou removidas.
+     */
+    public synchronized int sincronizar(List<Mensagem> catalogo) {
+        boolean[] vistas = new boolean[posicoesUsadas];
+        List<Mensagem> pendentes = new ArrayList<>();
+        for (Mensagem mensagem : catalogo) {
+            int posicao = posicaoPorId.obter(mensagem.getId());
+            if (posicao != TabelaLongInt.AUSENTE) {
+                vistas[posicao] = true;
+                if (hashTextoPosicao[posicao] == hashTexto(prefixo(mensagem.getTexto()))) {
+                    continue;
+                }
+            }
+            pendentes.add(mensagem);
+        }
+
+        int alteradas = pendentes.size();
+        for (int posicao = 0; posicao < vistas.length; posicao++) {
+            if (!vistas[posicao] && termosPosicao[posicao] != null) {
+                removerPosicao(posicao);
+                alteradas++;
+            }
+        }
+        mensagensForaDoLimite = 0;
+        indexar(pendentes);
+        alteracoesDesdeNormas += alteradas - mensagensForaDoLimite;
+        atualizarNormasSeNecessario();
+        return alteradas - mensagensForaDoLimite;
+    }
+
+    /**
+     * Indexa (ou reindexa) uma única mensagem.
+     *
+     * @param mensagem A mensagem nova ou alterada.
+     */
+    public synchronized void atualizar(Mensagem mensagem) {
+        indexar(Collections.singletonList(mensagem));
+        alteracoesDesdeNormas++;
+        atualizarNormasSeNecessario();
+    }
+
+    /**
+     * Remove uma mensagem do índice.
+     *
+     * @param id O ID da mensagem.
+     */
+    public synchronized void remover(long id) {
+        int posicao = posicaoPorId.obter(id);
+        if (posicao != TabelaLongInt.AUSENTE) {
+            removerPosicao(posicao);
+            alteracoesDesdeNormas++;
+            atualizarNormasSeNecessario();
+        }
+    }
+
+    /** Esvazia o índice e devolve a memória. */
+    public synchronized void limpar() {
+        numeroTermo.clear();
+        totalTermos = 0;
+        frequenciaDocumentos = new int[CAPACIDADE_INICIAL];
+        listaPosicoes = new int[CAPACIDADE_INICIAL][];
+        listaPesos = new float[CAPACIDADE_INICIAL][];
+        tamanhoLista = new int[CAPACIDADE_INICIAL];
+        posicaoPorId = new TabelaLongInt(CAPACIDADE_INICIAL);
+        idPosicao = new long[CAPACIDADE_INICIAL];
+        hashTextoPosicao = new int[CAPACIDADE_INICIAL];
+        termosPosicao = new int[CAPACIDADE_INICIAL][];
+        pesosPosicao = new float[CAPACIDADE_INICIAL][];
+        normaPosicao = new float[CAPACIDADE_INICIAL];
+        posicoesUsadas = 0;
+        totalLivres = 0;
+        totalMensagens = 0;
+        alteracoesDesdeNormas = 0;
+        acumulador = new float[0];
+        tocadas = new int[0];
+    }
+
+    // --- Consultas ---
+
+    /**
+     * Retorna as mensagens mais parecidas com uma mensagem já indexada (sem incluí-la).
+     *
+     * @param id O ID da mensagem de referência.
+     * @param k A quantidade máxima de resultados.
+     * @return Até {@code k} resultados, do mais para o menos parecido; vazio se o ID não estiver indexado.
+     */
+    public synchronized List<Resultado> semelhantes(long id, int k) {
+        int posicao = posicaoPorId.obter(id);
+        if (posicao == TabelaLongInt.AUSENTE) {
+            return new ArrayList<>();
+        }
+        int[] termos = termosPosicao[posicao];
+        float[] pesos = new float[termos.length];
+        for (int i = 0; i < termos.length; i++) {
+            pesos[i] = pesosPosicao[posicao][i] * idf(termos[i]);
+        }
+        return consultar(termos, pesos, k, new int[]{posicao});
+    }
+
+    /**
+     * Retorna as mensagens mais parecidas com um texto qualquer (ex.: uma mensagem ainda não indexada).
+     *
+     * @param texto O texto de referência.
+     * @param k A quantidade máxima de resultados.
+     * @return Até {@code k} resultados, do mais para o menos parecido.
+     */
+    public synchronized List<Resultado> semelhantesAoTexto(String texto, int k) {
+        Tokens tokens = tokenizar(prefixo(texto));
+        int[] termos = new int[tokens.termos.length];
+        float[] pesos = new float[tokens.termos.length];
+        int total = 0;
+        for (int i = 0; i < tokens.termos.length; i++) {
+            Integer termo = numeroTermo.get(tokens.termos[i]);
+            if (termo != null && frequenciaDocumentos[termo] > 0) {
+                termos[total] = termo;
+                pesos[total++] = pesoTf(tokens.contagens[i]) * idf(termo);
+            }
+        }
+        return consultar(Arrays.copyOf(termos, total), Arrays.copyOf(pesos, total), k, new int[0]);
+    }
+
+    /**
+     * Recomenda mensagens para um perfil formado por várias mensagens (ex.: as favoritas).
+     * O vetor do perfil é a soma dos vetores normalizados das mensagens; as próprias mensagens
+     * do perfil não entram no resultado.
+     *
+     * @param ids Os IDs das mensagens que formam o perfil.
+     * @param k A quantidade máxima de resultados.
+     * @return Até {@code k} resultados, do mais para o menos parecido com o perfil.
+     */
+    public synchronized List<Resultado> recomendarPorPerfil(long[] ids, int k) {
+        Map<Integer, Float> perfil = new HashMap<>();
+        int[] excluidas = new int[ids.length];
+        int totalExcluidas = 0;
+        for (long id : ids) {
+            int posicao = posicaoPorId.obter(id);
+            if (posicao == TabelaLongInt.AUSENTE) {
+                continue;
+            }
+            excluidas[totalExcluidas++] = posicao;
+            int[] termos = termosPosicao[posicao];
+            for (int i = 0; i < termos.length; i++) {
+                float peso = pesosPosicao[posicao][i] * idf(termos[i]) / normaPosicao[posicao];
+                Float atual = perfil.get(termos[i]);
+                perfil.put(termos[i], atual != null ? atual + peso : peso);
+            }
+        }
+        int[] termos = new int[perfil.size()];
+        float[] pesos = new float[perfil.size()];
+        int i = 0;
+        for (Map.Entry<Integer, Float> entrada : perfil.entrySet()) {
+            termos[i] = entrada.getKey();
+            pesos[i++] = entrada.getValue();
+        }
+        return consultar(termos, pesos, k, Arrays.copyOf(excluidas, totalExcluidas));
+    }
+
+    /** @return A quantidade de mensagens indexadas. */
+    public synchronized int tamanho() {
+        return totalMensagens;
+    }
+
+    /**
+     * @return Quantas mensagens da última sincronização ficaram fora do índice (e das
+     *         recomendações) por não caberem no limite de memória.
+     */
+    public synchronized int getMensagensForaDoLimite() {
+        return mensagensForaDoLimite;
+    }
+
+    /** @return A duração, em nanossegundos, da última consulta. */
+    public synchronized long getUltimaConsultaNanos() {
+        return ultimaConsultaNanos;
+    }
+
+    // --- Controle de memória ---
+
+    @Override
+    public String getNome() {
+        return "indiceSimilaridade";
+    }
+
+    @Override
+    public NivelDescarte getNivel() {
+        return NivelDescarte.INDICES;
+    }
+
+    @Override
+    public synchronized long getBytesOcupados() {
+        long bytes = posicaoPorId.bytesOcupados()
+                + (long) idPosicao.length * (Long.BYTES + Integer.BYTES + Float.BYTES + 2L * 8)
+                + (long) frequenciaDocumentos.length * (2 * Integer.BYTES + 2L * 8)
+                + (long) totalTermos * 64
+                + (long) acumulador.length * (Float.BYTES + Integer.BYTES);
+        for (int termo = 0; termo < totalTermos; termo++) {
+            if (listaPosicoes[termo] != null) {
+                bytes += (long) listaPosicoes[termo].length * (Integer.BYTES + Float.BYTES);
+            }
+        }
+        for (int posicao = 0; posicao < posicoesUsadas; posicao++) {
+            if (termosPosicao[posicao] != null) {
+                bytes += (long) termosPosicao[posicao].length * (Integer.BYTES + Float.BYTES);
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public long getLimiteBytes() {
+        return limiteBytes;
+    }
+
+    /**
+     * O índice controla o próprio tamanho ao crescer; a sua memória conta no orçamento, mas só os
+     * avisos do sistema o descartam.
+     */
+    @Override
+    public boolean isLimitadoPeloOrcamento() {
+        return false;
+    }
+
+    /**
+     * O índice não descarta por partes: se ocupar mais que {@code bytesAlvo}, é esvaziado.
+     * Ele se refaz na próxima sincronização com o catálogo.
+     */
+    @Override
+    public synchronized void reduzirPara(long bytesAlvo) {
+        if (getBytesOcupados() > bytesAlvo) {
+            descartes += totalMensagens;
+            limpar();
+        }
+    }
+
+    @Override
+    public synchronized long getDescartes() {
+        return descartes;
+    }
+
+    // --- Métodos Privados ---
+
+    /**
+     * Núcleo das consultas: percorre as listas invertidas dos termos de maior peso, acumulando
+     * o produto escalar de cada mensagem tocada, e seleciona as {@code k} de maior cosseno.
+     *
+     * @param termos Os termos da consulta.
+     * @param pesos O peso TF-IDF de cada termo na consulta.
+     * @param k A quantidade máxima de resultados.
+     * @param excluidas Posições que não podem aparecer no resultado.
+     */
+    private List<Resultado> consultar(int[] termos, float[] pesos, int k, int[] excluidas) {
+        long inicio = System.nanoTime();
+        if (acumulador.length < posicoesUsadas) {
+            acumulador = new float[idPosicao.length];
+            tocadas = new int[idPosicao.length];
+        }
+
+        // Ordena os termos pela contribuição máxima de cada um e fica com os primeiros.
+        Integer[] ordem = new Integer[termos.length];
+        float[] contribuicao = new float[termos.length];
+        for (int i = 0; i < termos.length; i++) {
+            ordem[i] = i;
+            contribuicao[i] = pesos[i] * idf(termos[i]);
+        }
+        Arrays.sort(ordem, (a, b) -> Float.compare(contribuicao[b], contribuicao[a]));
+        int usados = Math.min(termos.length, MAX_TERMOS_CONSULTA);
+
+        int totalTocadas = 0;
+        double normaConsulta = 0;
+        int percorridos = 0;
+        for (int j = 0; j < usados; j++) {
+            int i = ordem[j];
+            int termo = termos[i];
+            normaConsulta += (double) pesos[i] * pesos[i];
+            if (percorridos >= TERMOS_ANTES_DA_PODA
+                    && frequenciaDocumentos[termo] > totalMensagens * FRACAO_TERMO_COMUM) {
+                continue;
+            }
+            percorridos++;
+            float fator = contribuicao[i];
+            int[] posicoes = listaPosicoes[termo];
+            float[] pesosLista = listaPesos[termo];
+            for (int p = 0, n = tamanhoLista[termo]; p < n; p++) {
+                int posicao = posicoes[p];
+                if (acumulador[posicao] == 0f) {
+                    tocadas[totalTocadas++] = posicao;
+                }
+                acumulador[posicao] += fator * pesosLista[p];
+            }
+        }
+        for (int posicao : excluidas) {
+            acumulador[posicao] = 0f;
+        }
+
+        // Seleção das k maiores pontuações em um array ordenado (k é pequeno).
+        int limite = Math.max(0, k);
+        int[] melhores = new int[limite];
+        float[] notas = new float[limite];
+        int totalMelhores = 0;
+        for (int t = 0; t < totalTocadas; t++) {
+            int posicao = tocadas[t];
+            float produto = acumulador[posicao];
+            acumulador[posicao] = 0f;
+            if (produto <= 0f || limite == 0) {
+                continue;
+            }
+            float nota = produto / normaPosicao[posicao];
+            if (totalMelhores == limite && nota <= notas[limite - 1]) {
+                continue;
+            }
+            int i = totalMelhores < limite ? totalMelhores++ : limite - 1;
+            while (i > 0 && notas[i - 1] < nota) {
+                notas[i] = notas[i - 1];
+                melhores[i] = melhores[i - 1];
+                i--;
+            }
+            notas[i] = nota;
+            melhores[i] = posicao;
+        }
+
+        float divisor = normaConsulta > 0 ? (float) Math.sqrt(normaConsulta) : 1f;
+        List<Resultado> resultado = new ArrayList<>(totalMelhores);
+        for (int i = 0; i < totalMelhores; i++) {
+            resultado.add(new Resultado(idPosicao[melhores[i]], Math.min(1f, notas[i] / divisor)));
+        }
+        ultimaConsultaNanos = System.nanoTime() - inicio;
+        return resultado;
+    }
+
+    /**
+     * Tokeniza as mensagens em paralelo e as insere (ou reinsere) no índice. Mensagens novas que
+     * levariam o índice além de {@link #limiteBytes} ficam de fora (e são contadas em
+     * {@link #mensagensForaDoLimite}); as já indexadas são sempre reindexadas.
+     */
+    private void indexar(List<Mensagem> mensagens) {
+        long bytes = getBytesOcupados();
+        if (bytes > limiteBytes) {
+            // Já no limite: nem tokeniza as mensagens novas, que ficariam de fora de qualquer forma.
+            List<Mensagem> indexadas = new ArrayList<>();
+            for (Mensagem mensagem : mensagens) {
+                if (posicaoPorId.obter(mensagem.getId()) != TabelaLongInt.AUSENTE) {
+                    indexadas.add(mensagem);
+                }
+            }
+            mensagensForaDoLimite += mensagens.size() - indexadas.size();
+            mensagens = indexadas;
+        }
+        if (mensagens.isEmpty()) {
+            return;
+        }
+        // A tokenização (normalização, separação e contagem) é a parte cara e não toca no índice.
+        Tokens[] tokens = new Tokens[mensagens.size()];
+        List<Mensagem> lista = mensagens;
+        IntStream.range(0, tokens.length).parallel()
+                .forEach(i -> tokens[i] = tokenizar(prefixo(lista.get(i).getTexto())));
+        for (int i = 0; i < tokens.length; i++) {
+            Mensagem mensagem = lista.get(i);
+            int anterior = posicaoPorId.obter(mensagem.getId());
+            if (anterior != TabelaLongInt.AUSENTE) {
+                removerPosicao(anterior);
+            } else if (bytes > limiteBytes) {
+                mensagensForaDoLimite++;
+                continue;
+            }
+            bytes += BYTES_POR_MENSAGEM + (long) tokens[i].termos.length * BYTES_POR_TERMO;
+            if (i % MENSAGENS_ENTRE_MEDICOES == MENSAGENS_ENTRE_MEDICOES - 1) {
+                bytes = getBytesOcupados();
+            }
+            inserir(mensagem.getId(), hashTexto(prefixo(mensagem.getTexto())), tokens[i]);
+        }
+    }
+
+    /** Corta o texto no mesmo prefixo que as consultas de lista leem do provedor. */
+    private static String prefixo(String texto) {
+        int tamanho = MensagemContract.MensagemEntry.TAMANHO_PREFIXO_TEXTO;
+        return texto != null && texto.length() > tamanho ? texto.substring(0, tamanho) : texto;
+    }
+
+    private void inserir(long id, int hash, Tokens tokens) {
+        int posicao = novaPosicao();
+        int[] termos = new int[tokens.termos.length];
+        float[] pesos = new float[tokens.termos.length];
+        for (int i = 0; i < termos.length; i++) {
+            int termo = numeroOuNovo(tokens.termos[i]);
+            termos[i] = termo;
+            pesos[i] = pesoTf(tokens.contagens[i]);
+            frequenciaDocumentos[termo]++;
+            adicionarNaLista(termo, posicao, pesos[i]);
+        }
+        idPosicao[posicao] = id;
+        hashTextoPosicao[posicao] = hash;
+        termosPosicao[posicao] = termos;
+        pesosPosicao[posicao] = pesos;
+        posicaoPorId.colocar(id, posicao);
+        totalMensagens++;
+        normaPosicao[posicao] = calcularNorma(posicao);
+    }
+
+    private void removerPosicao(int posicao) {
+        int[] termos = termosPosicao[posicao];
+        for (int termo : termos) {
+            frequenciaDocumentos[termo]--;
+            // Remove da lista invertida trocando pelo último (a ordem das listas não importa).
+            int[] posicoes = listaPosicoes[termo];
+            int ultimo = --tamanhoLista[termo];
+            for (int p = 0; p <= ultimo; p++) {
+                if (posicoes[p] == posicao) {
+                    posicoes[p] = posicoes[ultimo];
+                    listaPesos[termo][p] = listaPesos[termo][ultimo];
+                    break;
+                }
+            }
+        }
+        posicaoPorId.remover(idPosicao[posicao]);
+        termosPosicao[posicao] = null;
+        pesosPosicao[posicao] = null;
+        totalMensagens--;
+        if (totalLivres == posicoesLivres.length) {
+            posicoesLivres = Arrays.copyOf(posicoesLivres, totalLivres * 2);
+        }
+        posicoesLivres[totalLivres++] = posicao;
+    }
+
+    private int novaPosicao() {
+        if (totalLivres > 0) {
+            return posicoesLivres[--totalLivres];
+        }
+        if (posicoesUsadas == idPosicao.length) {
+            int capacidade = idPosicao.length * 2;
+            idPosicao = Arrays.copyOf(idPosicao, capacidade);
+            hashTextoPosicao = Arrays.copyOf(hashTextoPosicao, capacidade);
+            termosPosicao = Arrays.copyOf(termosPosicao, capacidade);
+            pesosPosicao = Arrays.copyOf(pesosPosicao, capacidade);
+            normaPosicao = Arrays.copyOf(normaPosicao, capacidade);
+        }
+        return posicoesUsadas++;
+    }
+
+    private int numeroOuNovo(String termo) {
+        Integer numero = numeroTermo.get(termo);
+        if (numero != null) {
+            return numero;
+        }
+        if (totalTermos == frequenciaDocumentos.length) {
+            int capacidade = totalTermos * 2;
+            frequenciaDocumentos = Arrays.copyOf(frequenciaDocumentos, capacidade);
+            listaPosicoes = Arrays.copyOf(listaPosicoes, capacidade);
+            listaPesos = Arrays.copyOf(listaPesos, capacidade);
+            tamanhoLista = Arrays.copyOf(tamanhoLista, capacidade);
+        }
+        numeroTermo.put(termo, totalTermos);
+        return totalTermos++;
+    }
+
+    private void adicionarNaLista(int termo, int posicao, float peso) {
+        int tamanho = tamanhoLista[termo];
+        if (listaPosicoes[termo] == null) {
+            listaPosicoes[termo] = new int[4];
+            listaPesos[termo] = new float[4];
+        } else if (tamanho == listaPosicoes[termo].length) {
+            listaPosicoes[termo] = Arrays.copyOf(listaPosicoes[termo], tamanho * 2);
+            listaPesos[termo] = Arrays.copyOf(listaPesos[termo], tamanho * 2);
+        }
+        listaPosicoes[termo][tamanho] = posicao;
+        listaPesos[termo][tamanho] = peso;
+        tamanhoLista[termo] = tamanho + 1;
+    }
+
+    /** Recalcula, em paralelo, as normas de todas as mensagens se o idf mudou o bastante. */
+    private void atualizarNormasSeNecessario() {
+        if (alteracoesDesdeNormas <= totalMensagens * FRACAO_ALTERACOES_PARA_NORMAS) {
+            return;
+        }
+        IntStream.range(0, posicoesUsadas).parallel().forEach(posicao -> {
+            if (termosPosicao[posicao] != null) {
+                normaPosicao[posicao] = calcularNorma(posicao);
+            }
+        });
+        alteracoesDesdeNormas = 0;
+    }
+
+    private float calcularNorma(int posicao) {
+        int[] termos = termosPosicao[posicao];
+        double soma = 0;
+        for (int i = 0; i < termos.length; i++) {
+            double peso = pesosPosicao[posicao][i] * idf(termos[i]);
+            soma += peso * peso;
+        }
+        return soma > 0 ? (float) Math.sqrt(soma) : 1f;
+    }
+
+    private float idf(int termo) {
+        int df = frequenciaDocumentos[termo];
+        return df > 0 ? (float) Math.log(1.0 + (double) totalMensagens / df) : 0f;
+    }
+
+    private static float pesoTf(int contagem) {
+        return 1f + (float) Math.log(contagem);
+    }
+
+    private static int hashTexto(String texto) {
+        return texto != null ? texto.hashCode() : 0;
+    }
+
+    /** Os termos distintos de um texto e quantas vezes cada um aparece. */
+    private static final class Tokens {
+        final String[] termos;
+        final int[] contagens;
+
+        Tokens(String[] termos, int[] contagens) {
+            this.termos = termos;
+            this.contagens = contagens;
+        }
+    }
+
+    /**
+     * Separa o texto em termos: sequências de letras e dígitos, em minúsculas e sem acentos,
+     * ignorando termos curtos e palavras vazias.
+     */
+    private static Tokens tokenizar(String texto) {
+        if (texto == null || texto.isEmpty()) {
+            return new Tokens(new String[0], new int[0]);
+        }
+        String normalizado = normalizar(texto);
+        Map<String, Integer> contagens = new HashMap<>();
+        int inicio = -1;
+        for (int i = 0; i <= normalizado.length(); i++) {
+            boolean parteDoTermo = i < normalizado.length() && Character.isLetterOrDigit(normalizado.charAt(i));
+            if (parteDoTermo && inicio < 0) {
+                inicio = i;
+            } else if (!parteDoTermo && inicio >= 0) {
+                String termo = normalizado.substring(inicio, i);
+                if (termo.length() >= TAMANHO_MINIMO_TERMO && !PALAVRAS_VAZIAS.contains(termo)) {
+                    Integer atual = contagens.get(termo);
+                    contagens.put(termo, atual != null ? atual + 1 : 1);
+                }
+                inicio = -1;
+            }
+        }
+        String[] termos = new String[contagens.size()];
+        int[] quantidades = new int[contagens.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> entrada : contagens.entrySet()) {
+            termos[i] = entrada.getKey();
+            quantidades[i++] = entrada.getValue();
+        }
+        return new Tokens(termos, quantidades);
+    }
+
+    /** Converte para minúsculas e remove os acentos (decomposição NFD sem as marcas). */
+    private static String normalizar(String texto) {
+        String decomposto = Normalizer.normalize(texto.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(decomposto.length());
+        for (int i = 0; i < decomposto.length(); i++) {
+            char c = decomposto.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
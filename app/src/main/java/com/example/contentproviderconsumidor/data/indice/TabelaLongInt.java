@@ -0,0 +1,167 @@
+package com.example.contentproviderconsumidor.data.indice;
+
+import java.util.Arrays;
+
+/**
+ * Tabela hash de endereçamento aberto que mapeia chaves {@code long} para valores {@code int}
+ * não negativos, usando apenas arrays primitivos.
+ * <p>
+ * Existe para que os índices do catálogo (que podem chegar a milhões de linhas) não paguem o
+ * custo de um {@code HashMap<Long, Integer>}, que aloca dois objetos por entrada. Usa sondagem
+ * linear e remoção por deslocamento para trás (sem marcadores de "apagado"), de forma que a
+ * tabela nunca degrada após muitas remoções.
+ * <p>
+ * Esta classe não é thread-safe; quem a usa é responsável pela sincronização.
+ */
+final class TabelaLongInt {
+
+    /** Valor retornado por {@link #obter(long)} quando a chave não existe. */
+    static final int AUSENTE = -1;
+
+    /** Fração máxima de ocupação antes de a tabela dobrar de tamanho. */
+    private static final float FATOR_CARGA = 0.6f;
+
+    private long[] chaves;
+
+    /** Valores associados; {@link #AUSENTE} indica uma posição livre. */
+    private int[] valores;
+
+    private int tamanho;
+
+    private int limiteRedimensionamento;
+
+    TabelaLongInt(int capacidadeInicial) {
+        // A capacidade precisa ser uma potência de dois para que a máscara funcione como módulo.
+        int necessaria = Math.max(16, (int) (capacidadeInicial / FATOR_CARGA));
+        alocar(Integer.highestOneBit(necessaria - 1) << 1);
+    }
+
+    /** @return O valor associado à chave, ou {@link #AUSENTE}. */
+    int obter(long chave) {
+        int mascara = valores.length - 1;
+        int i = espalhar(chave) & mascara;
+        while (valores[i] != AUSENTE) {
+            if (chaves[i] == chave) {
+                return valores[i];
+            }
+            i = (i + 1) & mascara;
+        }
+        return AUSENTE;
+    }
+
+    /**
+     * Associa o valor à chave, substituindo um valor anterior.
+     *
+     * @param valor Um valor não negativo.
+     */
+    void colocar(long chave, int valor) {
+        if (tamanho >= limiteRedimensionamento) {
+            redimensionar();
+        }
+        int mascara = valores.length - 1;
+        int i = espalhar(chave) & mascara;
+        while (valores[i] != AUSENTE) {
+            if (chaves[i] == chave) {
+                valores[i] = valor;
+                return;
+            }
+            i = (i + 1) & mascara;
+        }
+        chaves[i] = chave;
+        valores[i] = valor;
+        tamanho++;
+    }
+
+    /**
+     * Remove a chave, se existir.
+     *
+     * @return O valor que estava associado, ou {@link #AUSENTE}.
+     */
+    int remover(long chave) {
+        int mascara = valores.length - 1;
+        int i = espalhar(chave) & mascara;
+        while (valores[i] != AUSENTE) {
+            if (chaves[i] == chave) {
+                int anterior = valores[i];
+                deslocarParaTras(i);
+                tamanho--;
+                return anterior;
+            }
+            i = (i + 1) & mascara;
+        }
+        return AUSENTE;
+    }
+
+    int tamanho() {
+        return tamanho;
+    }
+
+    void limpar() {
+        Arrays.fill(valores, AUSENTE);
+        tamanho = 0;
+    }
+
+    /** Esvazia a tabela e devolve a memória dos arrays, voltando à capacidade mínima. */
+    void liberar() {
+        alocar(16);
+    }
+
+    /** @return Bytes ocupados pelos arrays internos (aproximado). */
+    long bytesOcupados() {
+        return (long) chaves.length * Long.BYTES + (long) valores.length * Integer.BYTES;
+    }
+
+    /**
+     * Preenche a posição liberada movendo para trás as entradas seguintes do mesmo agrupamento,
+     * mantendo válida a sequência de sondagem de todas as chaves restantes.
+     */
+    private void deslocarParaTras(int livre) {
+        int mascara = valores.length - 1;
+        int j = livre;
+        while (true) {
+            j = (j + 1) & mascara;
+            if (valores[j] == AUSENTE) {
+                break;
+            }
+            int ideal = espalhar(chaves[j]) & mascara;
+            // A entrada em j só pode ir para 'livre' se sua posição ideal não estiver entre (livre, j].
+            boolean idealEntre = livre <= j
+                    ? (ideal > livre && ideal <= j)
+                    : (ideal > livre || ideal <= j);
+            if (!idealEntre) {
+                chaves[livre] = chaves[j];
+                valores[livre] = valores[j];
+                livre = j;
+            }
+        }
+        valores[livre] = AUSENTE;
+    }
+
+    private void redimensionar() {
+        long[] chavesAntigas = chaves;
+        int[] valoresAntigos = valores;
+        alocar(valores.length << 1);
+        for (int i = 0; i < valoresAntigos.length; i++) {
+            if (valoresAntigos[i] != AUSENTE) {
+                colocar(chavesAntigas[i], valoresAntigos[i]);
+            }
+        }
+    }
+
+    private void alocar(int capacidade) {
+        chaves = new long[capacidade];
+        valores = new int[capacidade];
+        Arrays.fill(valores, AUSENTE);
+        tamanho = 0;
+        limiteRedimensionamento = (int) (capacidade * FATOR_CARGA);
+    }
+
+    /** Mistura os bits da chave (finalizador do MurmurHash3) para distribuir bem IDs sequenciais. */
+    private static int espalhar(long chave) {
+        long h = chave;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.contentproviderconsumidor.data.memoria;
+
+/**
+ * Um cache cuja memória é controlada pelo {@link GerenciadorMemoria}.
+ * <p>
+ * O que um cache descarta deve poder ser refeito sob demanda (normalmente relendo do provedor
+ * na próxima vez em que for necessário); descartar nunca pode mudar o que a UI exibe, apenas
+ * o custo de exibi-lo.
+ */
+public interface CacheGerenciado {
+
+    /** @return Um nome curto, usado nas métricas e nos logs. */
+    String getNome();
+
+    /** @return A camada do cache, que define a ordem de descarte. */
+    NivelDescarte getNivel();
+
+    /** @return A memória aproximada, em bytes, ocupada agora. */
+    long getBytesOcupados();
+
+    /**
+     * @return O limite flexível, em bytes. O cache pode passar dele temporariamente; o gerenciador
+     * o traz de volta na próxima verificação.
+     */
+    long getLimiteBytes();
+
+    /**
+     * Descarta entradas, das usadas há mais tempo para as mais recentes, até ocupar no máximo
+     * {@code bytesAlvo}. Caches que não descartam por partes podem esvaziar tudo.
+     *
+     * @param bytesAlvo A memória máxima, em bytes, após o descarte (0 esvazia o cache).
+     */
+    void reduzirPara(long bytesAlvo);
+
+    /** @return Quantas entradas já foram descartadas (por limite ou por falta de memória). */
+    long getDescartes();
+
+    /**
+     * @return false se {@link GerenciadorMemoria#verificarLimites()} não deve reduzir o cache: só os
+     * avisos de falta de memória do sistema o descartam. A sua memória continua contando no orçamento
+     * total, e os demais caches cedem espaço para ela. É para caches que só podem ser descartados
+     * inteiros e que custam caro para refazer; eles param de crescer sozinhos ao atingir
+     * {@link #getLimiteBytes()}, que deve ser uma parte bem menor que o orçamento.
+     */
+    default boolean isLimitadoPeloOrcamento() {
+        return true;
+    }
+}
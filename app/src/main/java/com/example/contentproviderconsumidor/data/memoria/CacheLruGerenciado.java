@@ -0,0 +1,75 @@
+package com.example.contentproviderconsumidor.data.memoria;
+
+import android.util.LruCache;
+
+/**
+ * {@link LruCache} medido em bytes que participa do {@link GerenciadorMemoria}.
+ * O limite do LruCache é o limite flexível do cache.
+ *
+ * @param <K> O tipo das chaves.
+ * @param <V> O tipo dos valores.
+ */
+public class CacheLruGerenciado<K, V> extends LruCache<K, V> implements CacheGerenciado {
+
+    /** Estima a memória ocupada por um valor. */
+    public interface Medidor<V> {
+        /**
+         * @param valor O valor guardado no cache.
+         * @return A memória aproximada, em bytes, ocupada pelo valor (no mínimo 1).
+         */
+        int bytes(V valor);
+    }
+
+    private final String nome;
+    private final NivelDescarte nivel;
+    private final Medidor<V> medidor;
+
+    /**
+     * @param nome O nome do cache, usado nas métricas.
+     * @param nivel A camada do cache.
+     * @param limiteBytes O limite flexível, em bytes.
+     * @param medidor Estima o tamanho de cada valor.
+     */
+    public CacheLruGerenciado(String nome, NivelDescarte nivel, int limiteBytes, Medidor<V> medidor) {
+        super(limiteBytes);
+        this.nome = nome;
+        this.nivel = nivel;
+        this.medidor = medidor;
+    }
+
+    @Override
+    protected int sizeOf(K chave, V valor) {
+        return Math.max(1, medidor.bytes(valor));
+    }
+
+    @Override
+    public String getNome() {
+        return nome;
+    }
+
+    @Override
+    public NivelDescarte getNivel() {
+        return nivel;
+    }
+
+    @Override
+    public long getBytesOcupados() {
+        return size();
+    }
+
+    @Override
+    public long getLimiteBytes() {
+        return maxSize();
+    }
+
+    @Override
+    public void reduzirPara(long bytesAlvo) {
+        // trimToSize(-1) esvazia o cache; 0 manteria entradas de tamanho 0, que não existem aqui.
+        trimToSize(bytesAlvo <= 0 ? -1 : (int) Math.min(bytesAlvo, Integer.MAX_VALUE));
+    }
+
+    @Override
+    public long getDescartes() {
+        return evictionCount();
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.contentproviderconsumidor.data.memoria;
+
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Controla a memória ocupada pelos caches de dados do consumidor, para que o app não vire um
+ * alvo preferencial do low-memory killer em aparelhos com pouca RAM.
+ * <p>
+ * Atua em dois momentos:
+ * <ul>
+ *     <li>{@link #verificarLimites()}, chamado depois que os caches crescem: cada cache é trazido
+ *     de volta ao seu limite flexível e, se a soma ainda passar do orçamento total, as camadas
+ *     são reduzidas na ordem de {@link NivelDescarte} (textos completos antes de IDs e flags).
+ *     Caches que não são reduzidos aqui ({@link CacheGerenciado#isLimitadoPeloOrcamento()})
+ *     ainda contam na soma: os demais cedem espaço para eles.</li>
+ *     <li>{@link #onTrimMemory(int)}: quanto mais grave o nível informado pelo sistema, mais
+ *     camadas são reduzidas e mais fundo (veja {@link #FRACAO_MANTIDA}).</li>
+ * </ul>
+ * Nada é refeito aqui: cada cache se reconstrói sozinho, a partir do provedor, na próxima vez
+ * em que um dado descartado for necessário. Os descartes rodam no {@link Executor} informado,
+ * nunca na thread principal. Ele deve ser dedicado (não uma fila de leituras do provedor): um
+ * aviso de memória crítica precisa liberar memória logo, e não depois das leituras à sua frente.
+ */
+public class GerenciadorMemoria implements ComponentCallbacks2 {
+
+    private static final String TAG = "GerenciadorMemoria";
+
+    /**
+     * Fração da memória atual mantida em cada camada (colunas, na ordem de {@link NivelDescarte}),
+     * para cada intensidade de descarte (linhas, de 1 a 5; veja {@link #intensidade(int)}).
+     */
+    private static final double[][] FRACAO_MANTIDA = {
+            // DERIVADOS, TEXTO_COMPLETO, MENSAGENS, INDICES
+            {0.50, 0.75, 1.00, 1.00},
+            {0.00, 0.50, 1.00, 1.00},
+            {0.00, 0.00, 0.50, 1.00},
+            {0.00, 0.00, 0.00, 1.00},
+            {0.00, 0.00, 0.00, 0.00},
+    };
+
+    /** Intensidade usada em {@link #onLowMemory()}: esvazia tudo. */
+    private static final int INTENSIDADE_MAXIMA = FRACAO_MANTIDA.length;
+
+    /** Recebe um novo retrato das métricas depois de cada verificação ou descarte. */
+    public interface OuvinteMetricas {
+        void onMetricasAtualizadas(@NonNull MetricasMemoria metricas);
+    }
+
+    private final List<CacheGerenciado> caches = new CopyOnWriteArrayList<>();
+    private final long orcamentoBytes;
+    private final Executor executorDescarte;
+
+    /** Evita enfileirar várias verificações de limite seguidas. */
+    private final AtomicBoolean verificacaoPendente = new AtomicBoolean();
+
+    private final AtomicInteger avisosMemoria = new AtomicInteger();
+    private volatile int ultimoNivelAviso = -1;
+    private volatile OuvinteMetricas ouvinte;
+
+    /**
+     * @param orcamentoBytes A memória total, em bytes, que a soma dos caches pode ocupar.
+     * @param executorDescarte Onde as verificações e os descartes são executados; de preferência
+     *                         uma thread só para isso.
+     */
+    public GerenciadorMemoria(long orcamentoBytes, Executor executorDescarte) {
+        this.orcamentoBytes = orcamentoBytes;
+        this.executorDescarte = executorDescarte;
+    }
+
+    /**
+     * Calcula um orçamento proporcional ao heap que o sistema concede ao app: 1/8 da classe de
+     * memória, ou 1/16 em aparelhos marcados como de pouca RAM.
+     *
+     * @param contexto Qualquer Context.
+     * @return O orçamento, em bytes.
+     */
+    public static long orcamentoPadrao(Context contexto) {
+        ActivityManager activityManager = (ActivityManager) contexto.getSystemService(Context.ACTIVITY_SERVICE);
+        long heapBytes = activityManager.getMemoryClass() * 1024L * 1024L;
+        return heapBytes / (activityManager.isLowRamDevice() ? 16 : 8);
+    }
+
+    public void setOuvinte(OuvinteMetricas ouvinte) {
+        this.ouvinte = ouvinte;
+    }
+
+    /**
+     * Passa a controlar um cache.
+     *
+     * @param cache O cache.
+     */
+    public void registrar(CacheGerenciado cache) {
+        caches.add(cache);
+    }
+
+    /**
+     * Agenda uma verificação dos limites. Pode ser chamado sempre que um cache crescer;
+     * chamadas seguidas, antes de a verificação rodar, resultam em uma só.
+     */
+    public void verificarLimites() {
+        if (verificacaoPendente.compareAndSet(false, true)) {
+            executorDescarte.execute(() -> {
+                verificacaoPendente.set(false);
+                aplicarLimites();
+                notificarMetricas();
+            });
+        }
+    }
+
+    /**
+     * Chamado pelo sistema (na thread principal) quando é um bom momento para liberar memória.
+     * A partir do Android 14 só chegam {@code TRIM_MEMORY_UI_HIDDEN} e {@code TRIM_MEMORY_BACKGROUND};
+     * os demais níveis continuam mapeados para que a escala fique completa.
+     *
+     * @param nivel O nível informado pelo sistema.
+     */
+    @Override
+    public void onTrimMemory(int nivel) {
+        avisosMemoria.incrementAndGet();
+        ultimoNivelAviso = nivel;
+        int intensidade = intensidade(nivel);
+        if (intensidade > 0) {
+            executorDescarte.execute(() -> descartar(intensidade));
+        }
+    }
+
+    /** Equivale ao nível mais grave: esvazia todos os caches. */
+    @Override
+    public void onLowMemory() {
+        avisosMemoria.incrementAndGet();
+        executorDescarte.execute(() -> descartar(INTENSIDADE_MAXIMA));
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration novaConfiguracao) {
+        // Não afeta a memória dos caches.
+    }
+
+    /** @return Um retrato atual do tamanho dos caches e dos descartes. */
+    public MetricasMemoria getMetricas() {
+        List<MetricasMemoria.Cache> retratos = new ArrayList<>(caches.size());
+        for (CacheGerenciado cache : caches) {
+            retratos.add(new MetricasMemoria.Cache(cache.getNome(), cache.getNivel(),
+                    cache.getBytesOcupados(), cache.getLimiteBytes(), cache.getDescartes()));
+        }
+        return new MetricasMemoria(orcamentoBytes, retratos, avisosMemoria.get(), ultimoNivelAviso);
+    }
+
+    // --- Métodos Privados ---
+
+    /**
+     * Traduz um nível de {@code onTrimMemory} em uma intensidade de descarte, de 0 (nenhum) a 5.
+     * Os níveis "RUNNING_*" são avisos com o app em primeiro plano e por isso contam menos que os
+     * avisos do mesmo valor numérico com o app em segundo plano.
+     */
+    @SuppressWarnings("deprecation")
+    private static int intensidade(int nivel) {
+        if (nivel >= TRIM_MEMORY_COMPLETE) {
+            return 5;
+        }
+        if (nivel >= TRIM_MEMORY_MODERATE) {
+            return 4;
+        }
+        if (nivel >= TRIM_MEMORY_BACKGROUND || nivel == TRIM_MEMORY_RUNNING_CRITICAL) {
+            return 3;
+        }
+        if (nivel >= TRIM_MEMORY_UI_HIDDEN || nivel == TRIM_MEMORY_RUNNING_LOW) {
+            return 2;
+        }
+        if (nivel == TRIM_MEMORY_RUNNING_MODERATE) {
+            return 1;
+        }
+        return 0;
+    }
+
+    /** Reduz cada camada à fração prevista para a intensidade. */
+    private void descartar(int intensidade) {
+        double[] fracoes = FRACAO_MANTIDA[intensidade - 1];
+        long antes = totalBytes();
+        for (CacheGerenciado cache : caches) {
+            double fracao = fracoes[cache.getNivel().ordinal()];
+            if (fracao < 1) {
+                cache.reduzirPara((long) (cache.getBytesOcupados() * fracao));
+            }
+        }
+        Log.i(TAG, "Descarte de intensidade " + intensidade + ": " + antes / 1024 + "KB -> "
+                + totalBytes() / 1024 + "KB");
+        notificarMetricas();
+    }
+
+    /**
+     * Traz cada cache ao seu limite flexível e, se a soma passar do orçamento, reduz as
+     * camadas em ordem até caber. Caches que não são reduzidos aqui
+     * ({@link CacheGerenciado#isLimitadoPeloOrcamento()}) entram na soma, mas não são tocados.
+     */
+    private void aplicarLimites() {
+        for (CacheGerenciado cache : caches) {
+            if (cache.isLimitadoPeloOrcamento() && cache.getBytesOcupados() > cache.getLimiteBytes()) {
+                cache.reduzirPara(cache.getLimiteBytes());
+            }
+        }
+        long excesso = totalBytes() - orcamentoBytes;
+        for (NivelDescarte nivel : NivelDescarte.values()) {
+            for (CacheGerenciado cache : caches) {
+                if (excesso <= 0) {
+                    return;
+                }
+                if (cache.getNivel() != nivel || !cache.isLimitadoPeloOrcamento()) {
+                    continue;
+                }
+                long antes = cache.getBytesOcupados();
+                cache.reduzirPara(Math.max(0, antes - excesso));
+                excesso -= antes - cache.getBytesOcupados();
+            }
+        }
+    }
+
+    private long totalBytes() {
+        long total = 0;
+        for (CacheGerenciado cache : caches) {
+            total += cache.getBytesOcupados();
+        }
+        return total;
+    }
+
+    private void notificarMetricas() {
+        OuvinteMetricas atual = ouvinte;
+        if (atual != null) {
+            atual.onMetricasAtualizadas(getMetricas());
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.contentproviderconsumidor.data.memoria;
+
+import androidx.annotation.NonNull;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Retrato (imutável) da memória controlada pelo {@link GerenciadorMemoria}: tamanho e limite
+ * de cada cache, descartes acumulados e os avisos de memória recebidos do sistema.
+ */
+public class MetricasMemoria {
+
+    /** Os números de um cache. */
+    public static final class Cache {
+        private final String nome;
+        private final NivelDescarte nivel;
+        private final long bytesOcupados;
+        private final long limiteBytes;
+        private final long descartes;
+
+        public Cache(String nome, NivelDescarte nivel, long bytesOcupados, long limiteBytes, long descartes) {
+            this.nome = nome;
+            this.nivel = nivel;
+            this.bytesOcupados = bytesOcupados;
+            this.limiteBytes = limiteBytes;
+            this.descartes = descartes;
+        }
+
+        public String getNome() {
+            return nome;
+        }
+
+        public NivelDescarte getNivel() {
+            return nivel;
+        }
+
+        public long getBytesOcupados() {
+            return bytesOcupados;
+        }
+
+        public long getLimiteBytes() {
+            return limiteBytes;
+        }
+
+        /** @return Entradas descartadas desde a criação do cache. */
+        public long getDescartes() {
+            return descartes;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return nome + "{" + bytesOcupados / 1024 + "/" + limiteBytes / 1024 + "KB, descartes=" + descartes + "}";
+        }
+    }
+
+    private final long orcamentoBytes;
+    private final List<Cache> caches;
+    private final int avisosMemoria;
+    private final int ultimoNivelAviso;
+
+    public MetricasMemoria(long orcamentoBytes, List<Cache> caches, int avisosMemoria, int ultimoNivelAviso) {
+        this.orcamentoBytes = orcamentoBytes;
+        this.caches = Collections.unmodifiableList(caches);
+        this.avisosMemoria = avisosMemoria;
+        this.ultimoNivelAviso = ultimoNivelAviso;
+    }
+
+    public long getOrcamentoBytes() {
+        return orcamentoBytes;
+    }
+
+    public List<Cache> getCaches() {
+        return caches;
+    }
+
+    /** @return A soma da memória ocupada por todos os caches. */
+    public long getTotalBytes() {
+        long total = 0;
+        for (Cache cache : caches) {
+            total += cache.bytesOcupados;
+        }
+        return total;
+    }
+
+    /** @return A soma dos descartes de todos os caches. */
+    public long getTotalDescartes() {
+        long total = 0;
+        for (Cache cache : caches) {
+            total += cache.descartes;
+        }
+        return total;
+    }
+
+    /** @return Quantos avisos (onTrimMemory/onLowMemory) o sistema enviou. */
+    public int getAvisosMemoria() {
+        return avisosMemoria;
+    }
+
+    /** @return O último nível recebido em onTrimMemory, ou -1 se nenhum. */
+    public int getUltimoNivelAviso() {
+        return ultimoNivelAviso;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "MetricasMemoria{total=" + getTotalBytes() / 1024 + "/" + orcamentoBytes / 1024 + "KB"
+                + ", avisos=" + avisosMemoria
+                + ", ultimoNivel=" + ultimoNivelAviso
+                + ", caches=" + caches
+                + '}';
+    }
+}
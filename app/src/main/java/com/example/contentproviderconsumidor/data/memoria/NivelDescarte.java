@@ -0,0 +1,17 @@
+package com.example.contentproviderconsumidor.data.memoria;
+
+/**
+ * As camadas de dados em memória, na ordem em que são descartadas quando falta memória.
+ * Cada camada é mais barata de refazer que a seguinte: as primeiras são derivadas ou buscadas
+ * uma a uma sob demanda; as últimas exigem reler o catálogo inteiro do provedor.
+ */
+public enum NivelDescarte {
+    /** Dados derivados que não dependem do provedor (ex.: cartões de compartilhamento renderizados). */
+    DERIVADOS,
+    /** Textos completos de mensagens, buscados por ID quando uma mensagem é aberta. */
+    TEXTO_COMPLETO,
+    /** Listas de mensagens (IDs, prefixos e flags) guardadas para contingência. */
+    MENSAGENS,
+    /** Índices montados a partir do catálogo (ex.: o índice de duplicatas). */
+    INDICES
+}
@@ -0,0 +1,165 @@
+package com.example.contentproviderconsumidor.data.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Lista de mensagens lidas de um Cursor, guardada em arrays paralelos em vez de um objeto
+ * {@link Mensagem} por linha. Cada autor distinto é guardado uma única vez (os catálogos repetem
+ * poucos autores em milhares de linhas), e os objetos {@link Mensagem} só são criados quando um
+ * item é lido com {@link #get(int)}.
+ * <p>
+ * É o que o cache de contingência guarda para o catálogo e as favoritas: sem um objeto por linha
+ * nem uma String de autor por linha, um catálogo ocupa bem menos que a {@code ArrayList<Mensagem>}
+ * equivalente, e catálogos maiores cabem no cache.
+ * <p>
+ * É preenchida com {@link #adicionar} por quem faz a leitura e, depois de {@link #finalizar()},
+ * não muda mais e pode ser lida de várias threads. Cada {@link #get(int)} devolve um objeto novo.
+ */
+public class ListaMensagensCompacta extends AbstractList<Mensagem> implements RandomAccess {
+
+    /** Custo aproximado, em bytes, de cada linha nos arrays, além do objeto String do texto. */
+    private static final int BYTES_POR_LINHA = Long.BYTES + 3 * Integer.BYTES + 1 + 4;
+
+    /** Custo aproximado, em bytes, de um objeto String além dos seus caracteres. */
+    private static final int BYTES_POR_STRING = 40;
+
+    private static final byte FAVORITA = 1;
+    private static final byte TRUNCADO = 2;
+
+    private long[] ids;
+    private String[] textos;
+    private int[] autores;
+    private int[] tamanhosTexto;
+    private int[] comprimentosNormalizados;
+    private byte[] marcas;
+    private int tamanho;
+
+    /** Autores distintos, na ordem em que apareceram; {@link #autores} guarda a posição aqui. */
+    private String[] autoresDistintos = new String[8];
+    private int totalAutores;
+
+    /** Posição de cada autor em {@link #autoresDistintos}; liberado em {@link #finalizar()}. */
+    private Map<String, Integer> posicaoAutor = new HashMap<>();
+
+    /**
+     * Bytes dos caracteres de todos os textos e autores, para a estimativa de memória. O ART guarda
+     * Strings só com caracteres Latin-1 com um byte por caractere; as demais, com dois.
+     */
+    private long bytesCaracteres;
+
+    /**
+     * @param capacidadeInicial Quantidade de linhas esperada (ex.: {@code Cursor.getCount()}).
+     */
+    public ListaMensagensCompacta(int capacidadeInicial) {
+        int capacidade = Math.max(8, capacidadeInicial);
+        ids = new long[capacidade];
+        textos = new String[capacidade];
+        autores = new int[capacidade];
+        tamanhosTexto = new int[capacidade];
+        comprimentosNormalizados = new int[capacidade];
+        marcas = new byte[capacidade];
+    }
+
+    /**
+     * Acrescenta uma linha ao fim da lista.
+     *
+     * @param id                     O ID da mensagem.
+     * @param texto                  O texto (ou o prefixo do texto) lido.
+     * @param autor                  O autor.
+     * @param favorita               1 se a mensagem é favorita.
+     * @param textoTruncado          Se {@code texto} é apenas um prefixo.
+     * @param tamanhoTexto           O tamanho do texto completo no provedor.
+     * @param comprimentoNormalizado O comprimento normalizado do texto completo.
+     */
+    public void adicionar(long id, String texto, String autor, int favorita, boolean textoTruncado,
+                          int tamanhoTexto, int comprimentoNormalizado) {
+        if (tamanho == ids.length) {
+            redimensionar(Math.max(8, tamanho * 2));
+        }
+        ids[tamanho] = id;
+        textos[tamanho] = texto;
+        autores[tamanho] = posicaoDoAutor(autor);
+        tamanhosTexto[tamanho] = tamanhoTexto;
+        comprimentosNormalizados[tamanho] = comprimentoNormalizado;
+        marcas[tamanho] = (byte) ((favorita == 1 ? FAVORITA : 0) | (textoTruncado ? TRUNCADO : 0));
+        bytesCaracteres += bytesDe(texto);
+        tamanho++;
+    }
+
+    /** Encerra o preenchimento: ajusta os arrays ao tamanho final e libera as estruturas auxiliares. */
+    public void finalizar() {
+        if (tamanho < ids.length) {
+            redimensionar(tamanho);
+        }
+        autoresDistintos = Arrays.copyOf(autoresDistintos, totalAutores);
+        posicaoAutor = null;
+    }
+
+    @Override
+    public Mensagem get(int indice) {
+        if (indice < 0 || indice >= tamanho) {
+            throw new IndexOutOfBoundsException("Índice " + indice + ", tamanho " + tamanho);
+        }
+        byte marca = marcas[indice];
+        Mensagem mensagem = new Mensagem(ids[indice], textos[indice], autoresDistintos[autores[indice]],
+                (marca & FAVORITA) != 0 ? 1 : 0);
+        mensagem.setTextoTruncado((marca & TRUNCADO) != 0);
+        mensagem.setTamanhoTexto(tamanhosTexto[indice]);
+        mensagem.setComprimentoNormalizado(comprimentosNormalizados[indice]);
+        return mensagem;
+    }
+
+    @Override
+    public int size() {
+        return tamanho;
+    }
+
+    /** @return A memória aproximada, em bytes, ocupada pela lista. */
+    public long getBytesOcupados() {
+        return (long) ids.length * BYTES_POR_LINHA
+                + (long) tamanho * BYTES_POR_STRING
+                + (long) totalAutores * BYTES_POR_STRING
+                + bytesCaracteres;
+    }
+
+    // --- Métodos Privados ---
+
+    private int posicaoDoAutor(String autor) {
+        Integer posicao = posicaoAutor.get(autor);
+        if (posicao != null) {
+            return posicao;
+        }
+        if (totalAutores == autoresDistintos.length) {
+            autoresDistintos = Arrays.copyOf(autoresDistintos, totalAutores * 2);
+        }
+        autoresDistintos[totalAutores] = autor;
+        bytesCaracteres += bytesDe(autor);
+        posicaoAutor.put(autor, totalAutores);
+        return totalAutores++;
+    }
+
+    private static int bytesDe(String valor) {
+        if (valor == null) {
+            return 0;
+        }
+        for (int i = 0; i < valor.length(); i++) {
+            if (valor.charAt(i) > 0xFF) {
+                return 2 * valor.length();
+            }
+        }
+        return valor.length();
+    }
+
+    private void redimensionar(int capacidade) {
+        ids = Arrays.copyOf(ids, capacidade);
+        textos = Arrays.copyOf(textos, capacidade);
+        autores = Arrays.copyOf(autores, capacidade);
+        tamanhosTexto = Arrays.copyOf(tamanhosTexto, capacidade);
+        comprimentosNormalizados = Arrays.copyOf(comprimentosNormalizados, capacidade);
+        marcas = Arrays.copyOf(marcas, capacidade);
+    }
+}
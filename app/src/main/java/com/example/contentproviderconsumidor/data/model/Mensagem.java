@@ -23,6 +23,24 @@ public class Mensagem {
      */
     private int favorita;
 
+    /**
+     * Indica se {@link #texto} contém apenas um prefixo do texto original.
+     * As listas leem só o começo de cada texto; o texto completo é buscado por ID quando necessário.
+     */
+    private boolean textoTruncado;
+
+    /**
+     * Tamanho, em caracteres, do texto completo no provedor; 0 se desconhecido.
+     */
+    private int tamanhoTexto;
+
+    /**
+     * Comprimento do texto completo sem espaços e pontuação (ver
+     * {@code MensagemContract.MensagemEntry.COLUNA_TEXTO_COMPRIMENTO_NORMALIZADO}). Quando o texto
+     * está truncado, entra no hash da deduplicação no lugar do texto que não foi lido; 0 se desconhecido.
+     */
+    private int comprimentoNormalizado;
+
     /**
      * Construtor padrão (vazio).
      * É necessário para certas bibliotecas e frameworks que podem precisar instanciar
@@ -111,4 +129,52 @@ public class Mensagem {
     public void setFavorita(int favorita) {
         this.favorita = favorita;
     }
+
+    /**
+     * Indica se o texto desta instância é apenas um prefixo do texto completo.
+     * @return true se o texto estiver truncado, false se for o texto completo.
+     */
+    public boolean isTextoTruncado() {
+        return textoTruncado;
+    }
+
+    /**
+     * Define se o texto desta instância é apenas um prefixo do texto completo.
+     * @param textoTruncado true se o texto estiver truncado.
+     */
+    public void setTextoTruncado(boolean textoTruncado) {
+        this.textoTruncado = textoTruncado;
+    }
+
+    /**
+     * Retorna o tamanho, em caracteres, do texto completo no provedor.
+     * @return O tamanho do texto completo, ou 0 se desconhecido.
+     */
+    public int getTamanhoTexto() {
+        return tamanhoTexto;
+    }
+
+    /**
+     * Define o tamanho, em caracteres, do texto completo no provedor.
+     * @param tamanhoTexto O tamanho do texto completo.
+     */
+    public void setTamanhoTexto(int tamanhoTexto) {
+        this.tamanhoTexto = tamanhoTexto;
+    }
+
+    /**
+     * Retorna o comprimento normalizado do texto completo no provedor.
+     * @return O comprimento normalizado, ou 0 se desconhecido.
+     */
+    public int getComprimentoNormalizado() {
+        return comprimentoNormalizado;
+    }
+
+    /**
+     * Define o comprimento normalizado do texto completo no provedor.
+     * @param comprimentoNormalizado O comprimento sem espaços e pontuação.
+     */
+    public void setComprimentoNormalizado(int comprimentoNormalizado) {
+        this.comprimentoNormalizado = comprimentoNormalizado;
+    }
 }
@@ -0,0 +1,329 @@
+package com.example.contentproviderconsumidor.data.provedor;
+
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.content.OperationApplicationException;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteException;
+import android.net.Uri;
+import android.os.CancellationSignal;
+import android.os.RemoteException;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cliente do ContentProvider externo (o app Gerador) que protege o consumidor quando esse
+ * provedor está lento, travado ou morto.
+ * <p>
+ * Cada chamada roda em uma thread própria e o chamador espera no máximo um prazo (deadline);
+ * se o prazo estoura, a consulta é cancelada via {@link CancellationSignal} e o chamador é
+ * liberado. Falhas e prazos estourados alimentam um {@link DisjuntorCircuito}: com o disjuntor
+ * aberto, as chamadas nem chegam a ser feitas. Em ambos os casos, as consultas que informam
+ * uma chave de cache recebem o último resultado bom daquela consulta (contingência).
+ * <p>
+ * Erros de contrato ({@link IllegalArgumentException}, {@link SQLiteException} e
+ * {@link UnsupportedOperationException}, ex.: uma projeção não suportada ou um {@code update}
+ * que o provedor não implementa) mostram que o provedor está vivo: são repassados ao chamador
+ * sem contar como falha nem acionar a contingência.
+ * <p>
+ * Escritas não passam pelo disjuntor: uma ação do usuário (ex.: marcar uma favorita) não é
+ * descartada só porque as leituras andaram falhando; o erro volta ao chamador. Elas têm um prazo
+ * próprio, bem mais longo, porque não podem ser canceladas: o {@code update} já enviado pelo IPC
+ * pode ser gravado depois que o chamador desistiu de esperar. Por isso, quando uma escrita falha
+ * por prazo, o resultado é incerto e o chamador deve reler o que ela alteraria.
+ */
+public class ClienteProvedorProtegido {
+
+    private static final String TAG = "ClienteProvedor";
+
+    /**
+     * Limite de chamadas simultâneas ao provedor. Se todas as threads estiverem presas em um
+     * provedor travado, novas chamadas são recusadas em vez de criar threads sem limite.
+     */
+    private static final int MAX_CHAMADAS_SIMULTANEAS = 8;
+
+    /**
+     * Converte o Cursor de uma consulta no resultado desejado. É executado dentro do prazo da
+     * chamada, de forma que a leitura inteira do Cursor também é protegida.
+     *
+     * @param <T> O tipo do resultado.
+     */
+    public interface LeitorCursor<T> {
+        T ler(@NonNull Cursor cursor);
+    }
+
+    /** Recebe um novo retrato das métricas quando o disjuntor muda de estado ou há contingência. */
+    public interface OuvinteMetricas {
+        void onMetricasAtualizadas(@NonNull MetricasProvedor metricas);
+    }
+
+    /** Uma chamada ao provedor que pode ser cancelada. */
+    private interface Chamada<T> {
+        T executar(CancellationSignal sinal);
+    }
+
+    private final ContentResolver resolver;
+    private final long prazoPadraoMs;
+    private final long prazoEscritaMs;
+    private final DisjuntorCircuito disjuntor;
+
+    /** Threads que efetivamente falam com o provedor. O chamador apenas espera o resultado. */
+    private final ThreadPoolExecutor executorChamadas = new ThreadPoolExecutor(
+            0, MAX_CHAMADAS_SIMULTANEAS, 30, TimeUnit.SECONDS, new SynchronousQueue<>());
+
+    /**
+     * Último resultado bom de cada consulta com chave de cache. É um LruCache recebido de fora
+     * para que quem conhece os valores meça o seu tamanho e controle a sua memória.
+     */
+    private final LruCache<String, Object> cacheContingencia;
+
+    private final AtomicInteger chamadas = new AtomicInteger();
+    private final AtomicInteger sucessos = new AtomicInteger();
+    private final AtomicInteger falhas = new AtomicInteger();
+    private final AtomicInteger prazosEstourados = new AtomicInteger();
+    private final AtomicInteger recusadasPeloDisjuntor = new AtomicInteger();
+    private final AtomicInteger contingenciasComCache = new AtomicInteger();
+    private final AtomicInteger contingenciasSemCache = new AtomicInteger();
+
+    private volatile OuvinteMetricas ouvinte;
+
+    /**
+     * @param resolver O ContentResolver usado nas chamadas.
+     * @param prazoPadraoMs Prazo, em milissegundos, das consultas que não informam um prazo próprio.
+     * @param prazoEscritaMs Prazo, em milissegundos, das escritas ({@code update} e {@code applyBatch}).
+     * @param disjuntor O disjuntor que acompanha a saúde do provedor.
+     * @param cacheContingencia Onde guardar o último resultado bom de cada consulta com chave.
+     */
+    public ClienteProvedorProtegido(ContentResolver resolver, long prazoPadraoMs, long prazoEscritaMs,
+                                    DisjuntorCircuito disjuntor, LruCache<String, Object> cacheContingencia) {
+        this.resolver = resolver;
+        this.prazoPadraoMs = prazoPadraoMs;
+        this.prazoEscritaMs = prazoEscritaMs;
+        this.disjuntor = disjuntor;
+        this.cacheContingencia = cacheContingencia;
+        disjuntor.setOuvinte((anterior, novo) -> {
+            Log.i(TAG, "Disjuntor do provedor: " + anterior + " -> " + novo);
+            notificarMetricas();
+        });
+    }
+
+    public void setOuvinte(OuvinteMetricas ouvinte) {
+        this.ouvinte = ouvinte;
+    }
+
+    /**
+     * Consulta o provedor com o prazo padrão. Veja {@link #consultar(String, long, Uri, String[], String, String[], String, LeitorCursor)}.
+     */
+    public <T> T consultar(@Nullable String chaveCache, Uri uri, String[] projection, String selection,
+                           String[] selectionArgs, String sortOrder, LeitorCursor<T> leitor)
+            throws ProvedorIndisponivelException {
+        return consultar(chaveCache, prazoPadraoMs, uri, projection, selection, selectionArgs, sortOrder, leitor);
+    }
+
+    /**
+     * Consulta o provedor dentro de um prazo e converte o Cursor com o {@code leitor}.
+     * O Cursor é sempre fechado.
+     *
+     * @param chaveCache Identifica a consulta no cache de contingência; null para não usar cache.
+     * @param prazoMs O prazo máximo de espera, em milissegundos.
+     * @param leitor Converte o Cursor no resultado.
+     * @return O resultado lido do provedor ou, se ele estiver indisponível, o último resultado bom.
+     * @throws ProvedorIndisponivelException Se o provedor falhar e não houver cache.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T consultar(@Nullable String chaveCache, long prazoMs, Uri uri, String[] projection,
+                           String selection, String[] selectionArgs, String sortOrder,
+                           LeitorCursor<T> leitor) throws ProvedorIndisponivelException {
+        try {
+            T resultado = executar(uri, prazoMs, true, sinal -> {
+                Cursor cursor = resolver.query(uri, projection, selection, selectionArgs, sortOrder, sinal);
+                if (cursor == null) {
+                    // O ContentResolver retorna null quando o processo do provedor morreu.
+                    throw new IllegalStateException("O provedor retornou um Cursor nulo");
+                }
+                try {
+                    return leitor.ler(cursor);
+                } finally {
+                    cursor.close();
+                }
+            });
+            if (chaveCache != null && resultado != null) {
+                cacheContingencia.put(chaveCache, resultado);
+                // O LruCache descarta na hora um valor maior que o seu limite; sem este aviso, a
+                // contingência desta consulta deixaria de funcionar em silêncio.
+                if (cacheContingencia.get(chaveCache) != resultado) {
+                    Log.w(TAG, "Resultado de '" + chaveCache + "' maior que o cache de contingência ("
+                            + cacheContingencia.maxSize() + " bytes); não há contingência para esta consulta.");
+                }
+            }
+            return resultado;
+        } catch (ProvedorIndisponivelException e) {
+            if (chaveCache == null) {
+                throw e;
+            }
+            Object emCache = cacheContingencia.get(chaveCache);
+            if (emCache == null) {
+                contingenciasSemCache.incrementAndGet();
+                notificarMetricas();
+                throw e;
+            }
+            contingenciasComCache.incrementAndGet();
+            Log.w(TAG, "Usando o cache de contingência para '" + chaveCache + "': " + e.getMessage());
+            notificarMetricas();
+            return (T) emCache;
+        }
+    }
+
+    /**
+     * Atualiza linhas no provedor dentro do prazo de escrita. Escritas não têm contingência nem
+     * são recusadas pelo disjuntor.
+     *
+     * @return A quantidade de linhas afetadas.
+     * @throws ProvedorIndisponivelException Se o provedor falhar ou estourar o prazo; neste último
+     *         caso a atualização ainda pode ter sido gravada.
+     */
+    public int atualizar(Uri uri, ContentValues values, String selection, String[] selectionArgs)
+            throws ProvedorIndisponivelException {
+        return executar(uri, prazoEscritaMs, false, sinal -> resolver.update(uri, values, selection, selectionArgs));
+    }
+
+    /**
+     * Aplica um lote de operações no provedor em uma única chamada ({@code applyBatch}), dentro
+     * do prazo de escrita. Como as demais escritas, não passa pelo disjuntor.
+     *
+     * @param autoridade A autoridade do provedor.
+     * @param operacoes As operações, na ordem em que devem ser aplicadas.
+     * @return O resultado de cada operação.
+     * @throws ProvedorIndisponivelException Se o provedor falhar ou estourar o prazo; neste último
+     *         caso o lote ainda pode ter sido gravado.
+     * @throws IllegalArgumentException Se o provedor recusar alguma das operações.
+     */
+    public ContentProviderResult[] aplicarLote(String autoridade, ArrayList<ContentProviderOperation> operacoes)
+            throws ProvedorIndisponivelException {
+        Uri uri = new Uri.Builder().scheme(ContentResolver.SCHEME_CONTENT).authority(autoridade).build();
+        return executar(uri, prazoEscritaMs, false, sinal -> {
+            try {
+                return resolver.applyBatch(autoridade, operacoes);
+            } catch (OperationApplicationException e) {
+                // O provedor respondeu, apenas recusou o lote: é um erro de contrato, como os demais.
+                throw new IllegalArgumentException("Lote recusado pelo provedor", e);
+            } catch (RemoteException e) {
+                throw new IllegalStateException("Provedor inacessível", e);
+            }
+        });
+    }
+
+    /**
+     * Descarta o resultado em cache de uma consulta (ex.: quando se sabe que ele ficou desatualizado).
+     *
+     * @param chaveCache A chave da consulta.
+     */
+    public void invalidarCache(String chaveCache) {
+        cacheContingencia.remove(chaveCache);
+    }
+
+    /** @return Um retrato atual das métricas do cliente. */
+    public MetricasProvedor getMetricas() {
+        return new MetricasProvedor(disjuntor.getEstado(), disjuntor.getTransicoes(),
+                chamadas.get(), sucessos.get(), falhas.get(), prazosEstourados.get(),
+                recusadasPeloDisjuntor.get(), contingenciasComCache.get(), contingenciasSemCache.get());
+    }
+
+    /** Encerra as threads de chamada. Chamadas em andamento são interrompidas. */
+    public void encerrar() {
+        executorChamadas.shutdownNow();
+    }
+
+    // --- Métodos Privados ---
+
+    /**
+     * Executa a chamada respeitando o prazo e, se {@code usarDisjuntor}, passando pelo disjuntor.
+     */
+    private <T> T executar(Uri uri, long prazoMs, boolean usarDisjuntor, Chamada<T> chamada)
+            throws ProvedorIndisponivelException {
+        chamadas.incrementAndGet();
+        DisjuntorCircuito disjuntor = usarDisjuntor ? this.disjuntor : null;
+        if (disjuntor != null && !disjuntor.permitirChamada()) {
+            recusadasPeloDisjuntor.incrementAndGet();
+            throw new ProvedorIndisponivelException("Disjuntor aberto; chamada a " + uri + " recusada");
+        }
+
+        CancellationSignal sinal = new CancellationSignal();
+        Future<T> futuro;
+        try {
+            futuro = executorChamadas.submit(() -> chamada.executar(sinal));
+        } catch (RejectedExecutionException e) {
+            // Todas as threads estão presas no provedor: isso também é sinal de que ele está travado.
+            falhas.incrementAndGet();
+            registrarFalha(disjuntor);
+            throw new ProvedorIndisponivelException("Limite de chamadas simultâneas atingido", e);
+        }
+
+        try {
+            T resultado = futuro.get(prazoMs, TimeUnit.MILLISECONDS);
+            sucessos.incrementAndGet();
+            registrarSucesso(disjuntor);
+            return resultado;
+        } catch (TimeoutException e) {
+            sinal.cancel();
+            futuro.cancel(true);
+            prazosEstourados.incrementAndGet();
+            registrarFalha(disjuntor);
+            throw new ProvedorIndisponivelException("Prazo de " + prazoMs + "ms estourado em " + uri, e);
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof IllegalArgumentException || causa instanceof SQLiteException
+                    || causa instanceof UnsupportedOperationException) {
+                // O provedor respondeu, apenas recusou a requisição.
+                registrarSucesso(disjuntor);
+                throw (RuntimeException) causa;
+            }
+            falhas.incrementAndGet();
+            registrarFalha(disjuntor);
+            throw new ProvedorIndisponivelException("Falha na chamada a " + uri, causa);
+        } catch (InterruptedException e) {
+            sinal.cancel();
+            futuro.cancel(true);
+            // A interrupção é do chamador, não do provedor; apenas libera uma eventual chamada de teste.
+            if (disjuntor != null) {
+                disjuntor.cancelarChamada();
+            }
+            Thread.currentThread().interrupt();
+            throw new ProvedorIndisponivelException("Chamada a " + uri + " interrompida", e);
+        }
+    }
+
+    private static void registrarSucesso(@Nullable DisjuntorCircuito disjuntor) {
+        if (disjuntor != null) {
+            disjuntor.registrarSucesso();
+        }
+    }
+
+    private static void registrarFalha(@Nullable DisjuntorCircuito disjuntor) {
+        if (disjuntor != null) {
+            disjuntor.registrarFalha();
+        }
+    }
+
+    private void notificarMetricas() {
+        OuvinteMetricas atual = ouvinte;
+        if (atual != null) {
+            atual.onMetricasAtualizadas(getMetricas());
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.contentproviderconsumidor.data.provedor;
+
+/**
+ * Disjuntor (circuit breaker) que protege o app de um ContentProvider externo instável.
+ * <p>
+ * Funciona como um disjuntor elétrico:
+ * <ul>
+ *     <li><b>FECHADO</b>: as chamadas passam normalmente; falhas consecutivas são contadas.</li>
+ *     <li><b>ABERTO</b>: após {@code limiarFalhas} falhas seguidas (erros ou prazos estourados),
+ *     as chamadas são recusadas imediatamente, sem esperar pelo provedor, durante
+ *     {@code tempoAbertoMs}.</li>
+ *     <li><b>MEIO_ABERTO</b>: passado esse tempo, uma única chamada de teste é liberada. Se ela
+ *     der certo, o disjuntor fecha; se falhar, abre de novo.</li>
+ * </ul>
+ * Todos os métodos são sincronizados.
+ */
+public class DisjuntorCircuito {
+
+    /** Os estados possíveis do disjuntor. */
+    public enum Estado {
+        FECHADO, ABERTO, MEIO_ABERTO
+    }
+
+    /** Recebe as mudanças de estado do disjuntor. */
+    public interface OuvinteEstado {
+        /**
+         * Chamado (na thread que causou a mudança) sempre que o estado muda.
+         *
+         * @param anterior O estado anterior.
+         * @param novo O novo estado.
+         */
+        void onEstadoAlterado(Estado anterior, Estado novo);
+    }
+
+    /** Quantidade de falhas consecutivas que abre o disjuntor. */
+    private final int limiarFalhas;
+
+    /** Tempo, em milissegundos, que o disjuntor fica aberto antes de testar o provedor de novo. */
+    private final long tempoAbertoMs;
+
+    private Estado estado = Estado.FECHADO;
+    private int falhasConsecutivas;
+    private long abertoDesdeMs;
+
+    /** Indica se a chamada de teste do estado MEIO_ABERTO já foi liberada. */
+    private boolean testeEmAndamento;
+
+    private int transicoes;
+
+    private OuvinteEstado ouvinte;
+
+    /**
+     * @param limiarFalhas Falhas consecutivas necessárias para abrir o disjuntor.
+     * @param tempoAbertoMs Tempo que o disjuntor fica aberto antes da chamada de teste.
+     */
+    public DisjuntorCircuito(int limiarFalhas, long tempoAbertoMs) {
+        this.limiarFalhas = limiarFalhas;
+        this.tempoAbertoMs = tempoAbertoMs;
+    }
+
+    public synchronized void setOuvinte(OuvinteEstado ouvinte) {
+        this.ouvinte = ouvinte;
+    }
+
+    /**
+     * Decide se uma chamada pode ir ao provedor agora. Quando retorna {@code true}, quem chama
+     * deve obrigatoriamente informar o resultado com {@link #registrarSucesso()} ou
+     * {@link #registrarFalha()}.
+     *
+     * @return {@code true} se a chamada pode prosseguir.
+     */
+    public synchronized boolean permitirChamada() {
+        if (estado == Estado.ABERTO) {
+            if (agoraMs() - abertoDesdeMs < tempoAbertoMs) {
+                return false;
+            }
+            mudarPara(Estado.MEIO_ABERTO);
+        }
+        if (estado == Estado.MEIO_ABERTO) {
+            // Apenas uma chamada de teste por vez.
+            if (testeEmAndamento) {
+                return false;
+            }
+            testeEmAndamento = true;
+        }
+        return true;
+    }
+
+    /** Informa que uma chamada liberada terminou com sucesso. */
+    public synchronized void registrarSucesso() {
+        falhasConsecutivas = 0;
+        testeEmAndamento = false;
+        if (estado != Estado.FECHADO) {
+            mudarPara(Estado.FECHADO);
+        }
+    }
+
+    /** Informa que uma chamada liberada falhou ou estourou o prazo. */
+    public synchronized void registrarFalha() {
+        falhasConsecutivas++;
+        testeEmAndamento = false;
+        if (estado == Estado.MEIO_ABERTO
+                || (estado == Estado.FECHADO && falhasConsecutivas >= limiarFalhas)) {
+            abertoDesdeMs = agoraMs();
+            mudarPara(Estado.ABERTO);
+        }
+    }
+
+    /**
+     * Informa que uma chamada liberada foi abandonada sem resposta do provedor (ex.: o chamador
+     * foi interrompido). Não conta como sucesso nem como falha; apenas libera a chamada de teste.
+     */
+    public synchronized void cancelarChamada() {
+        testeEmAndamento = false;
+    }
+
+    public synchronized Estado getEstado() {
+        return estado;
+    }
+
+    /** @return Quantas vezes o disjuntor mudou de estado desde a criação. */
+    public synchronized int getTransicoes() {
+        return transicoes;
+    }
+
+    private void mudarPara(Estado novo) {
+        Estado anterior = estado;
+        estado = novo;
+        transicoes++;
+        if (ouvinte != null) {
+            ouvinte.onEstadoAlterado(anterior, novo);
+        }
+    }
+
+    private static long agoraMs() {
+        return System.nanoTime() / 1_000_000L;
+    }
+}
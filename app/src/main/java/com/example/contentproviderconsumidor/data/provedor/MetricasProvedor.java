@@ -0,0 +1,97 @@
+package com.example.contentproviderconsumidor.data.provedor;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Retrato (imutável) das métricas do {@link ClienteProvedorProtegido} em um dado momento:
+ * estado do disjuntor, resultado das chamadas e uso do cache de contingência.
+ */
+public class MetricasProvedor {
+
+    private final DisjuntorCircuito.Estado estadoDisjuntor;
+    private final int transicoesDisjuntor;
+    private final int chamadas;
+    private final int sucessos;
+    private final int falhas;
+    private final int prazosEstourados;
+    private final int recusadasPeloDisjuntor;
+    private final int contingenciasComCache;
+    private final int contingenciasSemCache;
+
+    public MetricasProvedor(DisjuntorCircuito.Estado estadoDisjuntor, int transicoesDisjuntor,
+                            int chamadas, int sucessos, int falhas, int prazosEstourados,
+                            int recusadasPeloDisjuntor, int contingenciasComCache, int contingenciasSemCache) {
+        this.estadoDisjuntor = estadoDisjuntor;
+        this.transicoesDisjuntor = transicoesDisjuntor;
+        this.chamadas = chamadas;
+        this.sucessos = sucessos;
+        this.falhas = falhas;
+        this.prazosEstourados = prazosEstourados;
+        this.recusadasPeloDisjuntor = recusadasPeloDisjuntor;
+        this.contingenciasComCache = contingenciasComCache;
+        this.contingenciasSemCache = contingenciasSemCache;
+    }
+
+    public DisjuntorCircuito.Estado getEstadoDisjuntor() {
+        return estadoDisjuntor;
+    }
+
+    public int getTransicoesDisjuntor() {
+        return transicoesDisjuntor;
+    }
+
+    /** @return Total de chamadas solicitadas ao cliente (inclusive as recusadas). */
+    public int getChamadas() {
+        return chamadas;
+    }
+
+    public int getSucessos() {
+        return sucessos;
+    }
+
+    /** @return Chamadas que chegaram ao provedor e falharam (exceção ou Cursor nulo). */
+    public int getFalhas() {
+        return falhas;
+    }
+
+    public int getPrazosEstourados() {
+        return prazosEstourados;
+    }
+
+    public int getRecusadasPeloDisjuntor() {
+        return recusadasPeloDisjuntor;
+    }
+
+    /** @return Vezes em que o último dado bom do cache foi usado no lugar do provedor. */
+    public int getContingenciasComCache() {
+        return contingenciasComCache;
+    }
+
+    /** @return Vezes em que o provedor falhou e não havia cache para usar. */
+    public int getContingenciasSemCache() {
+        return contingenciasSemCache;
+    }
+
+    /**
+     * @return A fração (0 a 1) das contingências que puderam ser atendidas pelo cache,
+     * ou 0 se nenhuma contingência ocorreu.
+     */
+    public double getTaxaAcertoContingencia() {
+        int total = contingenciasComCache + contingenciasSemCache;
+        return total == 0 ? 0 : (double) contingenciasComCache / total;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "MetricasProvedor{disjuntor=" + estadoDisjuntor
+                + ", transicoes=" + transicoesDisjuntor
+                + ", chamadas=" + chamadas
+                + ", sucessos=" + sucessos
+                + ", falhas=" + falhas
+                + ", prazosEstourados=" + prazosEstourados
+                + ", recusadas=" + recusadasPeloDisjuntor
+                + ", contingenciaCache=" + contingenciasComCache + "/" + (contingenciasComCache + contingenciasSemCache)
+                + '}';
+    }
+}
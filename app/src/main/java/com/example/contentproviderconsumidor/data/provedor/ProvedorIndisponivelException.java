@@ -0,0 +1,17 @@
+package com.example.contentproviderconsumidor.data.provedor;
+
+/**
+ * Lançada pelo {@link ClienteProvedorProtegido} quando uma chamada ao ContentProvider não pôde
+ * ser atendida (erro, prazo estourado ou disjuntor aberto) e não há dado em cache para usar
+ * no lugar.
+ */
+public class ProvedorIndisponivelException extends Exception {
+
+    public ProvedorIndisponivelException(String mensagem) {
+        super(mensagem);
+    }
+
+    public ProvedorIndisponivelException(String mensagem, Throwable causa) {
+        super(mensagem, causa);
+    }
+}
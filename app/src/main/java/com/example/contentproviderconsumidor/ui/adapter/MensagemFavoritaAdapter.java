@@ -3,91 +3,269 @@ package com.example.contentproviderconsumidor.ui.adapter;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.ImageButton;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.google.android.material.card.MaterialCardView;
+
 import com.example.contentproviderconsumidor.R;
 import com.example.contentproviderconsumidor.data.model.Mensagem;
+import com.example.contentproviderconsumidor.ui.viewmodel.ItemListaFavoritas;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
- * Adapter para o RecyclerView que exibe a lista de mensagens favoritas.
- * Este adapter é responsável por pegar uma lista de objetos {@link Mensagem} e
- * mapear seus dados para as views definidas no layout {@code R.layout.item_mensagem_favorita}.
+ * Adapter para o RecyclerView que exibe a lista de mensagens favoritas, agrupada por autor.
+ * Este adapter recebe uma lista já seccionada de {@link ItemListaFavoritas} (montada pelo ViewModel
+ * fora da thread principal) e mapeia cada item para o layout correspondente:
+ * {@code R.layout.item_cabecalho_autor} para os cabeçalhos de seção e
+ * {@code R.layout.item_mensagem_favorita} para as mensagens.
+ * <p>
+ * Também controla a seleção múltipla: um toque longo em uma mensagem inicia a seleção e, a
+ * partir daí, cada toque marca ou desmarca a mensagem, até que a seleção fique vazia.
  */
-public class MensagemFavoritaAdapter extends RecyclerView.Adapter<MensagemFavoritaAdapter.FavoritaViewHolder> {
+public class MensagemFavoritaAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+    /**
+     * Interface para notificar o Fragment quando o usuário pede para compartilhar um item.
+     * Mantém o adapter livre da lógica de renderização e do ViewModel.
+     */
+    public interface OnCompartilharListener {
+        /**
+         * @param mensagem A mensagem cujo botão de compartilhar foi tocado.
+         */
+        void onCompartilhar(Mensagem mensagem);
+    }
+
+    /** Interface para notificar o Fragment quando a seleção múltipla muda. */
+    public interface OnSelecaoListener {
+        /**
+         * @param quantidade Quantas mensagens estão selecionadas (0 encerra a seleção).
+         */
+        void onSelecaoAlterada(int quantidade);
+    }
+
+    /** Interface para notificar o Fragment quando o usuário pede para remover todas as favoritas de um autor. */
+    public interface OnRemoverAutorListener {
+        /**
+         * @param autor O autor do cabeçalho tocado.
+         */
+        void onRemoverAutor(String autor);
+    }
+
+    /** A lista de itens (cabeçalhos e mensagens) que o adapter irá exibir. */
+    private List<ItemListaFavoritas> itens = new ArrayList<>();
 
-    /** A lista de mensagens que o adapter irá exibir. */
-    private List<Mensagem> mensagens = new ArrayList<>();
+    /** Listener acionado pelo botão de compartilhar de cada item (pode ser nulo). */
+    private OnCompartilharListener onCompartilharListener;
+
+    /** Listener acionado quando a seleção muda (pode ser nulo). */
+    private OnSelecaoListener onSelecaoListener;
+
+    /** Listener acionado pelo botão de remoção de cada cabeçalho (pode ser nulo). */
+    private OnRemoverAutorListener onRemoverAutorListener;
+
+    /** IDs das mensagens selecionadas. Vazio quando a seleção múltipla não está ativa. */
+    private final Set<Long> selecionadas = new HashSet<>();
 
     /**
-     * Chamado quando o RecyclerView precisa de um novo {@link FavoritaViewHolder} para representar um item.
-     * Este método infla o layout do item a partir do XML e retorna o holder.
+     * Define o listener chamado quando o usuário toca no botão de compartilhar de um item.
+     *
+     * @param listener O listener, ou null para desativar o compartilhamento.
+     */
+    public void setOnCompartilharListener(OnCompartilharListener listener) {
+        this.onCompartilharListener = listener;
+    }
+
+    public void setOnSelecaoListener(OnSelecaoListener listener) {
+        this.onSelecaoListener = listener;
+    }
+
+    public void setOnRemoverAutorListener(OnRemoverAutorListener listener) {
+        this.onRemoverAutorListener = listener;
+    }
+
+    /** @return Uma cópia dos IDs das mensagens selecionadas. */
+    public Set<Long> getSelecionadas() {
+        return new HashSet<>(selecionadas);
+    }
+
+    /** Encerra a seleção múltipla, desmarcando todas as mensagens. */
+    public void limparSelecao() {
+        if (selecionadas.isEmpty()) {
+            return;
+        }
+        selecionadas.clear();
+        notifyDataSetChanged();
+        notificarSelecao();
+    }
+
+    /**
+     * Informa ao RecyclerView qual layout usar para o item na posição dada.
+     *
+     * @param position A posição do item no conjunto de dados do adaptador.
+     * @return {@link ItemListaFavoritas#TIPO_CABECALHO} ou {@link ItemListaFavoritas#TIPO_MENSAGEM}.
+     */
+    @Override
+    public int getItemViewType(int position) {
+        return itens.get(position).getTipo();
+    }
+
+    /**
+     * Chamado quando o RecyclerView precisa de um novo ViewHolder para representar um item.
+     * Este método infla o layout adequado ao tipo de item e retorna o holder.
      *
      * @param parent O ViewGroup no qual a nova View será adicionada após ser vinculada a uma posição do adaptador.
      * @param viewType O tipo de view do novo View.
-     * @return Uma nova instância de FavoritaViewHolder que contém a View para o item.
+     * @return Um {@link CabecalhoViewHolder} ou um {@link FavoritaViewHolder}.
      */
     @NonNull
     @Override
-    public FavoritaViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        // Infla o layout XML customizado para cada item da lista.
-        View view = LayoutInflater.from(parent.getContext())
-                .inflate(R.layout.item_mensagem_favorita, parent, false);
+    public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        LayoutInflater inflater = LayoutInflater.from(parent.getContext());
+        if (viewType == ItemListaFavoritas.TIPO_CABECALHO) {
+            return new CabecalhoViewHolder(inflater.inflate(R.layout.item_cabecalho_autor, parent, false));
+        }
+        // Infla o layout XML customizado para cada mensagem da lista.
+        View view = inflater.inflate(R.layout.item_mensagem_favorita, parent, false);
         return new FavoritaViewHolder(view);
     }
 
     /**
      * Chamado pelo RecyclerView para exibir os dados na posição especificada.
-     * Este método obtém o objeto Mensagem da lista com base na posição e
+     * Este método obtém o item da lista com base na posição e
      * vincula seus dados ao ViewHolder correspondente.
      *
      * @param holder O ViewHolder que deve ser atualizado para representar o conteúdo do item na posição dada.
      * @param position A posição do item no conjunto de dados do adaptador.
      */
     @Override
-    public void onBindViewHolder(@NonNull FavoritaViewHolder holder, int position) {
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+        ItemListaFavoritas item = itens.get(position);
+        if (holder instanceof CabecalhoViewHolder) {
+            CabecalhoViewHolder cabecalhoHolder = (CabecalhoViewHolder) holder;
+            cabecalhoHolder.bind(item);
+            cabecalhoHolder.btnRemoverAutor.setOnClickListener(v -> {
+                if (onRemoverAutorListener != null) {
+                    onRemoverAutorListener.onRemoverAutor(item.getAutor());
+                }
+            });
+            return;
+        }
         // Busca a mensagem na posição atual da lista.
-        Mensagem mensagem = mensagens.get(position);
+        Mensagem mensagem = item.getMensagem();
+        FavoritaViewHolder favoritaHolder = (FavoritaViewHolder) holder;
         // Chama o método 'bind' do ViewHolder para popular a view com os dados da mensagem.
-        holder.bind(mensagem);
+        favoritaHolder.bind(mensagem);
+        favoritaHolder.btnCompartilhar.setOnClickListener(v -> {
+            if (onCompartilharListener != null) {
+                onCompartilharListener.onCompartilhar(mensagem);
+            }
+        });
+        favoritaHolder.card.setChecked(selecionadas.contains(mensagem.getId()));
+        // O toque longo inicia a seleção; com ela ativa, o toque simples também alterna o item.
+        favoritaHolder.itemView.setOnLongClickListener(v -> {
+            alternarSelecao(favoritaHolder, mensagem);
+            return true;
+        });
+        favoritaHolder.itemView.setOnClickListener(v -> {
+            if (!selecionadas.isEmpty()) {
+                alternarSelecao(favoritaHolder, mensagem);
+            }
+        });
     }
 
     /**
      * Retorna o número total de itens no conjunto de dados mantido pelo adaptador.
      *
-     * @return O número total de mensagens na lista.
+     * @return O número total de itens (cabeçalhos e mensagens) na lista.
      */
     @Override
     public int getItemCount() {
-        return mensagens != null ? mensagens.size() : 0;
+        return itens != null ? itens.size() : 0;
     }
 
     /**
-     * Atualiza a lista de mensagens do adapter e notifica o RecyclerView sobre a mudança.
+     * Atualiza a lista de itens do adapter e notifica o RecyclerView sobre a mudança.
      * Este é o método principal para fornecer ou atualizar os dados da lista.
      *
-     * @param novasMensagens A nova lista de mensagens a ser exibida.
+     * @param novosItens A nova lista seccionada a ser exibida.
      */
-    public void setMensagens(List<Mensagem> novasMensagens) {
-        this.mensagens = novasMensagens;
+    public void setItens(List<ItemListaFavoritas> novosItens) {
+        this.itens = novosItens;
+        // Mensagens que saíram da lista (ex.: removidas das favoritas) saem também da seleção.
+        if (!selecionadas.isEmpty()) {
+            Set<Long> presentes = new HashSet<>();
+            for (ItemListaFavoritas item : novosItens) {
+                if (item.getTipo() == ItemListaFavoritas.TIPO_MENSAGEM) {
+                    presentes.add(item.getMensagem().getId());
+                }
+            }
+            if (selecionadas.retainAll(presentes)) {
+                notificarSelecao();
+            }
+        }
         // Notifica o RecyclerView que o conjunto de dados mudou.
         // Isso força a lista a ser redesenhada com os novos dados.
         notifyDataSetChanged();
     }
 
+    private void alternarSelecao(FavoritaViewHolder holder, Mensagem mensagem) {
+        if (!selecionadas.remove(mensagem.getId())) {
+            selecionadas.add(mensagem.getId());
+        }
+        holder.card.setChecked(selecionadas.contains(mensagem.getId()));
+        notificarSelecao();
+    }
+
+    private void notificarSelecao() {
+        if (onSelecaoListener != null) {
+            onSelecaoListener.onSelecaoAlterada(selecionadas.size());
+        }
+    }
+
+    /**
+     * O ViewHolder do cabeçalho de uma seção, que exibe o nome do autor e a quantidade de mensagens.
+     */
+    static class CabecalhoViewHolder extends RecyclerView.ViewHolder {
+        private final TextView tvAutor;
+        private final TextView tvQuantidade;
+        private final ImageButton btnRemoverAutor;
+
+        public CabecalhoViewHolder(@NonNull View itemView) {
+            super(itemView);
+            tvAutor = itemView.findViewById(R.id.tvAutorCabecalho);
+            tvQuantidade = itemView.findViewById(R.id.tvQuantidadeCabecalho);
+            btnRemoverAutor = itemView.findViewById(R.id.btnRemoverAutor);
+        }
+
+        /**
+         * Vincula os dados de um cabeçalho de seção às views deste ViewHolder.
+         *
+         * @param item O item de cabeçalho.
+         */
+        public void bind(ItemListaFavoritas item) {
+            tvAutor.setText(item.getAutor());
+            tvQuantidade.setText(String.valueOf(item.getQuantidade()));
+        }
+    }
+
     /**
      * O ViewHolder que descreve a view de um item e seus metadados para o RecyclerView.
      * Ele armazena as referências das views (para evitar chamadas repetidas de findViewById)
      * e contém a lógica para popular essas views com os dados do item.
      */
     static class FavoritaViewHolder extends RecyclerView.ViewHolder {
+        private final MaterialCardView card;
         private final TextView tvTexto;
         private final TextView tvAutor;
+        private final ImageButton btnCompartilhar;
 
         /**
          * Construtor para o ViewHolder.
@@ -96,9 +274,12 @@ public class MensagemFavoritaAdapter extends RecyclerView.Adapter<MensagemFavori
          */
         public FavoritaViewHolder(@NonNull View itemView) {
             super(itemView);
+            // A raiz do layout do item é o próprio cartão, que indica a seleção.
+            card = (MaterialCardView) itemView;
             // Encontra e armazena as referências para as TextViews dentro do layout do item.
             tvTexto = itemView.findViewById(R.id.tvTextoFavorito);
             tvAutor = itemView.findViewById(R.id.tvAutorFavorito);
+            btnCompartilhar = itemView.findViewById(R.id.btnCompartilharFavorito);
         }
 
         /**
@@ -107,8 +288,10 @@ public class MensagemFavoritaAdapter extends RecyclerView.Adapter<MensagemFavori
          * @param mensagem O objeto Mensagem contendo os dados a serem exibidos.
          */
         public void bind(Mensagem mensagem) {
-            tvTexto.setText("\"" + mensagem.getTexto() + "\"");
+            // Itens de lista trazem só o começo de textos longos; indica que há continuação.
+            String reticencias = mensagem.isTextoTruncado() ? "…" : "";
+            tvTexto.setText("\"" + mensagem.getTexto() + reticencias + "\"");
             tvAutor.setText("- " + mensagem.getAutor());
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,65 @@
+package com.example.contentproviderconsumidor.ui.compartilhamento;
+
+import android.content.Intent;
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Resultado de uma renderização feita pelo {@link RenderizadorCartaoMensagem}.
+ * Contém a URI {@code content://} do cartão gravado e os tempos medidos em cada etapa,
+ * o que permite acompanhar o custo real do compartilhamento.
+ */
+public class CartaoCompartilhavel {
+
+    /** A URI do arquivo PNG, exposta pelo FileProvider do aplicativo. */
+    private final Uri uri;
+
+    /** Tempo gasto desenhando o cartão, em milissegundos (praticamente zero em um acerto de cache). */
+    private final long tempoRenderizacaoMs;
+
+    /** Tempo gasto codificando e gravando o PNG, em milissegundos. */
+    private final long tempoCodificacaoMs;
+
+    /** Indica se o bitmap veio do cache de cartões renderizados. */
+    private final boolean doCache;
+
+    public CartaoCompartilhavel(Uri uri, long tempoRenderizacaoMs, long tempoCodificacaoMs, boolean doCache) {
+        this.uri = uri;
+        this.tempoRenderizacaoMs = tempoRenderizacaoMs;
+        this.tempoCodificacaoMs = tempoCodificacaoMs;
+        this.doCache = doCache;
+    }
+
+    public Uri getUri() {
+        return uri;
+    }
+
+    public long getTempoRenderizacaoMs() {
+        return tempoRenderizacaoMs;
+    }
+
+    public long getTempoCodificacaoMs() {
+        return tempoCodificacaoMs;
+    }
+
+    public boolean isDoCache() {
+        return doCache;
+    }
+
+    /**
+     * Cria a Intent de compartilhamento (com o seletor de apps do sistema) para este cartão,
+     * já concedendo ao app de destino a permissão de leitura da URI.
+     *
+     * @param titulo O título exibido no seletor de apps.
+     * @return Uma Intent pronta para ser passada a {@code startActivity}.
+     */
+    @NonNull
+    public Intent criarIntentCompartilhamento(String titulo) {
+        Intent envio = new Intent(Intent.ACTION_SEND);
+        envio.setType("image/png");
+        envio.putExtra(Intent.EXTRA_STREAM, uri);
+        envio.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
+        return Intent.createChooser(envio, titulo);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.contentproviderconsumidor.ui.compartilhamento;
+
+import android.widget.Toast;
+
+import androidx.annotation.NonNull;
+import androidx.fragment.app.Fragment;
+
+import com.example.contentproviderconsumidor.data.model.Mensagem;
+
+/**
+ * Fluxo de "compartilhar como imagem" usado pelos fragments: pede o cartão da mensagem e,
+ * quando ele estiver pronto, abre o seletor de apps do sistema (ou avisa a falha).
+ * A renderização em si acontece fora da thread principal, em quem atende o pedido
+ * (normalmente o ViewModel, que detém o {@link RenderizadorCartaoMensagem}).
+ */
+public final class CompartilhamentoCartao {
+
+    /** Quem produz o cartão de uma mensagem (ex.: {@code viewModel::renderizarCartaoCompartilhamento}). */
+    public interface Solicitante {
+        void renderizar(Mensagem mensagem, TemaCartao tema, RenderizadorCartaoMensagem.Callback callback);
+    }
+
+    private CompartilhamentoCartao() {}
+
+    /**
+     * Gera o cartão da mensagem e abre o seletor de apps para compartilhá-lo.
+     *
+     * @param fragment O fragment que iniciou o compartilhamento.
+     * @param mensagem A mensagem a ser compartilhada.
+     * @param solicitante Quem renderiza o cartão.
+     */
+    public static void compartilhar(@NonNull Fragment fragment, @NonNull Mensagem mensagem,
+                                    @NonNull Solicitante solicitante) {
+        solicitante.renderizar(mensagem, TemaCartao.doContexto(fragment.requireContext()),
+                new RenderizadorCartaoMensagem.Callback() {
+                    @Override
+                    public void onCartaoPronto(@NonNull CartaoCompartilhavel cartao) {
+                        // O fragment pode ter saído da tela enquanto o cartão era renderizado.
+                        if (!fragment.isAdded()) {
+                            return;
+                        }
+                        fragment.startActivity(cartao.criarIntentCompartilhamento("Compartilhar mensagem"));
+                    }
+
+                    @Override
+                    public void onFalha(@NonNull Exception erro) {
+                        if (!fragment.isAdded()) {
+                            return;
+                        }
+                        Toast.makeText(fragment.getContext(), "Não foi possível gerar a imagem.", Toast.LENGTH_SHORT).show();
+                    }
+                });
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.contentproviderconsumidor.ui.compartilhamento;
+
+import android.graphics.Bitmap;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Um pool de {@link Bitmap}s reutilizáveis, organizado em "baldes" por dimensão.
+ * <p>
+ * Alocar um bitmap de cartão (ex.: 1080x1350 em ARGB_8888, cerca de 5,5 MB) a cada
+ * compartilhamento gera muita pressão no Garbage Collector. Em vez disso, os bitmaps
+ * descartados pelo cache de cartões são devolvidos a este pool e reaproveitados na
+ * próxima renderização de mesmo tamanho. Como o {@link RenderizadorCartaoMensagem}
+ * arredonda a altura dos cartões para múltiplos fixos, poucos baldes atendem a
+ * praticamente todas as mensagens.
+ * <p>
+ * O pool tem uma capacidade máxima em bytes; bitmaps devolvidos além desse limite
+ * são simplesmente liberados. Todos os métodos são sincronizados.
+ */
+public class PoolDeBitmaps {
+
+    /** Limite de memória, em bytes, ocupado pelos bitmaps guardados no pool. */
+    private final long capacidadeBytes;
+
+    /** Baldes de bitmaps livres, indexados pela chave de dimensão (largura/altura). */
+    private final Map<Long, ArrayDeque<Bitmap>> baldes = new HashMap<>();
+
+    /** Total de bytes atualmente guardados no pool. */
+    private long bytesEmPool;
+
+    /** Quantidade de pedidos atendidos com um bitmap reaproveitado. */
+    private int reaproveitamentos;
+
+    /** Quantidade de pedidos que precisaram de uma nova alocação. */
+    private int alocacoes;
+
+    /**
+     * @param capacidadeBytes O limite de memória, em bytes, que o pool pode reter.
+     */
+    public PoolDeBitmaps(long capacidadeBytes) {
+        this.capacidadeBytes = capacidadeBytes;
+    }
+
+    /**
+     * Obtém um bitmap ARGB_8888 com as dimensões pedidas, reaproveitando um do pool se houver.
+     * O conteúdo de um bitmap reaproveitado é indefinido; cabe a quem chama limpá-lo.
+     *
+     * @param largura A largura desejada, em pixels.
+     * @param altura  A altura desejada, em pixels.
+     * @return Um bitmap mutável com exatamente as dimensões pedidas.
+     */
+    public synchronized Bitmap obter(int largura, int altura) {
+        ArrayDeque<Bitmap> balde = baldes.get(chave(largura, altura));
+        if (balde != null) {
+            Bitmap bitmap = balde.pollFirst();
+            if (bitmap != null) {
+                bytesEmPool -= bitmap.getAllocationByteCount();
+                reaproveitamentos++;
+                return bitmap;
+            }
+        }
+        alocacoes++;
+        return Bitmap.createBitmap(largura, altura, Bitmap.Config.ARGB_8888);
+    }
+
+    /**
+     * Devolve um bitmap ao pool para uso futuro. Se o pool já estiver cheio, ou o bitmap
+     * não puder ser reaproveitado, ele é reciclado imediatamente.
+     *
+     * @param bitmap O bitmap que não é mais usado por quem o obteve.
+     */
+    public synchronized void devolver(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled()) {
+            return;
+        }
+        int bytes = bitmap.getAllocationByteCount();
+        if (!bitmap.isMutable() || bytesEmPool + bytes > capacidadeBytes) {
+            bitmap.recycle();
+            return;
+        }
+        long chave = chave(bitmap.getWidth(), bitmap.getHeight());
+        ArrayDeque<Bitmap> balde = baldes.get(chave);
+        if (balde == null) {
+            balde = new ArrayDeque<>();
+            baldes.put(chave, balde);
+        }
+        balde.addLast(bitmap);
+        bytesEmPool += bytes;
+    }
+
+    /**
+     * Libera todos os bitmaps guardados no pool.
+     */
+    public synchronized void limpar() {
+        for (ArrayDeque<Bitmap> balde : baldes.values()) {
+            for (Bitmap bitmap : balde) {
+                bitmap.recycle();
+            }
+        }
+        baldes.clear();
+        bytesEmPool = 0;
+    }
+
+    public synchronized long getBytesEmPool() {
+        return bytesEmPool;
+    }
+
+    public synchronized int getReaproveitamentos() {
+        return reaproveitamentos;
+    }
+
+    public synchronized int getAlocacoes() {
+        return alocacoes;
+    }
+
+    /** Combina largura e altura em uma única chave de balde. */
+    private static long chave(int largura, int altura) {
+        return ((long) largura << 32) | (altura & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,418 @@
+package com.example.contentproviderconsumidor.ui.compartilhamento;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.graphics.Typeface;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.core.content.FileProvider;
+
+import com.example.contentproviderconsumidor.data.memoria.CacheGerenciado;
+import com.example.contentproviderconsumidor.data.memoria.NivelDescarte;
+import com.example.contentproviderconsumidor.data.model.Mensagem;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Responsável por transformar uma {@link Mensagem} em uma imagem (cartão) pronta para
+ * ser compartilhada com outros aplicativos.
+ * <p>
+ * Todo o trabalho pesado (layout do texto, desenho no Canvas e codificação em PNG) é feito
+ * em uma thread de fundo dedicada, nunca na thread principal. Para reduzir alocações:
+ * <ul>
+ *     <li>os bitmaps vêm de um {@link PoolDeBitmaps} e voltam para ele quando saem do cache;</li>
+ *     <li>um {@link LruCache} guarda os cartões renderizados recentemente, indexados pelo ID
+ *     da mensagem, pelo tema e pelo conteúdo, evitando renderizar de novo o mesmo cartão.</li>
+ * </ul>
+ * O arquivo final é gravado no diretório de cache do app e exposto através de um
+ * {@link FileProvider}, de forma que o app de destino recebe apenas uma URI {@code content://}
+ * com permissão temporária de leitura.
+ * <p>
+ * O cache de cartões e o pool participam do controle de memória do app como
+ * {@link CacheGerenciado} da camada {@link NivelDescarte#DERIVADOS}: são os primeiros a sair,
+ * pois se refazem sem consultar o provedor.
+ */
+public class RenderizadorCartaoMensagem implements CacheGerenciado {
+
+    private static final String TAG = "RenderizadorCartao";
+
+    /** Sufixo da autoridade do FileProvider declarado no AndroidManifest. */
+    private static final String SUFIXO_AUTORIDADE = ".compartilhamento";
+
+    /** Subdiretório de {@code getCacheDir()} onde os cartões são gravados. */
+    private static final String DIRETORIO_CARTOES = "cartoes";
+
+    /** Largura fixa do cartão, em pixels. */
+    private static final int LARGURA_CARTAO = 1080;
+
+    /** Altura mínima do cartão, em pixels (formato quadrado). */
+    private static final int ALTURA_MINIMA = 1080;
+
+    /**
+     * As alturas são arredondadas para múltiplos deste valor. Assim, cartões de tamanhos
+     * parecidos caem no mesmo balde do pool e podem reaproveitar o mesmo bitmap.
+     */
+    private static final int PASSO_ALTURA = 256;
+
+    /** Margem interna do cartão, em pixels. */
+    private static final int MARGEM = 96;
+
+    /** Tamanho máximo, em bytes, do cache de cartões renderizados. */
+    private static final int TAMANHO_CACHE_BYTES = 24 * 1024 * 1024;
+
+    /** Tamanho máximo, em bytes, dos bitmaps livres guardados no pool. */
+    private static final long TAMANHO_POOL_BYTES = 16L * 1024 * 1024;
+
+    /** Tempo máximo de espera pela thread de renderização em {@link #reduzirPara(long)}. */
+    private static final long PRAZO_REDUCAO_MS = 1_000;
+
+    /**
+     * Quantos PNGs ficam no disco. Os mais antigos são apagados a cada cartão novo; os últimos
+     * ficam porque o app de destino pode ainda estar lendo o cartão compartilhado antes.
+     */
+    private static final int MAX_CARTOES_EM_DISCO = 3;
+
+    /**
+     * Callback usado para entregar o resultado de uma renderização.
+     * Os métodos são sempre chamados na thread principal.
+     */
+    public interface Callback {
+        /**
+         * Chamado quando o cartão está gravado e pronto para ser compartilhado.
+         * @param cartao O resultado, contendo a URI e os tempos medidos.
+         */
+        void onCartaoPronto(@NonNull CartaoCompartilhavel cartao);
+
+        /**
+         * Chamado se a renderização ou a gravação do arquivo falhar.
+         * @param erro A exceção que causou a falha.
+         */
+        void onFalha(@NonNull Exception erro);
+    }
+
+    /** Contexto da aplicação, usado para acessar o diretório de cache e o FileProvider. */
+    private final Context contexto;
+
+    /** Thread única de renderização. Também serializa todo acesso ao cache e aos bitmaps. */
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    /** Handler da thread principal, usado para entregar os resultados aos callbacks. */
+    private final Handler handlerPrincipal = new Handler(Looper.getMainLooper());
+
+    /** Pool de bitmaps reaproveitáveis, organizado por dimensão. */
+    private final PoolDeBitmaps pool = new PoolDeBitmaps(TAMANHO_POOL_BYTES);
+
+    /** Cache LRU dos cartões renderizados recentemente, medido em bytes de bitmap. */
+    private final LruCache<String, CartaoRenderizado> cache =
+            new LruCache<String, CartaoRenderizado>(TAMANHO_CACHE_BYTES) {
+                @Override
+                protected int sizeOf(String chave, CartaoRenderizado cartao) {
+                    return cartao.bitmap.getAllocationByteCount();
+                }
+
+                @Override
+                protected void entryRemoved(boolean removidoPorLimite, String chave,
+                                            CartaoRenderizado antigo, CartaoRenderizado novo) {
+                    // Quando um cartão sai do cache, seu bitmap volta ao pool para ser reutilizado.
+                    if (antigo != novo) {
+                        pool.devolver(antigo.bitmap);
+                    }
+                }
+            };
+
+    /**
+     * @param contexto Qualquer Context; apenas o Context da aplicação é retido.
+     */
+    public RenderizadorCartaoMensagem(@NonNull Context contexto) {
+        this.contexto = contexto.getApplicationContext();
+        // Remove cartões gravados em sessões anteriores, que já não estão mais no cache.
+        executor.execute(this::limparDiretorioCartoes);
+    }
+
+    /**
+     * Solicita a renderização do cartão de uma mensagem. O resultado é entregue na thread
+     * principal através do {@code callback}.
+     *
+     * @param mensagem A mensagem a ser desenhada no cartão.
+     * @param tema     O tema visual do cartão.
+     * @param callback O callback que receberá a URI do arquivo ou o erro.
+     */
+    public void renderizar(@NonNull Mensagem mensagem, @NonNull TemaCartao tema, @NonNull Callback callback) {
+        // Copia os campos agora, pois o objeto Mensagem pode ser alterado enquanto a tarefa espera na fila.
+        final long id = mensagem.getId();
+        final String texto = mensagem.getTexto() != null ? mensagem.getTexto() : "";
+        final String autor = mensagem.getAutor() != null ? mensagem.getAutor() : "";
+
+        executor.execute(() -> {
+            try {
+                CartaoCompartilhavel resultado = renderizarSincrono(id, texto, autor, tema);
+                handlerPrincipal.post(() -> callback.onCartaoPronto(resultado));
+            } catch (Exception e) {
+                Log.e(TAG, "Falha ao renderizar o cartão da mensagem " + id, e);
+                handlerPrincipal.post(() -> callback.onFalha(e));
+            }
+        });
+    }
+
+    /**
+     * Esvazia o cache de cartões e o pool de bitmaps. A limpeza é feita na thread de renderização
+     * para nunca liberar um bitmap que esteja sendo desenhado ou codificado.
+     */
+    public void limparCaches() {
+        executor.execute(() -> {
+            cache.evictAll();
+            pool.limpar();
+        });
+    }
+
+    @Override
+    public String getNome() {
+        return "cartoes";
+    }
+
+    @Override
+    public NivelDescarte getNivel() {
+        return NivelDescarte.DERIVADOS;
+    }
+
+    /** @return Os bytes dos cartões em cache mais os dos bitmaps livres no pool. */
+    @Override
+    public long getBytesOcupados() {
+        return cache.size() + pool.getBytesEmPool();
+    }
+
+    @Override
+    public long getLimiteBytes() {
+        return TAMANHO_CACHE_BYTES + TAMANHO_POOL_BYTES;
+    }
+
+    /**
+     * Esvazia o pool e reduz o cache de cartões. Como {@link #limparCaches()}, roda na thread de
+     * renderização; este método espera a redução terminar (por até {@link #PRAZO_REDUCAO_MS}),
+     * para que quem chamou veja a memória já liberada. Não deve ser chamado na thread principal.
+     */
+    @Override
+    public void reduzirPara(long bytesAlvo) {
+        try {
+            executor.submit(() -> {
+                pool.limpar();
+                cache.trimToSize(bytesAlvo <= 0 ? -1 : (int) Math.min(bytesAlvo, Integer.MAX_VALUE));
+            }).get(PRAZO_REDUCAO_MS, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException | ExecutionException | TimeoutException e) {
+            Log.w(TAG, "Redução do cache de cartões não concluída", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** @return Cartões descartados do cache (por limite ou por falta de memória). */
+    @Override
+    public long getDescartes() {
+        return cache.evictionCount();
+    }
+
+    /**
+     * Encerra a thread de renderização e libera a memória retida. Deve ser chamado quando o
+     * dono do renderizador (o ViewModel) for destruído.
+     */
+    public void encerrar() {
+        limparCaches();
+        executor.shutdown();
+    }
+
+    // --- Métodos Privados (executados sempre na thread de renderização) ---
+
+    /**
+     * Produz o arquivo do cartão, usando o cache quando possível, e mede os tempos de cada etapa.
+     */
+    private CartaoCompartilhavel renderizarSincrono(long id, String texto, String autor, TemaCartao tema)
+            throws IOException {
+        String chave = id + ":" + tema.name() + ":" + Integer.toHexString(Objects.hash(texto, autor));
+
+        long inicioRenderizacao = SystemClock.elapsedRealtimeNanos();
+        CartaoRenderizado cartao = cache.get(chave);
+        boolean doCache = cartao != null;
+        if (cartao == null) {
+            cartao = new CartaoRenderizado(desenhar(texto, autor, tema), arquivoPara(chave));
+        }
+        long tempoRenderizacaoMs = nanosParaMs(SystemClock.elapsedRealtimeNanos() - inicioRenderizacao);
+
+        long inicioCodificacao = SystemClock.elapsedRealtimeNanos();
+        // Um cartão vindo do cache normalmente já tem o arquivo gravado; só recodifica se ele sumiu.
+        if (!doCache || !cartao.arquivo.exists()) {
+            codificar(cartao.bitmap, cartao.arquivo);
+            apagarCartoesAntigos(cartao.arquivo);
+        } else {
+            // Reusado: passa a contar como o mais recente na limpeza do diretório.
+            //noinspection ResultOfMethodCallIgnored
+            cartao.arquivo.setLastModified(System.currentTimeMillis());
+        }
+        long tempoCodificacaoMs = nanosParaMs(SystemClock.elapsedRealtimeNanos() - inicioCodificacao);
+
+        // Só entra no cache depois de codificado, para que o bitmap nunca seja devolvido ao pool em uso.
+        if (!doCache) {
+            cache.put(chave, cartao);
+        }
+
+        Uri uri = FileProvider.getUriForFile(contexto, contexto.getPackageName() + SUFIXO_AUTORIDADE, cartao.arquivo);
+        Log.d(TAG, "Cartão " + chave + (doCache ? " (cache)" : "")
+                + ": renderização=" + tempoRenderizacaoMs + "ms, codificação=" + tempoCodificacaoMs + "ms"
+                + ", pool=" + pool.getReaproveitamentos() + " reaproveitados/" + pool.getAlocacoes() + " alocados");
+        return new CartaoCompartilhavel(uri, tempoRenderizacaoMs, tempoCodificacaoMs, doCache);
+    }
+
+    /**
+     * Desenha o cartão em um bitmap obtido do pool.
+     */
+    private Bitmap desenhar(String texto, String autor, TemaCartao tema) {
+        int larguraTexto = LARGURA_CARTAO - 2 * MARGEM;
+
+        TextPaint pintorTexto = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+        pintorTexto.setColor(tema.getCorTexto());
+        pintorTexto.setTextSize(64f);
+        pintorTexto.setTypeface(Typeface.create(Typeface.SERIF, Typeface.BOLD));
+
+        TextPaint pintorAutor = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+        pintorAutor.setColor(tema.getCorAutor());
+        pintorAutor.setTextSize(44f);
+        pintorAutor.setTypeface(Typeface.create(Typeface.SANS_SERIF, Typeface.ITALIC));
+
+        String citacao = "\"" + texto + "\"";
+        StaticLayout layoutTexto = StaticLayout.Builder
+                .obtain(citacao, 0, citacao.length(), pintorTexto, larguraTexto)
+                .setAlignment(Layout.Alignment.ALIGN_CENTER)
+                .setLineSpacing(0f, 1.15f)
+                .build();
+        String linhaAutor = "- " + autor;
+        StaticLayout layoutAutor = StaticLayout.Builder
+                .obtain(linhaAutor, 0, linhaAutor.length(), pintorAutor, larguraTexto)
+                .setAlignment(Layout.Alignment.ALIGN_CENTER)
+                .build();
+
+        int espacamento = MARGEM / 2;
+        int alturaConteudo = layoutTexto.getHeight() + espacamento + layoutAutor.getHeight();
+        int altura = Math.max(ALTURA_MINIMA, alturaConteudo + 2 * MARGEM);
+        // Arredonda para cima, para que cartões de tamanhos próximos compartilhem o mesmo balde do pool.
+        altura = ((altura + PASSO_ALTURA - 1) / PASSO_ALTURA) * PASSO_ALTURA;
+
+        Bitmap bitmap = pool.obter(LARGURA_CARTAO, altura);
+        Canvas canvas = new Canvas(bitmap);
+        // Um bitmap reaproveitado ainda contém o cartão anterior; o fundo cobre tudo.
+        canvas.drawColor(tema.getCorFundo());
+
+        Paint pintorBorda = new Paint(Paint.ANTI_ALIAS_FLAG);
+        pintorBorda.setStyle(Paint.Style.STROKE);
+        pintorBorda.setStrokeWidth(6f);
+        pintorBorda.setColor(tema.getCorAutor());
+        float recuo = MARGEM / 3f;
+        canvas.drawRoundRect(new RectF(recuo, recuo, LARGURA_CARTAO - recuo, altura - recuo), 32f, 32f, pintorBorda);
+
+        // Centraliza o bloco (texto + autor) verticalmente.
+        float topo = (altura - alturaConteudo) / 2f;
+        canvas.save();
+        canvas.translate(MARGEM, topo);
+        layoutTexto.draw(canvas);
+        canvas.translate(0, layoutTexto.getHeight() + espacamento);
+        layoutAutor.draw(canvas);
+        canvas.restore();
+
+        return bitmap;
+    }
+
+    /**
+     * Codifica o bitmap em PNG e grava no arquivo indicado.
+     */
+    private void codificar(Bitmap bitmap, File arquivo) throws IOException {
+        File diretorio = arquivo.getParentFile();
+        if (diretorio != null && !diretorio.exists() && !diretorio.mkdirs()) {
+            throw new IOException("Não foi possível criar o diretório " + diretorio);
+        }
+        try (OutputStream saida = new FileOutputStream(arquivo)) {
+            if (!bitmap.compress(Bitmap.CompressFormat.PNG, 100, saida)) {
+                throw new IOException("Falha ao codificar o cartão em PNG");
+            }
+        }
+    }
+
+    /** Monta o arquivo de destino de um cartão a partir da sua chave de cache. */
+    private File arquivoPara(String chave) {
+        String nome = "cartao_" + chave.replace(':', '_') + ".png";
+        return new File(new File(contexto.getCacheDir(), DIRETORIO_CARTOES), nome);
+    }
+
+    /** Apaga os arquivos de cartões deixados por execuções anteriores. */
+    private void limparDiretorioCartoes() {
+        File[] arquivos = new File(contexto.getCacheDir(), DIRETORIO_CARTOES).listFiles();
+        if (arquivos != null) {
+            for (File arquivo : arquivos) {
+                //noinspection ResultOfMethodCallIgnored
+                arquivo.delete();
+            }
+        }
+    }
+
+    /**
+     * Mantém no diretório só os {@link #MAX_CARTOES_EM_DISCO} cartões mais recentes (o recém-gravado
+     * sempre entre eles). Um cartão apagado que ainda esteja no cache em memória é recodificado
+     * se for compartilhado de novo.
+     */
+    private void apagarCartoesAntigos(File recemGravado) {
+        File[] arquivos = new File(contexto.getCacheDir(), DIRETORIO_CARTOES).listFiles();
+        if (arquivos == null || arquivos.length <= MAX_CARTOES_EM_DISCO) {
+            return;
+        }
+        Arrays.sort(arquivos, (a, b) -> Long.compare(b.lastModified(), a.lastModified()));
+        int mantidos = 1;
+        for (File arquivo : arquivos) {
+            if (arquivo.equals(recemGravado)) {
+                continue;
+            }
+            if (mantidos < MAX_CARTOES_EM_DISCO) {
+                mantidos++;
+            } else {
+                //noinspection ResultOfMethodCallIgnored
+                arquivo.delete();
+            }
+        }
+    }
+
+    private static long nanosParaMs(long nanos) {
+        return nanos / 1_000_000L;
+    }
+
+    /**
+     * Entrada do cache: o bitmap renderizado e o arquivo PNG correspondente.
+     */
+    private static final class CartaoRenderizado {
+        final Bitmap bitmap;
+        final File arquivo;
+
+        CartaoRenderizado(Bitmap bitmap, File arquivo) {
+            this.bitmap = bitmap;
+            this.arquivo = arquivo;
+        }
+    }
+}
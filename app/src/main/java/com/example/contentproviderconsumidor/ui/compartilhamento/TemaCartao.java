@@ -0,0 +1,59 @@
+package com.example.contentproviderconsumidor.ui.compartilhamento;
+
+import android.content.Context;
+import android.content.res.Configuration;
+
+/**
+ * Define os temas visuais disponíveis para o cartão de compartilhamento de uma mensagem.
+ * Cada tema agrupa as cores usadas pelo {@link RenderizadorCartaoMensagem} ao desenhar
+ * o fundo, o texto e o autor. O tema também faz parte da chave do cache de cartões,
+ * já que a mesma mensagem gera imagens diferentes em cada tema.
+ */
+public enum TemaCartao {
+
+    /** Cartão com fundo claro e texto escuro. */
+    CLARO(0xFFFAF7F2, 0xFF1C1B1F, 0xFF5F5B66),
+
+    /** Cartão com fundo escuro e texto claro. */
+    ESCURO(0xFF1C1B1F, 0xFFF4EFF4, 0xFFC9C5D0);
+
+    /** Cor de fundo do cartão (ARGB). */
+    private final int corFundo;
+
+    /** Cor do texto principal da mensagem (ARGB). */
+    private final int corTexto;
+
+    /** Cor da linha do autor (ARGB). */
+    private final int corAutor;
+
+    TemaCartao(int corFundo, int corTexto, int corAutor) {
+        this.corFundo = corFundo;
+        this.corTexto = corTexto;
+        this.corAutor = corAutor;
+    }
+
+    public int getCorFundo() {
+        return corFundo;
+    }
+
+    public int getCorTexto() {
+        return corTexto;
+    }
+
+    public int getCorAutor() {
+        return corAutor;
+    }
+
+    /**
+     * Escolhe o tema do cartão de acordo com o modo noturno atualmente ativo,
+     * para que a imagem compartilhada acompanhe a aparência do aplicativo.
+     *
+     * @param contexto Um Context com a configuração atual.
+     * @return {@link #ESCURO} se o modo noturno estiver ativo, {@link #CLARO} caso contrário.
+     */
+    public static TemaCartao doContexto(Context contexto) {
+        int modoNoturno = contexto.getResources().getConfiguration().uiMode
+                & Configuration.UI_MODE_NIGHT_MASK;
+        return modoNoturno == Configuration.UI_MODE_NIGHT_YES ? ESCURO : CLARO;
+    }
+}
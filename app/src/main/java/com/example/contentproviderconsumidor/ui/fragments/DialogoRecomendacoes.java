@@ -0,0 +1,69 @@
+package com.example.contentproviderconsumidor.ui.fragments;
+
+import android.widget.Toast;
+import androidx.fragment.app.Fragment;
+
+import com.google.android.material.dialog.MaterialAlertDialogBuilder;
+
+import com.example.contentproviderconsumidor.data.model.Mensagem;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Diálogo com uma lista de mensagens recomendadas, usado em "mais como esta" e nas
+ * recomendações a partir das favoritas. Tocar em uma mensagem fecha o diálogo e a entrega
+ * ao listener informado.
+ */
+final class DialogoRecomendacoes {
+
+    /** Quantos caracteres do texto aparecem em cada item da lista. */
+    private static final int TAMANHO_RESUMO = 90;
+
+    private DialogoRecomendacoes() {}
+
+    /**
+     * Exibe as recomendações, ou um aviso se não houver nenhuma. Se parte do catálogo ficou fora
+     * do índice de similaridade, avisa que as recomendações são parciais.
+     * Não faz nada se o fragment já saiu da tela.
+     *
+     * @param fragment O fragment que pediu as recomendações.
+     * @param titulo O título do diálogo.
+     * @param mensagens As mensagens recomendadas, na ordem em que devem aparecer.
+     * @param foraDoIndice Mensagens do catálogo que não puderam ser consideradas (veja
+     *                     {@code MensagemConsumidorViewModel#getMensagensForaDasRecomendacoes()}).
+     * @param aoEscolher Recebe a mensagem tocada pelo usuário.
+     */
+    static void exibir(Fragment fragment, String titulo, List<Mensagem> mensagens, int foraDoIndice,
+                       Consumer<Mensagem> aoEscolher) {
+        if (!fragment.isAdded()) {
+            return;
+        }
+        String aviso = foraDoIndice > 0
+                ? "Recomendações parciais: " + foraDoIndice + " mensagens não couberam na memória."
+                : null;
+        if (mensagens.isEmpty()) {
+            String texto = "Nenhuma mensagem parecida encontrada.";
+            Toast.makeText(fragment.getContext(), aviso != null ? texto + "\n" + aviso : texto,
+                    Toast.LENGTH_SHORT).show();
+            return;
+        }
+        if (aviso != null) {
+            Toast.makeText(fragment.getContext(), aviso, Toast.LENGTH_LONG).show();
+        }
+        CharSequence[] itens = new CharSequence[mensagens.size()];
+        for (int i = 0; i < itens.length; i++) {
+            Mensagem mensagem = mensagens.get(i);
+            String texto = mensagem.getTexto();
+            if (texto.length() > TAMANHO_RESUMO) {
+                texto = texto.substring(0, TAMANHO_RESUMO).trim() + "…";
+            }
+            itens[i] = "\"" + texto + "\"\n- " + mensagem.getAutor();
+        }
+        new MaterialAlertDialogBuilder(fragment.requireContext())
+                .setTitle(titulo)
+                .setItems(itens, (dialogo, posicao) -> aoEscolher.accept(mensagens.get(posicao)))
+                .setNegativeButton("Fechar", null)
+                .show();
+    }
+}
@@ -11,6 +11,7 @@ import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 import com.example.contentproviderconsumidor.data.model.Mensagem;
 import com.example.contentproviderconsumidor.databinding.FragmentoExibirMensagemBinding;
+import com.example.contentproviderconsumidor.ui.compartilhamento.CompartilhamentoCartao;
 import com.example.contentproviderconsumidor.ui.viewmodel.MensagemConsumidorViewModel;
 
 /**
@@ -87,6 +88,8 @@ public class FragmentoExibirMensagem extends Fragment {
                 binding.tvTextoMensagem.setText("\"" + mensagem.getTexto() + "\"");
                 binding.tvAutorMensagem.setText("- " + mensagem.getAutor());
                 binding.cbFavorita.setVisibility(View.VISIBLE);
+                binding.btnCompartilhar.setVisibility(View.VISIBLE);
+                binding.btnMaisComoEsta.setVisibility(View.VISIBLE);
 
                 // Lógica para evitar trigger indesejado do listener.
                 // Remove o listener temporariamente para não ser acionado ao definirmos o estado do checkbox.
@@ -97,16 +100,38 @@ public class FragmentoExibirMensagem extends Fragment {
                 setupListeners();
 
             } else {
-                // Caso nenhuma mensagem seja encontrada, exibe um estado vazio/informativo.
-                binding.tvTextoMensagem.setText("Nenhuma mensagem encontrada. Cadastre algumas no app Gerador.");
-                binding.tvAutorMensagem.setText("");
-                binding.cbFavorita.setVisibility(View.GONE);
+                mensagemAtual = null;
+                exibirEstadoVazio();
             }
         });
+        // O aviso de indisponibilidade pode chegar depois da mensagem nula (ou mudar sem ela).
+        viewModel.getCatalogoIndisponivel().observe(getViewLifecycleOwner(), indisponivel -> {
+            if (mensagemAtual == null) {
+                exibirEstadoVazio();
+            }
+        });
+    }
+
+    /**
+     * Exibe o estado sem mensagem: ou o catálogo está vazio, ou o app Gerador não respondeu
+     * (e não há catálogo anterior para sortear).
+     */
+    private void exibirEstadoVazio() {
+        if (Boolean.TRUE.equals(viewModel.getCatalogoIndisponivel().getValue())) {
+            binding.tvTextoMensagem.setText("O app Gerador não está respondendo. Tente novamente em instantes.");
+        } else {
+            // Caso nenhuma mensagem seja encontrada, exibe um estado vazio/informativo.
+            binding.tvTextoMensagem.setText("Nenhuma mensagem encontrada. Cadastre algumas no app Gerador.");
+        }
+        binding.tvAutorMensagem.setText("");
+        binding.cbFavorita.setVisibility(View.GONE);
+        binding.btnCompartilhar.setVisibility(View.GONE);
+        binding.btnMaisComoEsta.setVisibility(View.GONE);
     }
 
     /**
-     * Configura os listeners para os componentes de UI, como o CheckBox de favoritos.
+     * Configura os listeners para os componentes de UI, como o CheckBox de favoritos e os botões
+     * de compartilhar e de "mais como esta".
      */
     private void setupListeners() {
         binding.cbFavorita.setOnCheckedChangeListener((buttonView, isChecked) -> {
@@ -118,6 +143,37 @@ public class FragmentoExibirMensagem extends Fragment {
                 Toast.makeText(getContext(), isChecked ? "Adicionado aos favoritos!" : "Removido dos favoritos.", Toast.LENGTH_SHORT).show();
             }
         });
+        binding.btnCompartilhar.setOnClickListener(v -> {
+            if (mensagemAtual != null) {
+                compartilharComoImagem(mensagemAtual);
+            }
+        });
+        binding.btnMaisComoEsta.setOnClickListener(v -> {
+            if (mensagemAtual != null) {
+                exibirSemelhantes(mensagemAtual);
+            }
+        });
+    }
+
+    /**
+     * Busca mensagens parecidas com a exibida e as apresenta em um diálogo. A escolhida passa a
+     * ser a mensagem exibida, como se tivesse sido sorteada.
+     *
+     * @param mensagem A mensagem de referência.
+     */
+    private void exibirSemelhantes(Mensagem mensagem) {
+        viewModel.buscarMensagensSemelhantes(mensagem, semelhantes ->
+                DialogoRecomendacoes.exibir(this, "Mais como esta", semelhantes,
+                        viewModel.getMensagensForaDasRecomendacoes(), viewModel::exibirMensagem));
+    }
+
+    /**
+     * Gera o cartão da mensagem e abre o seletor de apps para compartilhá-lo.
+     *
+     * @param mensagem A mensagem a ser compartilhada.
+     */
+    private void compartilharComoImagem(Mensagem mensagem) {
+        CompartilhamentoCartao.compartilhar(this, mensagem, viewModel::renderizarCartaoCompartilhamento);
     }
 
     /**
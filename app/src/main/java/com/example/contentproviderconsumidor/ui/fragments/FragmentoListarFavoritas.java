@@ -2,20 +2,45 @@ package com.example.contentproviderconsumidor.ui.fragments;
 
 import android.os.Bundle;
 import android.view.LayoutInflater;
+import android.view.Menu;
+import android.view.MenuInflater;
+import android.view.MenuItem;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.view.ActionMode;
+import androidx.core.view.MenuProvider;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.Lifecycle;
 import androidx.lifecycle.ViewModelProvider;
+import androidx.navigation.NavOptions;
+import androidx.navigation.fragment.NavHostFragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 
+import com.google.android.material.chip.Chip;
+import com.google.android.material.dialog.MaterialAlertDialogBuilder;
+
+import com.example.contentproviderconsumidor.R;
+import com.example.contentproviderconsumidor.data.model.Mensagem;
 import com.example.contentproviderconsumidor.databinding.FragmentoListarFavoritasBinding;
 import com.example.contentproviderconsumidor.ui.adapter.MensagemFavoritaAdapter;
+import com.example.contentproviderconsumidor.ui.compartilhamento.CompartilhamentoCartao;
 import com.example.contentproviderconsumidor.ui.viewmodel.MensagemConsumidorViewModel;
+import com.example.contentproviderconsumidor.ui.viewmodel.ResultadoOperacaoEmLote;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
 
 /**
- * Um Fragment que exibe uma lista de todas as mensagens marcadas como favoritas.
+ * Um Fragment que exibe uma lista de todas as mensagens marcadas como favoritas,
+ * agrupadas por autor em ordem alfabética, com chips para filtrar por autor.
+ * Permite selecionar várias mensagens (toque longo) e removê-las das favoritas de uma vez,
+ * assim como remover todas as de um autor ou limpar a lista inteira (pelo menu da Toolbar).
  * Ele utiliza um RecyclerView para exibir a lista de forma eficiente.
  * Assim como outros fragments neste app, ele se comunica com um {@link MensagemConsumidorViewModel}
  * compartilhado para obter os dados.
@@ -34,6 +59,70 @@ public class FragmentoListarFavoritas extends Fragment {
     /** O Adapter responsável por vincular a lista de mensagens favoritas ao RecyclerView. */
     private MensagemFavoritaAdapter adapter;
 
+    /** Autores atualmente representados nos chips, para evitar recriá-los sem necessidade. */
+    private List<String> autoresExibidos = new ArrayList<>();
+
+    /** A barra de ações da seleção múltipla, ou null se não há seleção ativa. */
+    private ActionMode modoSelecao;
+
+    /** Indica se a lista exibida tem favoritas; sem elas, "Limpar" não aparece na Toolbar. */
+    private boolean possuiFavoritas;
+
+    /**
+     * Ações da Toolbar enquanto este fragment está na tela. "Limpar favoritas" fica aqui, e não na
+     * barra da seleção múltipla, para que não seja preciso selecionar algo antes de limpar tudo.
+     */
+    private final MenuProvider menuFavoritas = new MenuProvider() {
+        @Override
+        public void onCreateMenu(@NonNull Menu menu, @NonNull MenuInflater menuInflater) {
+            menuInflater.inflate(R.menu.menu_favoritas, menu);
+        }
+
+        @Override
+        public void onPrepareMenu(@NonNull Menu menu) {
+            menu.findItem(R.id.acaoLimparFavoritas).setVisible(possuiFavoritas);
+        }
+
+        @Override
+        public boolean onMenuItemSelected(@NonNull MenuItem item) {
+            if (item.getItemId() == R.id.acaoLimparFavoritas) {
+                confirmarLimparFavoritas();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    /** Ações disponíveis durante a seleção múltipla. */
+    private final ActionMode.Callback callbackModoSelecao = new ActionMode.Callback() {
+        @Override
+        public boolean onCreateActionMode(ActionMode mode, Menu menu) {
+            mode.getMenuInflater().inflate(R.menu.menu_selecao_favoritas, menu);
+            return true;
+        }
+
+        @Override
+        public boolean onPrepareActionMode(ActionMode mode, Menu menu) {
+            return false;
+        }
+
+        @Override
+        public boolean onActionItemClicked(ActionMode mode, MenuItem item) {
+            if (item.getItemId() == R.id.acaoRemoverSelecionadas) {
+                viewModel.removerFavoritas(adapter.getSelecionadas(), FragmentoListarFavoritas.this::informarResultado);
+                mode.finish();
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void onDestroyActionMode(ActionMode mode) {
+            modoSelecao = null;
+            adapter.limparSelecao();
+        }
+    };
+
     /**
      * Chamado para o fragmento instanciar sua hierarquia de views.
      *
@@ -66,6 +155,10 @@ public class FragmentoListarFavoritas extends Fragment {
         super.onViewCreated(view, savedInstanceState);
 
         setupRecyclerView();
+        setupFiltroAutores();
+        binding.fabRecomendadas.setOnClickListener(v -> exibirRecomendadas());
+        // O item some da Toolbar junto com a view (ou quando o fragment sai de RESUMED).
+        requireActivity().addMenuProvider(menuFavoritas, getViewLifecycleOwner(), Lifecycle.State.RESUMED);
         observeViewModel();
     }
 
@@ -75,32 +168,213 @@ public class FragmentoListarFavoritas extends Fragment {
      */
     private void setupRecyclerView() {
         adapter = new MensagemFavoritaAdapter();
+        adapter.setOnCompartilharListener(this::compartilharComoImagem);
+        adapter.setOnSelecaoListener(this::atualizarModoSelecao);
+        adapter.setOnRemoverAutorListener(this::confirmarRemoverAutor);
         binding.recyclerViewFavoritas.setLayoutManager(new LinearLayoutManager(getContext()));
         binding.recyclerViewFavoritas.setAdapter(adapter);
     }
 
     /**
-     * Configura o observador no LiveData de mensagens favoritas do ViewModel.
+     * Configura o listener do grupo de chips de autores. A filtragem em si é feita pelo ViewModel,
+     * fora da thread principal; o fragment apenas informa o autor escolhido.
+     */
+    private void setupFiltroAutores() {
+        binding.chipGroupAutores.setOnCheckedStateChangeListener((grupo, idsMarcados) -> {
+            if (idsMarcados.isEmpty()) {
+                return;
+            }
+            Chip chip = grupo.findViewById(idsMarcados.get(0));
+            // O chip "Todos" não tem tag; os demais guardam o nome do autor.
+            String autor = chip != null ? (String) chip.getTag() : null;
+            // Ignora a marcação feita ao recriar os chips, que apenas reflete o filtro atual.
+            if (!Objects.equals(autor, viewModel.getFiltroAutor())) {
+                viewModel.filtrarFavoritasPorAutor(autor);
+            }
+        });
+    }
+
+    /**
+     * Recria os chips de filtro quando o conjunto de autores muda.
+     *
+     * @param autores Os autores com favoritas, em ordem alfabética.
+     */
+    private void atualizarChipsAutores(List<String> autores) {
+        if (autores.equals(autoresExibidos)) {
+            return;
+        }
+        autoresExibidos = autores;
+        // Só vale a pena filtrar quando há mais de um autor.
+        binding.scrollFiltroAutores.setVisibility(autores.size() > 1 ? View.VISIBLE : View.GONE);
+
+        String filtro = viewModel.getFiltroAutor();
+        binding.chipGroupAutores.removeAllViews();
+        Chip chipTodos = criarChip("Todos", null);
+        binding.chipGroupAutores.addView(chipTodos);
+        Chip chipMarcado = chipTodos;
+        for (String autor : autores) {
+            Chip chip = criarChip(autor, autor);
+            binding.chipGroupAutores.addView(chip);
+            if (autor.equals(filtro)) {
+                chipMarcado = chip;
+            }
+        }
+        chipMarcado.setChecked(true);
+    }
+
+    private Chip criarChip(String texto, String autor) {
+        Chip chip = new Chip(requireContext());
+        chip.setId(View.generateViewId());
+        chip.setText(texto);
+        chip.setTag(autor);
+        chip.setCheckable(true);
+        return chip;
+    }
+
+    /**
+     * Configura os observadores nos LiveData de favoritas agrupadas e de autores do ViewModel.
      * A UI reagirá automaticamente a quaisquer alterações na lista de favoritos
-     * (adição ou remoção de itens).
+     * (adição ou remoção de itens) e ao filtro de autor escolhido.
      */
     private void observeViewModel() {
-        // Observa o LiveData que contém a lista de mensagens favoritas.
+        viewModel.getAutoresFavoritos().observe(getViewLifecycleOwner(), this::atualizarChipsAutores);
+
+        // Observa o LiveData que contém a lista seccionada de favoritas.
         // O código dentro do lambda será executado sempre que a lista for atualizada.
-        viewModel.getMensagensFavoritas().observe(getViewLifecycleOwner(), favoritas -> {
+        viewModel.getFavoritasAgrupadas().observe(getViewLifecycleOwner(), favoritas -> {
+            boolean possuia = possuiFavoritas;
+            possuiFavoritas = favoritas != null && !favoritas.isEmpty();
+            if (possuia != possuiFavoritas) {
+                requireActivity().invalidateMenu();
+            }
             // Verifica se a lista de favoritos está vazia.
             if (favoritas != null && favoritas.isEmpty()) {
                 // Se estiver vazia, exibe uma mensagem informativa e oculta o RecyclerView.
+                atualizarTextoListaVazia();
                 binding.tvListaVazia.setVisibility(View.VISIBLE);
                 binding.recyclerViewFavoritas.setVisibility(View.GONE);
+                // Sem favoritas não há perfil para recomendar.
+                binding.fabRecomendadas.setVisibility(View.GONE);
             } else {
                 // Se houver favoritos, oculta a mensagem de lista vazia e exibe o RecyclerView.
                 binding.tvListaVazia.setVisibility(View.GONE);
                 binding.recyclerViewFavoritas.setVisibility(View.VISIBLE);
-                // Atualiza o adapter com a nova lista de mensagens favoritas.
-                adapter.setMensagens(favoritas);
+                binding.fabRecomendadas.setVisibility(View.VISIBLE);
+                // Atualiza o adapter com a nova lista de favoritas, já agrupada por autor.
+                adapter.setItens(favoritas);
             }
         });
+        viewModel.getFavoritasIndisponiveis().observe(getViewLifecycleOwner(), indisponiveis -> atualizarTextoListaVazia());
+    }
+
+    /**
+     * Ajusta o texto da lista vazia: sem favoritas, ou o app Gerador não respondeu
+     * (e não há lista anterior para exibir).
+     */
+    private void atualizarTextoListaVazia() {
+        boolean indisponiveis = Boolean.TRUE.equals(viewModel.getFavoritasIndisponiveis().getValue());
+        binding.tvListaVazia.setText(indisponiveis
+                ? "O app Gerador não está respondendo. Tente novamente em instantes."
+                : "Nenhuma mensagem favorita encontrada. 😕");
+    }
+
+    /**
+     * Abre, atualiza ou fecha a barra de ações da seleção múltipla conforme a quantidade selecionada.
+     *
+     * @param quantidade Quantas mensagens estão selecionadas.
+     */
+    private void atualizarModoSelecao(int quantidade) {
+        if (quantidade == 0) {
+            if (modoSelecao != null) {
+                modoSelecao.finish();
+            }
+            return;
+        }
+        if (modoSelecao == null) {
+            modoSelecao = ((AppCompatActivity) requireActivity()).startSupportActionMode(callbackModoSelecao);
+        }
+        if (modoSelecao != null) {
+            modoSelecao.setTitle(quantidade == 1 ? "1 selecionada" : quantidade + " selecionadas");
+        }
+    }
+
+    /**
+     * Pede confirmação e remove das favoritas todas as mensagens do autor.
+     *
+     * @param autor O autor do cabeçalho tocado.
+     */
+    private void confirmarRemoverAutor(String autor) {
+        new MaterialAlertDialogBuilder(requireContext())
+                .setTitle("Remover favoritas")
+                .setMessage("Remover todas as mensagens de " + autor + " das favoritas?")
+                .setPositiveButton("Remover", (dialogo, botao) ->
+                        viewModel.removerFavoritasDoAutor(autor, this::informarResultado))
+                .setNegativeButton("Cancelar", null)
+                .show();
+    }
+
+    /** Pede confirmação e remove todas as mensagens das favoritas. */
+    private void confirmarLimparFavoritas() {
+        new MaterialAlertDialogBuilder(requireContext())
+                .setTitle("Limpar favoritas")
+                .setMessage("Remover todas as mensagens das favoritas?")
+                .setPositiveButton("Limpar", (dialogo, botao) -> {
+                    if (modoSelecao != null) {
+                        modoSelecao.finish();
+                    }
+                    viewModel.limparFavoritas(this::informarResultado);
+                })
+                .setNegativeButton("Cancelar", null)
+                .show();
+    }
+
+    /**
+     * Informa ao usuário quantas favoritas foram removidas e quanto tempo a operação levou.
+     *
+     * @param resultado O resultado da operação em lote.
+     */
+    private void informarResultado(ResultadoOperacaoEmLote resultado) {
+        if (!isAdded()) {
+            return;
+        }
+        String texto = resultado.isConcluida()
+                ? String.format(Locale.getDefault(), "%d removida(s) das favoritas em %.0f ms.",
+                        resultado.getLinhasAfetadas(), resultado.getDuracaoMs())
+                : "Não foi possível remover todas as favoritas. Tente novamente.";
+        Toast.makeText(getContext(), texto, Toast.LENGTH_SHORT).show();
+    }
+
+    /**
+     * Busca mensagens parecidas com o conjunto das favoritas e as apresenta em um diálogo.
+     * A escolhida é aberta na tela de mensagem.
+     */
+    private void exibirRecomendadas() {
+        viewModel.recomendarPelasFavoritas(recomendadas ->
+                DialogoRecomendacoes.exibir(this, "Recomendadas para você", recomendadas,
+                        viewModel.getMensagensForaDasRecomendacoes(), this::abrirMensagem));
+    }
+
+    /**
+     * Exibe a mensagem na tela de mensagem, voltando a ela em vez de empilhar uma nova cópia.
+     *
+     * @param mensagem A mensagem escolhida.
+     */
+    private void abrirMensagem(Mensagem mensagem) {
+        viewModel.exibirMensagem(mensagem);
+        NavHostFragment.findNavController(this).navigate(R.id.fragmentoExibirMensagem, null,
+                new NavOptions.Builder()
+                        .setLaunchSingleTop(true)
+                        .setPopUpTo(R.id.fragmentoExibirMensagem, true)
+                        .build());
+    }
+
+    /**
+     * Gera o cartão da mensagem e abre o seletor de apps para compartilhá-lo.
+     *
+     * @param mensagem A mensagem a ser compartilhada.
+     */
+    private void compartilharComoImagem(Mensagem mensagem) {
+        CompartilhamentoCartao.compartilhar(this, mensagem, viewModel::renderizarCartaoCompartilhamento);
     }
 
     /**
@@ -110,6 +384,12 @@ public class FragmentoListarFavoritas extends Fragment {
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        // A seleção pertence à view; a barra de ações não deve sobreviver a ela.
+        if (modoSelecao != null) {
+            modoSelecao.finish();
+        }
         binding = null;
+        // Os chips são destruídos junto com a view; devem ser recriados na próxima.
+        autoresExibidos = new ArrayList<>();
     }
 }
\ No newline at end of file
@@ -0,0 +1,374 @@
+package com.example.contentproviderconsumidor.ui.viewmodel;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Escalonador das tarefas de fundo do {@link MensagemConsumidorViewModel}, com duas filas
+ * independentes:
+ * <ul>
+ *     <li><b>Leituras</b>: rodam em um pool limitado de threads, em paralelo. A fila é ordenada por
+ *     {@link Prioridade}: o que o usuário pediu passa na frente das atualizações em segundo plano
+ *     (na mesma prioridade, vale a ordem de chegada).</li>
+ *     <li><b>Escritas</b>: rodam em um pool próprio, de forma que nunca esperam atrás de uma leitura
+ *     lenta. Escritas com a mesma chave (o ID da mensagem) são executadas uma de cada vez, na ordem
+ *     em que foram pedidas; escritas de chaves diferentes podem rodar em paralelo. Uma escrita
+ *     {@linkplain #executarEscritaExclusiva exclusiva} (ex.: uma operação em lote, que altera muitas
+ *     chaves de uma vez) é uma barreira: espera terminarem as escritas pedidas antes dela, e as
+ *     pedidas depois esperam ela terminar.</li>
+ * </ul>
+ * O tamanho das filas e o tempo de espera de cada tipo de tarefa ficam disponíveis em
+ * {@link #getMetricas()} e são enviados ao {@link OuvinteMetricas}, no máximo a cada
+ * {@link #INTERVALO_NOTIFICACAO_MS}.
+ */
+public class EscalonadorTarefas {
+
+    private static final String TAG = "EscalonadorTarefas";
+
+    /** Intervalo mínimo entre duas notificações de métricas ao ouvinte. */
+    private static final long INTERVALO_NOTIFICACAO_MS = 250;
+
+    /** A prioridade de uma leitura. */
+    public enum Prioridade {
+        /** Trabalho que o usuário está esperando na tela. */
+        USUARIO,
+        /** Recargas e pré-carregamentos que ninguém está esperando. */
+        SEGUNDO_PLANO
+    }
+
+    /** Recebe um novo retrato das métricas depois que as tarefas terminam. */
+    public interface OuvinteMetricas {
+        void onMetricasAtualizadas(@NonNull MetricasEscalonador metricas);
+    }
+
+    private final ThreadPoolExecutor poolLeitura;
+    private final ThreadPoolExecutor poolEscrita;
+
+    /**
+     * Escritas aguardando a escrita em andamento da mesma chave. Uma chave presente no mapa tem
+     * uma escrita em andamento (ou já entregue ao pool); a fila guarda as seguintes.
+     */
+    private final Map<Long, ArrayDeque<TarefaEscrita>> escritasPorChave = new HashMap<>();
+
+    /**
+     * Escritas retidas por uma escrita exclusiva, na ordem de chegada: a própria exclusiva (que
+     * espera as chaves em andamento terminarem) e tudo o que foi pedido depois dela. Protegida,
+     * como {@link #exclusivaEmAndamento}, pela trava de {@link #escritasPorChave}.
+     */
+    private final ArrayDeque<TarefaEscrita> retidasPelaBarreira = new ArrayDeque<>();
+
+    /** Indica se há uma escrita exclusiva em andamento (ou já entregue ao pool). */
+    private boolean exclusivaEmAndamento;
+
+    /** Ordem de chegada das leituras, para desempate dentro da mesma prioridade. */
+    private final AtomicLong sequencia = new AtomicLong();
+
+    private final EstatisticaFila leiturasUsuario = new EstatisticaFila();
+    private final EstatisticaFila leiturasSegundoPlano = new EstatisticaFila();
+    private final EstatisticaFila escritas = new EstatisticaFila();
+
+    private final AtomicLong ultimaNotificacaoMs = new AtomicLong();
+    private volatile OuvinteMetricas ouvinte;
+
+    /**
+     * @param threadsLeitura Quantidade máxima de leituras simultâneas.
+     * @param threadsEscrita Quantidade máxima de escritas simultâneas (de chaves diferentes).
+     */
+    public EscalonadorTarefas(int threadsLeitura, int threadsEscrita) {
+        this(criarPool(threadsLeitura, new PriorityBlockingQueue<>()),
+                criarPool(threadsEscrita, new LinkedBlockingQueue<>()));
+    }
+
+    /**
+     * Usa pools fornecidos por quem chama, para que os testes possam observar as tarefas (ex.:
+     * esperar o escalonador ficar ocioso) sem custo algum nas tarefas de produção. Basta observar
+     * os pools: uma escrita retida (pela chave ou pela barreira) só existe enquanto outra escrita
+     * está no pool, e uma tarefa que pede outra a entrega antes de terminar.
+     *
+     * @param poolLeitura O pool das leituras; a fila precisa ser uma {@link PriorityBlockingQueue}.
+     * @param poolEscrita O pool das escritas.
+     */
+    @VisibleForTesting
+    EscalonadorTarefas(ThreadPoolExecutor poolLeitura, ThreadPoolExecutor poolEscrita) {
+        this.poolLeitura = poolLeitura;
+        this.poolEscrita = poolEscrita;
+    }
+
+    public void setOuvinte(OuvinteMetricas ouvinte) {
+        this.ouvinte = ouvinte;
+    }
+
+    /**
+     * Agenda uma leitura.
+     *
+     * @param prioridade A prioridade da leitura.
+     * @param tarefa A tarefa a ser executada.
+     */
+    public void executarLeitura(Prioridade prioridade, Runnable tarefa) {
+        EstatisticaFila estatistica = prioridade == Prioridade.USUARIO ? leiturasUsuario : leiturasSegundoPlano;
+        estatistica.enfileirada();
+        // execute (e não submit): o submit embrulharia a tarefa em um FutureTask, que não é Comparable.
+        poolLeitura.execute(new TarefaLeitura(prioridade, sequencia.getAndIncrement(), tarefa, estatistica));
+    }
+
+    /**
+     * Agenda uma escrita. Escritas com a mesma chave rodam uma de cada vez, na ordem de chegada.
+     *
+     * @param chave A chave que serializa as escritas (ex.: o ID da mensagem alterada).
+     * @param tarefa A tarefa a ser executada.
+     */
+    public void executarEscrita(long chave, Runnable tarefa) {
+        escritas.enfileirada();
+        TarefaEscrita escrita = new TarefaEscrita(chave, false, tarefa);
+        synchronized (escritasPorChave) {
+            if (exclusivaEmAndamento || !retidasPelaBarreira.isEmpty()) {
+                // Uma escrita exclusiva foi pedida antes desta; esta roda depois dela.
+                retidasPelaBarreira.addLast(escrita);
+                return;
+            }
+            if (!admitirPorChave(escrita)) {
+                return;
+            }
+        }
+        poolEscrita.execute(escrita);
+    }
+
+    /**
+     * Agenda uma escrita exclusiva, que não roda junto com nenhuma outra escrita: ela espera as
+     * escritas já pedidas (de qualquer chave) terminarem, e as escritas pedidas depois dela só
+     * começam quando ela terminar. Escritas exclusivas rodam uma de cada vez, na ordem de chegada.
+     *
+     * @param tarefa A tarefa a ser executada (ex.: uma operação em lote sobre várias mensagens).
+     */
+    public void executarEscritaExclusiva(Runnable tarefa) {
+        escritas.enfileirada();
+        TarefaEscrita escrita = new TarefaEscrita(0, true, tarefa);
+        synchronized (escritasPorChave) {
+            if (exclusivaEmAndamento || !retidasPelaBarreira.isEmpty() || !escritasPorChave.isEmpty()) {
+                retidasPelaBarreira.addLast(escrita);
+                return;
+            }
+            exclusivaEmAndamento = true;
+        }
+        poolEscrita.execute(escrita);
+    }
+
+    /** @return Um retrato atual das filas e dos tempos de espera. */
+    public MetricasEscalonador getMetricas() {
+        return new MetricasEscalonador(
+                leiturasUsuario.retrato(), leiturasSegundoPlano.retrato(), escritas.retrato(),
+                poolLeitura.getActiveCount(), poolEscrita.getActiveCount());
+    }
+
+    /** Encerra os pools. Tarefas já enfileiradas ainda são executadas; novas são recusadas. */
+    public void encerrar() {
+        poolLeitura.shutdown();
+        poolEscrita.shutdown();
+    }
+
+    // --- Métodos Privados ---
+
+    private static ThreadPoolExecutor criarPool(int threads, BlockingQueue<Runnable> fila) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, fila);
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Registra a escrita na fila da sua chave. Deve ser chamado com a trava de {@link #escritasPorChave}.
+     *
+     * @return true se a chave estava livre e a escrita deve ser entregue ao pool agora.
+     */
+    private boolean admitirPorChave(TarefaEscrita escrita) {
+        ArrayDeque<TarefaEscrita> pendentes = escritasPorChave.get(escrita.chave);
+        if (pendentes != null) {
+            // Já há uma escrita desta chave em andamento; esta roda quando ela terminar.
+            pendentes.addLast(escrita);
+            return false;
+        }
+        escritasPorChave.put(escrita.chave, new ArrayDeque<>());
+        return true;
+    }
+
+    /**
+     * Entrega ao pool a próxima escrita da chave, se houver, ou libera a chave. Se era a última
+     * chave em andamento, libera a escrita exclusiva que estava esperando.
+     */
+    private void liberarChave(long chave) {
+        List<TarefaEscrita> liberadas = new ArrayList<>();
+        synchronized (escritasPorChave) {
+            ArrayDeque<TarefaEscrita> pendentes = escritasPorChave.get(chave);
+            TarefaEscrita proxima = pendentes != null ? pendentes.pollFirst() : null;
+            if (proxima != null) {
+                liberadas.add(proxima);
+            } else {
+                escritasPorChave.remove(chave);
+                liberarRetidas(liberadas);
+            }
+        }
+        entregar(liberadas);
+    }
+
+    /** Encerra a escrita exclusiva em andamento e libera as escritas retidas por ela. */
+    private void liberarBarreira() {
+        List<TarefaEscrita> liberadas = new ArrayList<>();
+        synchronized (escritasPorChave) {
+            exclusivaEmAndamento = false;
+            liberarRetidas(liberadas);
+        }
+        entregar(liberadas);
+    }
+
+    /**
+     * Tira de {@link #retidasPelaBarreira}, em ordem, as escritas que já podem rodar: as escritas
+     * por chave até a próxima exclusiva, e essa exclusiva apenas quando não houver mais nenhuma
+     * escrita em andamento. Deve ser chamado com a trava de {@link #escritasPorChave}.
+     *
+     * @param liberadas Recebe as escritas a serem entregues ao pool.
+     */
+    private void liberarRetidas(List<TarefaEscrita> liberadas) {
+        while (!exclusivaEmAndamento && !retidasPelaBarreira.isEmpty()) {
+            TarefaEscrita proxima = retidasPelaBarreira.peekFirst();
+            if (proxima.exclusiva) {
+                if (escritasPorChave.isEmpty()) {
+                    retidasPelaBarreira.pollFirst();
+                    exclusivaEmAndamento = true;
+                    liberadas.add(proxima);
+                }
+                return;
+            }
+            retidasPelaBarreira.pollFirst();
+            if (admitirPorChave(proxima)) {
+                liberadas.add(proxima);
+            }
+        }
+    }
+
+    private void entregar(List<TarefaEscrita> liberadas) {
+        for (TarefaEscrita escrita : liberadas) {
+            try {
+                poolEscrita.execute(escrita);
+            } catch (RejectedExecutionException e) {
+                // O escalonador foi encerrado (o ViewModel foi destruído): as escritas restantes são descartadas.
+                Log.w(TAG, "Escrita descartada após o encerramento"
+                        + (escrita.exclusiva ? " (exclusiva)" : " para a chave " + escrita.chave));
+            }
+        }
+    }
+
+    private void notificarMetricas() {
+        OuvinteMetricas atual = ouvinte;
+        if (atual == null) {
+            return;
+        }
+        long agora = System.nanoTime() / 1_000_000L;
+        long ultima = ultimaNotificacaoMs.get();
+        if (agora - ultima >= INTERVALO_NOTIFICACAO_MS && ultimaNotificacaoMs.compareAndSet(ultima, agora)) {
+            atual.onMetricasAtualizadas(getMetricas());
+        }
+    }
+
+    /** Uma leitura na fila de prioridade. */
+    private final class TarefaLeitura implements Runnable, Comparable<TarefaLeitura> {
+        private final Prioridade prioridade;
+        private final long ordem;
+        private final Runnable tarefa;
+        private final EstatisticaFila estatistica;
+        private final long enfileiradaEmNanos = System.nanoTime();
+
+        TarefaLeitura(Prioridade prioridade, long ordem, Runnable tarefa, EstatisticaFila estatistica) {
+            this.prioridade = prioridade;
+            this.ordem = ordem;
+            this.tarefa = tarefa;
+            this.estatistica = estatistica;
+        }
+
+        @Override
+        public void run() {
+            estatistica.iniciada(System.nanoTime() - enfileiradaEmNanos);
+            try {
+                tarefa.run();
+            } finally {
+                notificarMetricas();
+            }
+        }
+
+        @Override
+        public int compareTo(TarefaLeitura outra) {
+            int porPrioridade = prioridade.compareTo(outra.prioridade);
+            return porPrioridade != 0 ? porPrioridade : Long.compare(ordem, outra.ordem);
+        }
+    }
+
+    /**
+     * Uma escrita; ao terminar, libera a próxima escrita da mesma chave (ou, se for exclusiva,
+     * as escritas retidas por ela).
+     */
+    private final class TarefaEscrita implements Runnable {
+        private final long chave;
+        private final boolean exclusiva;
+        private final Runnable tarefa;
+        private final long enfileiradaEmNanos = System.nanoTime();
+
+        TarefaEscrita(long chave, boolean exclusiva, Runnable tarefa) {
+            this.chave = chave;
+            this.exclusiva = exclusiva;
+            this.tarefa = tarefa;
+        }
+
+        @Override
+        public void run() {
+            escritas.iniciada(System.nanoTime() - enfileiradaEmNanos);
+            try {
+                tarefa.run();
+            } finally {
+                if (exclusiva) {
+                    liberarBarreira();
+                } else {
+                    liberarChave(chave);
+                }
+                notificarMetricas();
+            }
+        }
+    }
+
+    /** Contadores de uma fila: tarefas aguardando, iniciadas e tempos de espera. */
+    private static final class EstatisticaFila {
+        private int naFila;
+        private long iniciadas;
+        private long somaEsperaNanos;
+        private long maiorEsperaNanos;
+
+        synchronized void enfileirada() {
+            naFila++;
+        }
+
+        synchronized void iniciada(long esperaNanos) {
+            naFila--;
+            iniciadas++;
+            somaEsperaNanos += esperaNanos;
+            maiorEsperaNanos = Math.max(maiorEsperaNanos, esperaNanos);
+        }
+
+        synchronized MetricasEscalonador.Fila retrato() {
+            double mediaMs = iniciadas == 0 ? 0 : somaEsperaNanos / 1e6 / iniciadas;
+            return new MetricasEscalonador.Fila(naFila, iniciadas, mediaMs, maiorEsperaNanos / 1e6);
+        }
+    }
+}
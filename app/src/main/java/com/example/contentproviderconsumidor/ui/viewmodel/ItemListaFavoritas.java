@@ -0,0 +1,70 @@
+package com.example.contentproviderconsumidor.ui.viewmodel;
+
+import com.example.contentproviderconsumidor.data.model.Mensagem;
+
+/**
+ * Um item da lista seccionada de favoritas: ou o cabeçalho de uma seção (o autor),
+ * ou uma mensagem daquela seção. A lista é montada pelo ViewModel, fora da thread principal,
+ * e apenas exibida pelo adapter da tela de favoritas.
+ */
+public class ItemListaFavoritas {
+
+    /** Tipo de view do cabeçalho de seção. */
+    public static final int TIPO_CABECALHO = 0;
+
+    /** Tipo de view de uma mensagem. */
+    public static final int TIPO_MENSAGEM = 1;
+
+    private final int tipo;
+
+    /** Nome do autor (usado pelos cabeçalhos). */
+    private final String autor;
+
+    /** Quantidade de mensagens na seção (usado pelos cabeçalhos). */
+    private final int quantidade;
+
+    /** A mensagem (usado pelos itens de mensagem). */
+    private final Mensagem mensagem;
+
+    private ItemListaFavoritas(int tipo, String autor, int quantidade, Mensagem mensagem) {
+        this.tipo = tipo;
+        this.autor = autor;
+        this.quantidade = quantidade;
+        this.mensagem = mensagem;
+    }
+
+    /**
+     * Cria o cabeçalho de uma seção.
+     *
+     * @param autor O autor da seção.
+     * @param quantidade Quantas mensagens a seção contém.
+     */
+    public static ItemListaFavoritas cabecalho(String autor, int quantidade) {
+        return new ItemListaFavoritas(TIPO_CABECALHO, autor, quantidade, null);
+    }
+
+    /**
+     * Cria o item de uma mensagem.
+     *
+     * @param mensagem A mensagem a ser exibida.
+     */
+    public static ItemListaFavoritas mensagem(Mensagem mensagem) {
+        return new ItemListaFavoritas(TIPO_MENSAGEM, mensagem.getAutor(), 0, mensagem);
+    }
+
+    public int getTipo() {
+        return tipo;
+    }
+
+    public String getAutor() {
+        return autor;
+    }
+
+    public int getQuantidade() {
+        return quantidade;
+    }
+
+    public Mensagem getMensagem() {
+        return mensagem;
+    }
+}
@@ -1,22 +1,55 @@
 package com.example.contentproviderconsumidor.ui.viewmodel;
 
 import android.app.Application;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
+import android.content.ContentUris;
 import android.content.ContentValues;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteException;
 import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
 import com.example.contentproviderconsumidor.data.db.MensagemContract;
+import com.example.contentproviderconsumidor.data.indice.IndiceDeduplicacao;
+import com.example.contentproviderconsumidor.data.indice.IndiceFacetasAutor;
+import com.example.contentproviderconsumidor.data.indice.IndiceSimilaridade;
+import com.example.contentproviderconsumidor.data.memoria.CacheLruGerenciado;
+import com.example.contentproviderconsumidor.data.memoria.GerenciadorMemoria;
+import com.example.contentproviderconsumidor.data.memoria.MetricasMemoria;
+import com.example.contentproviderconsumidor.data.memoria.NivelDescarte;
+import com.example.contentproviderconsumidor.data.model.ListaMensagensCompacta;
 import com.example.contentproviderconsumidor.data.model.Mensagem;
+import com.example.contentproviderconsumidor.data.provedor.ClienteProvedorProtegido;
+import com.example.contentproviderconsumidor.data.provedor.DisjuntorCircuito;
+import com.example.contentproviderconsumidor.data.provedor.MetricasProvedor;
+import com.example.contentproviderconsumidor.data.provedor.ProvedorIndisponivelException;
+import com.example.contentproviderconsumidor.ui.compartilhamento.RenderizadorCartaoMensagem;
+import com.example.contentproviderconsumidor.ui.compartilhamento.TemaCartao;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
 
 /**
  * ViewModel para a tela de consumo de mensagens.
@@ -29,6 +62,109 @@ import java.util.concurrent.Executors;
  */
 public class MensagemConsumidorViewModel extends AndroidViewModel {
 
+    private static final String TAG = "MensagemViewModel";
+
+    /** Limite flexível, em bytes, do cache de textos completos buscados por ID. */
+    private static final int TAMANHO_CACHE_TEXTOS = 512 * 1024;
+
+    /**
+     * Limite flexível mínimo, em bytes, do cache de contingência (último resultado bom de cada
+     * lista). O limite efetivo é {@link #FRACAO_ORCAMENTO_CONTINGENCIA} do orçamento de memória, se
+     * for maior. As listas ficam guardadas compactas ({@link ListaMensagensCompacta}), mas um
+     * catálogo maior que o limite ainda assim não fica guardado: sem provedor, o sorteio espera
+     * (e o cliente do provedor registra no log que a lista não coube).
+     */
+    private static final int TAMANHO_CACHE_CONTINGENCIA = 8 * 1024 * 1024;
+
+    /** Fração do orçamento de memória que o cache de contingência pode ocupar. */
+    private static final int FRACAO_ORCAMENTO_CONTINGENCIA = 2;
+
+    /**
+     * Fração do orçamento de memória reservada ao índice de similaridade. O índice não é reduzido
+     * pela verificação de limites, mas a sua memória conta no orçamento: os demais caches cedem
+     * espaço para ele. Mensagens que não cabem nessa parte ficam fora das recomendações
+     * (veja {@link #getMensagensForaDasRecomendacoes()}).
+     */
+    private static final int FRACAO_ORCAMENTO_SIMILARIDADE = 3;
+
+    /** Custo aproximado, em bytes, de um objeto {@link Mensagem} além dos caracteres das Strings. */
+    private static final int BYTES_POR_MENSAGEM = 96;
+
+    /** Prazo máximo, em milissegundos, das consultas pontuais ao ContentProvider do app Gerador. */
+    private static final long PRAZO_PROVEDOR_MS = 2_000;
+
+    /**
+     * Prazo mínimo, em milissegundos, das consultas de listas (catálogo, favoritas). Elas leem um
+     * número de linhas sem limite, então o prazo cresce com o tamanho do último catálogo lido
+     * ({@link #MICROS_POR_LINHA_VARREDURA} por linha): um catálogo de um milhão de linhas não pode
+     * estourar o prazo, e abrir o disjuntor, só por ser grande.
+     */
+    private static final long PRAZO_VARREDURA_MINIMO_MS = 10_000;
+
+    /** Prazo adicional de uma consulta de lista, em microssegundos, por linha do catálogo. */
+    private static final long MICROS_POR_LINHA_VARREDURA = 20;
+
+    /**
+     * Prazo, em milissegundos, das escritas. Uma escrita não pode ser cancelada no meio do IPC e
+     * pode ser gravada mesmo depois de o prazo estourar; o prazo longo só evita prender a fila de
+     * escritas para sempre em um provedor travado. Depois de uma escrita que falhou, as favoritas
+     * são relidas do provedor, porque não se sabe se ela foi gravada.
+     */
+    private static final long PRAZO_ESCRITA_MS = 30_000;
+
+    /** Falhas ou prazos estourados seguidos que abrem o disjuntor do provedor. */
+    private static final int LIMIAR_FALHAS_PROVEDOR = 3;
+
+    /** Tempo que o disjuntor fica aberto antes de testar o provedor de novo. */
+    private static final long TEMPO_DISJUNTOR_ABERTO_MS = 5_000;
+
+    /** Chaves do cache de contingência (último resultado bom) de cada consulta de lista. */
+    private static final String CACHE_CATALOGO = "catalogo";
+    private static final String CACHE_FAVORITAS = "favoritas";
+
+    /**
+     * Leituras simultâneas. Poucas: o gargalo é o provedor, do outro lado do IPC, e cada
+     * leitura do catálogo ocupa memória proporcional ao número de linhas.
+     */
+    private static final int THREADS_LEITURA =
+            Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
+    /** Escritas simultâneas (sempre de mensagens diferentes). */
+    private static final int THREADS_ESCRITA = 2;
+
+    /** Quantidade de mensagens sugeridas em "mais como esta" e nas recomendações das favoritas. */
+    private static final int QUANTIDADE_RECOMENDACOES = 10;
+
+    /**
+     * Quantos resultados pedir ao índice de similaridade para cada recomendação entregue: sobra
+     * margem para descartar duplicatas e mensagens que sumiram do provedor.
+     */
+    private static final int FATOR_CANDIDATOS_RECOMENDACAO = 3;
+
+    /**
+     * Máximo de IDs por chamada nas operações em lote. Fica abaixo do limite de 999 argumentos
+     * por comando das versões mais antigas do SQLite, que o provedor pode estar usando.
+     */
+    private static final int MAX_IDS_POR_CHAMADA = 900;
+
+    /**
+     * Recebe, na thread principal, o resultado de uma operação em lote sobre as favoritas.
+     */
+    public interface CallbackOperacaoEmLote {
+        void onConcluida(@NonNull ResultadoOperacaoEmLote resultado);
+    }
+
+    /**
+     * Recebe, na thread principal, as mensagens recomendadas.
+     */
+    public interface CallbackRecomendacoes {
+        /**
+         * @param mensagens As mensagens recomendadas, da mais para a menos parecida; vazia se não
+         *                  houver nenhuma parecida ou se o provedor estiver indisponível.
+         */
+        void onRecomendacoes(@NonNull List<Mensagem> mensagens);
+    }
+
     /** LiveData que expõe a mensagem aleatória atual para a UI. */
     private final MutableLiveData<Mensagem> mensagemAleatoria = new MutableLiveData<>();
 
@@ -36,16 +172,185 @@ public class MensagemConsumidorViewModel extends AndroidViewModel {
     private final MutableLiveData<List<Mensagem>> mensagensFavoritas = new MutableLiveData<>();
 
     /**
-     * Executor que roda em uma única thread para realizar todas as operações de banco de dados
-     * (via ContentResolver) fora da thread principal, evitando o congelamento da UI.
+     * Indica que o catálogo não pôde ser lido e não há nenhum anterior em cache: a tela principal
+     * diz que o app Gerador não respondeu, em vez de dizer que não há mensagens cadastradas.
+     */
+    private final MutableLiveData<Boolean> catalogoIndisponivel = new MutableLiveData<>(false);
+
+    /** Como {@link #catalogoIndisponivel}, para a lista de favoritas. */
+    private final MutableLiveData<Boolean> favoritasIndisponiveis = new MutableLiveData<>(false);
+
+    /** LiveData que expõe as favoritas agrupadas por autor (cabeçalhos e mensagens), já filtradas. */
+    private final MutableLiveData<List<ItemListaFavoritas>> favoritasAgrupadas = new MutableLiveData<>();
+
+    /** LiveData que expõe, em ordem alfabética, os autores que têm ao menos uma favorita. */
+    private final MutableLiveData<List<String>> autoresFavoritos = new MutableLiveData<>();
+
+    /** LiveData que expõe as métricas do acesso ao provedor (estado do disjuntor e contingências). */
+    private final MutableLiveData<MetricasProvedor> metricasProvedor = new MutableLiveData<>();
+
+    /** LiveData que expõe o tamanho das filas de leitura e escrita e os tempos de espera. */
+    private final MutableLiveData<MetricasEscalonador> metricasEscalonador = new MutableLiveData<>();
+
+    /**
+     * Realiza todas as operações de banco de dados (via ContentResolver) fora da thread principal,
+     * evitando o congelamento da UI. Leituras rodam em paralelo, com prioridade para o que o
+     * usuário pediu; escritas têm threads próprias e são serializadas por ID de mensagem, de forma
+     * que marcar uma favorita não espera uma leitura lenta do catálogo.
      */
-    private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+    private final EscalonadorTarefas escalonador;
+
+    /**
+     * Numeram as leituras na ordem em que começam. Como as leituras agora rodam em paralelo, uma
+     * leitura mais antiga pode terminar depois de uma mais nova; só é publicado o resultado de
+     * uma leitura mais nova que a última publicada, para que a UI nunca volte a um estado velho.
+     */
+    private final AtomicLong sequenciaLeituras = new AtomicLong();
+
+    /** Número da última leitura de favoritas publicada. Protegido por {@link #travaFavoritas}. */
+    private long ultimaLeituraFavoritasPublicada;
+
+    /** Número do último sorteio publicado. Protegido por {@link #travaSorteio}. */
+    private long ultimoSorteioPublicado;
+
+    /**
+     * A última mensagem publicada em {@link #mensagemAleatoria}. Protegida por {@link #travaSorteio}.
+     * Ao contrário de {@code getValue()}, já inclui um valor enviado por postValue e ainda não entregue.
+     */
+    private Mensagem mensagemPublicada;
+
+    /**
+     * Última lista de favoritas publicada em {@link #mensagensFavoritas}, para leitura nas threads
+     * de fundo: o {@code getValue()} do LiveData só é seguro na thread principal e, depois de um
+     * {@code postValue}, continua devolvendo o valor antigo até a thread principal processá-lo.
+     * Só é escrita com {@link #travaFavoritas}.
+     */
+    private volatile List<Mensagem> favoritasPublicadas;
+
+    /** Serializa a publicação das favoritas e o acesso ao índice por autor. */
+    private final Object travaFavoritas = new Object();
+
+    /** Serializa a publicação da mensagem sorteada. */
+    private final Object travaSorteio = new Object();
 
     /**
      * Armazena o ID da última mensagem exibida para evitar repetições consecutivas
      * ao buscar uma nova mensagem aleatória.
      */
-    private static long ultimaMensagemId = -1;
+    private static volatile long ultimaMensagemId = -1;
+
+    /**
+     * Renderizador dos cartões de compartilhamento. Fica no ViewModel para que o cache de
+     * cartões e o pool de bitmaps sejam compartilhados entre os fragments e sobrevivam
+     * a mudanças de configuração.
+     */
+    private final RenderizadorCartaoMensagem renderizadorCartao;
+
+    /**
+     * Índice de mensagens equivalentes (mesmo texto e autor, a menos de espaços, pontuação,
+     * caixa e acentos). É alimentado à medida que as linhas são lidas dos Cursors e usado para
+     * que duplicatas do provedor apareçam uma única vez no sorteio e na lista de favoritas.
+     */
+    private final IndiceDeduplicacao indiceDeduplicacao = new IndiceDeduplicacao();
+
+    /**
+     * Índice das favoritas por autor, com as chaves de ordenação pré-calculadas.
+     * É atualizado incrementalmente a cada recarga da lista de favoritas.
+     */
+    private final IndiceFacetasAutor indiceFacetasAutor = new IndiceFacetasAutor();
+
+    /**
+     * Índice TF-IDF dos textos do catálogo, usado em "mais como esta" e nas recomendações a
+     * partir das favoritas. É sincronizado em segundo plano a cada varredura do catálogo
+     * (apenas o que mudou é reindexado) e indexa o prefixo que as listas leem, não o texto inteiro.
+     * Fica fora do orçamento de memória: o seu limite é igual ao orçamento e só é aplicado enquanto
+     * ele cresce, para que não seja descartado e refeito a cada verificação de limites.
+     */
+    private final IndiceSimilaridade indiceSimilaridade;
+
+    /**
+     * Último catálogo lido que ainda não foi aplicado ao {@link #indiceSimilaridade}. Varreduras
+     * seguidas, antes de a sincronização rodar, resultam em uma só (com o catálogo mais novo).
+     */
+    private final AtomicReference<List<Mensagem>> catalogoParaSimilaridade = new AtomicReference<>();
+
+    /**
+     * Mensagens que ficaram fora do {@link #indiceSimilaridade} na última sincronização, por não
+     * caberem na parte do orçamento reservada a ele.
+     */
+    private volatile int mensagensForaDasRecomendacoes;
+
+    /**
+     * Indica que há uma conferência de duplicatas agendada (veja {@link #agendarVerificacaoDuplicatas()}).
+     * Registros seguidos de prefixos, antes de ela rodar, resultam em uma só.
+     */
+    private final AtomicBoolean verificacaoDuplicatasAgendada = new AtomicBoolean();
+
+    /**
+     * Linhas do último catálogo lido, usadas para calcular o prazo das consultas de listas.
+     * Antes da primeira leitura, vale o {@link #PRAZO_VARREDURA_MINIMO_MS}.
+     */
+    private volatile int linhasUltimoCatalogo;
+
+    /** Handler da thread principal, usado para entregar as recomendações aos callbacks. */
+    private final Handler handlerPrincipal = new Handler(Looper.getMainLooper());
+
+    /** Autor selecionado no filtro da lista de favoritas, ou null para exibir todos. */
+    private volatile String filtroAutor;
+
+    /**
+     * Cache dos textos completos já buscados por ID. As listas leem apenas um prefixo de cada
+     * texto; o texto inteiro só é buscado quando uma mensagem é aberta ou compartilhada.
+     * É a primeira camada de dados do provedor a ser descartada quando falta memória.
+     */
+    private final CacheLruGerenciado<Long, String> cacheTextosCompletos = new CacheLruGerenciado<>(
+            "textosCompletos", NivelDescarte.TEXTO_COMPLETO, TAMANHO_CACHE_TEXTOS,
+            texto -> 2 * texto.length() + 40);
+
+    /** Último resultado bom de cada lista, usado pelo {@link #clienteProvedor} quando o provedor falha. */
+    private final CacheLruGerenciado<String, Object> cacheContingencia = new CacheLruGerenciado<>(
+            "contingencia", NivelDescarte.MENSAGENS, TAMANHO_CACHE_CONTINGENCIA,
+            MensagemConsumidorViewModel::estimarBytes);
+
+    /**
+     * Controla a memória dos caches acima, dos índices de duplicatas e de similaridade e dos
+     * cartões renderizados: aplica os limites e descarta camadas inteiras quando o sistema avisa
+     * que falta memória. Tudo o que é descartado volta a ser lido do provedor na próxima vez em que for necessário.
+     */
+    private final GerenciadorMemoria gerenciadorMemoria;
+
+    /**
+     * Thread única das verificações de limite e dos descartes do {@link #gerenciadorMemoria}.
+     * É separada das filas do {@link #escalonador} para que um aviso de memória crítica não espere
+     * atrás de uma leitura lenta do catálogo (até o prazo da varredura); cada cache descartado só
+     * espera a sua própria trava. Não é encerrada em {@link #onCleared()}, porque tarefas de fundo
+     * ainda em andamento podem pedir uma verificação depois disso; a thread termina sozinha ociosa.
+     */
+    private final ThreadPoolExecutor executorMemoria =
+            new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+
+    /** LiveData que expõe o tamanho dos caches e os descartes feitos pelo {@link #gerenciadorMemoria}. */
+    private final MutableLiveData<MetricasMemoria> metricasMemoria = new MutableLiveData<>();
+
+    /**
+     * Indica se o provedor aceita expressões (substr/length) na projeção. Se recusar uma vez,
+     * as consultas passam a usar {@link MensagemContract.MensagemEntry#PROJECAO_LISTA_SIMPLES}.
+     */
+    private volatile boolean projecaoComPrefixoSuportada = true;
+
+    /**
+     * Indica se o provedor aceita um {@code update} na URI do diretório, com uma seleção.
+     * Se recusar uma vez, as operações em lote passam a usar {@code applyBatch} com a URI de cada linha.
+     */
+    private volatile boolean atualizacaoEmLoteSuportada = true;
+
+    /**
+     * Todas as chamadas ao ContentProvider passam por este cliente, que impõe um prazo a cada
+     * chamada, abre um disjuntor quando o provedor falha seguidamente e, enquanto isso, devolve
+     * o último resultado bom de cada lista. Sem ele, um provedor travado prenderia as threads de
+     * leitura e tudo o que estivesse na fila atrás delas.
+     */
+    private final ClienteProvedorProtegido clienteProvedor;
 
     /**
      * Construtor do ViewModel. Inicia o carregamento dos dados iniciais
@@ -54,10 +359,46 @@ public class MensagemConsumidorViewModel extends AndroidViewModel {
      * @param application A instância da aplicação, fornecida pelo framework.
      */
     public MensagemConsumidorViewModel(@NonNull Application application) {
+        this(application, new EscalonadorTarefas(THREADS_LEITURA, THREADS_ESCRITA));
+    }
+
+    /**
+     * Construtor que recebe o escalonador, para que os testes possam observar as tarefas de fundo
+     * (ex.: esperar todas terminarem) através dos pools dele.
+     *
+     * @param application A instância da aplicação.
+     * @param escalonador O escalonador das tarefas de fundo.
+     */
+    @VisibleForTesting
+    MensagemConsumidorViewModel(@NonNull Application application, @NonNull EscalonadorTarefas escalonador) {
         super(application);
-        // Carrega os dados iniciais para popular a UI assim que ela for criada.
-        carregarMensagemAleatoria();
-        carregarMensagensFavoritas();
+        this.escalonador = escalonador;
+        renderizadorCartao = new RenderizadorCartaoMensagem(application);
+        clienteProvedor = new ClienteProvedorProtegido(application.getContentResolver(), PRAZO_PROVEDOR_MS,
+                PRAZO_ESCRITA_MS, new DisjuntorCircuito(LIMIAR_FALHAS_PROVEDOR, TEMPO_DISJUNTOR_ABERTO_MS), cacheContingencia);
+        clienteProvedor.setOuvinte(metricasProvedor::postValue);
+        metricasProvedor.setValue(clienteProvedor.getMetricas());
+        escalonador.setOuvinte(metricasEscalonador::postValue);
+        metricasEscalonador.setValue(escalonador.getMetricas());
+        long orcamentoMemoria = GerenciadorMemoria.orcamentoPadrao(application);
+        executorMemoria.allowCoreThreadTimeOut(true);
+        gerenciadorMemoria = new GerenciadorMemoria(orcamentoMemoria, executorMemoria);
+        indiceSimilaridade = new IndiceSimilaridade(orcamentoMemoria / FRACAO_ORCAMENTO_SIMILARIDADE);
+        // Em aparelhos com mais memória, cabe um catálogo maior para quando o provedor cair.
+        cacheContingencia.resize((int) Math.min(Integer.MAX_VALUE,
+                Math.max(TAMANHO_CACHE_CONTINGENCIA, orcamentoMemoria / FRACAO_ORCAMENTO_CONTINGENCIA)));
+        gerenciadorMemoria.registrar(renderizadorCartao);
+        gerenciadorMemoria.registrar(cacheTextosCompletos);
+        gerenciadorMemoria.registrar(cacheContingencia);
+        gerenciadorMemoria.registrar(indiceDeduplicacao);
+        gerenciadorMemoria.registrar(indiceSimilaridade);
+        gerenciadorMemoria.setOuvinte(metricasMemoria::postValue);
+        metricasMemoria.setValue(gerenciadorMemoria.getMetricas());
+        application.registerComponentCallbacks(gerenciadorMemoria);
+        // Carrega os dados iniciais para popular a UI assim que ela for criada. A mensagem aparece
+        // na primeira tela; as favoritas são apenas pré-carregadas para a tela de lista.
+        carregarMensagemAleatoria(EscalonadorTarefas.Prioridade.USUARIO);
+        carregarMensagensFavoritas(EscalonadorTarefas.Prioridade.SEGUNDO_PLANO);
     }
 
     // --- Getters para expor LiveData (somente leitura) para a UI ---
@@ -80,6 +421,90 @@ public class MensagemConsumidorViewModel extends AndroidViewModel {
         return mensagensFavoritas;
     }
 
+    /**
+     * Retorna o LiveData que indica se o catálogo está indisponível (o provedor não respondeu e
+     * não há catálogo anterior em cache). Enquanto for true, uma mensagem nula significa
+     * "o app Gerador não respondeu", e não "nenhuma mensagem cadastrada".
+     * @return um {@link LiveData} com true enquanto o catálogo estiver indisponível.
+     */
+    public LiveData<Boolean> getCatalogoIndisponivel() {
+        return catalogoIndisponivel;
+    }
+
+    /**
+     * Retorna o LiveData que indica se as favoritas estão indisponíveis (o provedor não respondeu
+     * e não há lista anterior). Enquanto for true, uma lista vazia não significa "nenhuma favorita".
+     * @return um {@link LiveData} com true enquanto as favoritas estiverem indisponíveis.
+     */
+    public LiveData<Boolean> getFavoritasIndisponiveis() {
+        return favoritasIndisponiveis;
+    }
+
+    /**
+     * Retorna o LiveData com a lista seccionada de favoritas (um cabeçalho por autor, em ordem
+     * alfabética, seguido das suas mensagens), respeitando o filtro de autor atual.
+     * @return um {@link LiveData} contendo os itens prontos para o adapter.
+     */
+    public LiveData<List<ItemListaFavoritas>> getFavoritasAgrupadas() {
+        return favoritasAgrupadas;
+    }
+
+    /**
+     * Retorna o LiveData com os autores das favoritas, em ordem alfabética,
+     * usado para montar os chips de filtro.
+     * @return um {@link LiveData} contendo a lista de autores.
+     */
+    public LiveData<List<String>> getAutoresFavoritos() {
+        return autoresFavoritos;
+    }
+
+    /**
+     * Retorna o autor atualmente usado como filtro da lista de favoritas.
+     * @return O nome do autor, ou null se nenhum filtro estiver ativo.
+     */
+    public String getFiltroAutor() {
+        return filtroAutor;
+    }
+
+    /**
+     * Retorna o LiveData com as métricas do acesso ao ContentProvider. É atualizado quando o
+     * disjuntor muda de estado ou quando o cache de contingência é usado (ou faltou).
+     * @return um {@link LiveData} contendo o retrato mais recente das {@link MetricasProvedor}.
+     */
+    public LiveData<MetricasProvedor> getMetricasProvedor() {
+        return metricasProvedor;
+    }
+
+    /**
+     * Retorna o LiveData com as métricas das filas de leitura e escrita (tarefas aguardando e
+     * tempo de espera de cada tipo). É atualizado, no máximo algumas vezes por segundo, conforme
+     * as tarefas terminam.
+     * @return um {@link LiveData} contendo o retrato mais recente das {@link MetricasEscalonador}.
+     */
+    public LiveData<MetricasEscalonador> getMetricasEscalonador() {
+        return metricasEscalonador;
+    }
+
+    /**
+     * Retorna o LiveData com o tamanho atual de cada cache de dados, o orçamento de memória e
+     * quantas entradas já foram descartadas. É atualizado a cada verificação de limites e a cada
+     * aviso de falta de memória do sistema.
+     * @return um {@link LiveData} contendo o retrato mais recente das {@link MetricasMemoria}.
+     */
+    public LiveData<MetricasMemoria> getMetricasMemoria() {
+        return metricasMemoria;
+    }
+
+    /**
+     * Retorna quantas mensagens do catálogo ficaram fora das recomendações na última sincronização
+     * do índice de similaridade, por falta de memória. Com um valor maior que zero as recomendações
+     * são parciais, e a UI deve dizer isso ao exibi-las.
+     * @return A quantidade de mensagens não indexadas.
+     */
+    public int getMensagensForaDasRecomendacoes() {
+        return mensagensForaDasRecomendacoes;
+    }
+
     // --- Métodos de Ação chamados pela UI ---
 
     /**
@@ -87,22 +512,71 @@ public class MensagemConsumidorViewModel extends AndroidViewModel {
      * Este método é chamado pela UI quando o usuário solicita uma nova mensagem.
      */
     public void carregarNovaMensagemAleatoria() {
-        carregarMensagemAleatoria();
+        carregarMensagemAleatoria(EscalonadorTarefas.Prioridade.USUARIO);
     }
 
     /**
      * Busca, em uma thread de fundo, a lista de mensagens favoritas do ContentProvider.
      */
     public void carregarMensagensFavoritas() {
-        executorService.execute(() -> {
+        carregarMensagensFavoritas(EscalonadorTarefas.Prioridade.USUARIO);
+    }
+
+    /**
+     * Busca, em uma thread de fundo, a lista de mensagens favoritas do ContentProvider.
+     *
+     * @param prioridade A prioridade da leitura.
+     */
+    private void carregarMensagensFavoritas(EscalonadorTarefas.Prioridade prioridade) {
+        escalonador.executarLeitura(prioridade, () -> {
+            long leitura = sequenciaLeituras.incrementAndGet();
             String selection = MensagemContract.MensagemEntry.COLUNA_FAVORITA + " = ?";
             String[] selectionArgs = new String[]{"1"}; // "1" representa 'true'
-            Cursor cursor = getApplication().getContentResolver().query(
-                    MensagemContract.MensagemEntry.CONTENT_URI,
-                    null, selection, selectionArgs, null
-            );
-            // Usa postValue para atualizar o LiveData a partir de uma thread de fundo.
-            mensagensFavoritas.postValue(cursorParaLista(cursor));
+            List<Mensagem> lidas;
+            try {
+                lidas = consultarLista(CACHE_FAVORITAS, prazoVarredura(), selection, selectionArgs);
+                favoritasIndisponiveis.postValue(false);
+            } catch (ProvedorIndisponivelException e) {
+                Log.w(TAG, "Favoritas indisponíveis: " + e.getMessage());
+                // Mantém a lista exibida; só publica uma lista vazia se ainda não há nenhuma.
+                if (favoritasPublicadas != null) {
+                    return;
+                }
+                favoritasIndisponiveis.postValue(true);
+                lidas = new ArrayList<>();
+            }
+            registrarNoIndice(lidas);
+            // Favoritas equivalentes (duplicatas no provedor) são exibidas uma única vez.
+            List<Mensagem> favoritas = indiceDeduplicacao.colapsar(lidas);
+            synchronized (travaFavoritas) {
+                // Uma leitura mais nova já foi publicada: este resultado está velho.
+                if (leitura < ultimaLeituraFavoritasPublicada) {
+                    return;
+                }
+                ultimaLeituraFavoritasPublicada = leitura;
+                favoritasPublicadas = favoritas;
+                // Usa postValue para atualizar o LiveData a partir de uma thread de fundo.
+                mensagensFavoritas.postValue(favoritas);
+                // Aplica ao índice por autor apenas o que mudou e republica a lista agrupada.
+                indiceFacetasAutor.sincronizar(favoritas);
+                publicarFavoritasAgrupadas();
+            }
+            gerenciadorMemoria.verificarLimites();
+        });
+    }
+
+    /**
+     * Filtra a lista de favoritas por autor. O agrupamento é refeito em uma thread de fundo,
+     * a partir do índice por autor (sem nova consulta ao ContentProvider).
+     *
+     * @param autor O autor a ser exibido, ou null para exibir todos.
+     */
+    public void filtrarFavoritasPorAutor(String autor) {
+        filtroAutor = autor;
+        escalonador.executarLeitura(EscalonadorTarefas.Prioridade.USUARIO, () -> {
+            synchronized (travaFavoritas) {
+                publicarFavoritasAgrupadas();
+            }
         });
     }
 
@@ -110,90 +584,737 @@ public class MensagemConsumidorViewModel extends AndroidViewModel {
      * Atualiza o status de "favorita" de uma mensagem específica no ContentProvider.
      * Após a atualização, recarrega a lista de favoritos para garantir que
      * todas as partes da UI (como o outro fragment) reflitam a mudança.
+     * Alterações da mesma mensagem são aplicadas na ordem em que foram pedidas.
      *
      * @param id O ID da mensagem a ser atualizada.
      * @param isFavorita O novo status de favorita (true para favorita, false para não).
      */
     public void atualizarStatusFavorita(long id, boolean isFavorita) {
-        executorService.execute(() -> {
+        escalonador.executarEscrita(id, () -> {
             Uri uri = MensagemContract.MensagemEntry.CONTENT_URI.buildUpon().appendPath(String.valueOf(id)).build();
             ContentValues values = new ContentValues();
             values.put(MensagemContract.MensagemEntry.COLUNA_FAVORITA, isFavorita ? 1 : 0);
 
-            int rowsAffected = getApplication().getContentResolver().update(uri, values, null, null);
+            int rowsAffected;
+            try {
+                rowsAffected = clienteProvedor.atualizar(uri, values, null, null);
+            } catch (ProvedorIndisponivelException e) {
+                Log.w(TAG, "Não foi possível atualizar a favorita " + id + ": " + e.getMessage());
+                // Se o prazo estourou, a escrita ainda pode ter sido gravada: relê as favoritas.
+                recarregarFavoritasAposEscrita();
+                return;
+            }
 
             // Se a atualização foi bem-sucedida, recarrega a lista de favoritas.
             // Isso acionará o observer no Fragment da lista, atualizando a UI automaticamente.
             if (rowsAffected > 0) {
-                carregarMensagensFavoritas();
+                recarregarFavoritasAposEscrita();
+            }
+        });
+    }
+
+    /**
+     * Remove das favoritas as mensagens informadas (e as suas duplicatas no provedor, que a lista
+     * exibe como uma só), com uma única atualização a cada {@link #MAX_IDS_POR_CHAMADA} IDs.
+     * A lista é recarregada uma única vez, ao final.
+     *
+     * @param ids Os IDs das mensagens selecionadas.
+     * @param callback O callback que receberá o resultado na thread principal.
+     */
+    public void removerFavoritas(Collection<Long> ids, CallbackOperacaoEmLote callback) {
+        Set<Long> alvos = new HashSet<>(ids);
+        executarOperacaoEmLote("remover " + ids.size() + " selecionadas", contador -> {
+            // Expande cada mensagem para o seu grupo de equivalentes.
+            Set<Long> comDuplicatas = new HashSet<>(alvos);
+            for (long id : alvos) {
+                for (long equivalente : indiceDeduplicacao.idsDoGrupo(id)) {
+                    comDuplicatas.add(equivalente);
+                }
+            }
+            long[] todos = new long[comDuplicatas.size()];
+            int i = 0;
+            for (long id : comDuplicatas) {
+                todos[i++] = id;
+            }
+            desmarcarPorIds(todos, contador);
+        }, mensagem -> {
+            for (long id : indiceDeduplicacao.idsDoGrupo(mensagem.getId())) {
+                if (alvos.contains(id)) {
+                    return true;
+                }
+            }
+            return false;
+        }, callback);
+    }
+
+    /**
+     * Remove das favoritas todas as mensagens de um autor (e as suas duplicatas no provedor),
+     * com uma única atualização a cada {@link #MAX_IDS_POR_CHAMADA} IDs. A lista é recarregada
+     * uma única vez, ao final.
+     * <p>
+     * O autor é o nome exibido no grupo da lista, que junta grafias diferentes do mesmo nome
+     * (espaços nas pontas, caixa, acentos) e as mensagens sem autor ({@link IndiceFacetasAutor#AUTOR_DESCONHECIDO}).
+     * Por isso as mensagens vêm do próprio grupo, e não de uma seleção {@code autor = ?} no provedor,
+     * que só acharia a grafia exata.
+     *
+     * @param autor O autor, como exibido no grupo.
+     * @param callback O callback que receberá o resultado na thread principal.
+     */
+    public void removerFavoritasDoAutor(String autor, CallbackOperacaoEmLote callback) {
+        // Preenchido na thread de escrita, antes de a mensagem exibida ser avaliada.
+        Set<Long> alvos = new HashSet<>();
+        executarOperacaoEmLote("remover favoritas de " + autor, contador -> {
+            List<IndiceFacetasAutor.GrupoAutor> grupos;
+            synchronized (travaFavoritas) {
+                grupos = indiceFacetasAutor.grupos(autor);
+            }
+            for (IndiceFacetasAutor.GrupoAutor grupo : grupos) {
+                for (Mensagem mensagem : grupo.getMensagens()) {
+                    for (long equivalente : indiceDeduplicacao.idsDoGrupo(mensagem.getId())) {
+                        alvos.add(equivalente);
+                    }
+                }
+            }
+            long[] todos = new long[alvos.size()];
+            int i = 0;
+            for (long id : alvos) {
+                todos[i++] = id;
+            }
+            desmarcarPorIds(todos, contador);
+        }, mensagem -> alvos.contains(mensagem.getId()), callback);
+    }
+
+    /**
+     * Remove todas as favoritas, com uma única atualização.
+     * A lista é recarregada uma única vez, ao final.
+     *
+     * @param callback O callback que receberá o resultado na thread principal.
+     */
+    public void limparFavoritas(CallbackOperacaoEmLote callback) {
+        String selection = MensagemContract.MensagemEntry.COLUNA_FAVORITA + " = ?";
+        executarOperacaoEmLote("limpar favoritas",
+                contador -> desmarcarPorSelecao(selection, new String[]{"1"}, contador),
+                mensagem -> true, callback);
+    }
+
+    /**
+     * Exibe uma mensagem escolhida pelo usuário (ex.: uma recomendação) no lugar da mensagem
+     * sorteada. O texto completo é buscado em uma thread de fundo, se necessário.
+     *
+     * @param mensagem A mensagem a ser exibida.
+     */
+    public void exibirMensagem(Mensagem mensagem) {
+        escalonador.executarLeitura(EscalonadorTarefas.Prioridade.USUARIO, () -> {
+            long sorteio = sequenciaLeituras.incrementAndGet();
+            Mensagem completa = comTextoCompleto(mensagem);
+            synchronized (travaSorteio) {
+                if (sorteio > ultimoSorteioPublicado) {
+                    ultimoSorteioPublicado = sorteio;
+                    ultimaMensagemId = completa.getId();
+                    mensagemPublicada = completa;
+                    mensagemAleatoria.postValue(completa);
+                }
             }
         });
     }
 
+    /**
+     * Busca, em uma thread de fundo, as mensagens mais parecidas com uma mensagem ("mais como esta").
+     * Mensagens equivalentes à de referência (duplicatas no provedor) não são sugeridas.
+     *
+     * @param mensagem A mensagem de referência.
+     * @param callback O callback que receberá as sugestões na thread principal.
+     */
+    public void buscarMensagensSemelhantes(Mensagem mensagem, CallbackRecomendacoes callback) {
+        escalonador.executarLeitura(EscalonadorTarefas.Prioridade.USUARIO, () -> {
+            int candidatos = QUANTIDADE_RECOMENDACOES * FATOR_CANDIDATOS_RECOMENDACAO;
+            try {
+                garantirIndiceSimilaridade();
+            } catch (ProvedorIndisponivelException e) {
+                Log.w(TAG, "Catálogo indisponível para recomendações: " + e.getMessage());
+                entregarRecomendacoes(callback, new ArrayList<>());
+                return;
+            }
+            List<IndiceSimilaridade.Resultado> resultados = indiceSimilaridade.semelhantes(mensagem.getId(), candidatos);
+            if (resultados.isEmpty()) {
+                // A mensagem ainda não foi indexada (ex.: chegou depois da última varredura).
+                resultados = indiceSimilaridade.semelhantesAoTexto(mensagem.getTexto(), candidatos);
+            }
+            long tempoConsultaNanos = indiceSimilaridade.getUltimaConsultaNanos();
+            Set<Long> gruposExcluidos = new HashSet<>();
+            gruposExcluidos.add(indiceDeduplicacao.idCanonico(mensagem.getId()));
+            entregarRecomendacoes(callback,
+                    carregarRecomendadas(resultados, gruposExcluidos, tempoConsultaNanos));
+        });
+    }
+
+    /**
+     * Busca, em uma thread de fundo, mensagens parecidas com o conjunto das favoritas (que formam
+     * o "perfil" do usuário). As próprias favoritas, e suas duplicatas, não são sugeridas.
+     *
+     * @param callback O callback que receberá as sugestões na thread principal.
+     */
+    public void recomendarPelasFavoritas(CallbackRecomendacoes callback) {
+        escalonador.executarLeitura(EscalonadorTarefas.Prioridade.USUARIO, () -> {
+            List<Mensagem> favoritas = favoritasPublicadas;
+            if (favoritas == null || favoritas.isEmpty()) {
+                entregarRecomendacoes(callback, new ArrayList<>());
+                return;
+            }
+            try {
+                garantirIndiceSimilaridade();
+            } catch (ProvedorIndisponivelException e) {
+                Log.w(TAG, "Catálogo indisponível para recomendações: " + e.getMessage());
+                entregarRecomendacoes(callback, new ArrayList<>());
+                return;
+            }
+            long[] ids = new long[favoritas.size()];
+            Set<Long> gruposExcluidos = new HashSet<>();
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = favoritas.get(i).getId();
+                gruposExcluidos.add(indiceDeduplicacao.idCanonico(ids[i]));
+            }
+            List<IndiceSimilaridade.Resultado> resultados = indiceSimilaridade.recomendarPorPerfil(ids,
+                    QUANTIDADE_RECOMENDACOES * FATOR_CANDIDATOS_RECOMENDACAO);
+            long tempoConsultaNanos = indiceSimilaridade.getUltimaConsultaNanos();
+            entregarRecomendacoes(callback,
+                    carregarRecomendadas(resultados, gruposExcluidos, tempoConsultaNanos));
+        });
+    }
+
+    /**
+     * Gera, em uma thread de fundo, a imagem de compartilhamento de uma mensagem.
+     * O resultado (a URI do arquivo) é entregue na thread principal através do callback.
+     *
+     * @param mensagem A mensagem a ser compartilhada.
+     * @param tema O tema visual do cartão.
+     * @param callback O callback que receberá o cartão pronto ou o erro.
+     */
+    public void renderizarCartaoCompartilhamento(Mensagem mensagem, TemaCartao tema,
+                                                 RenderizadorCartaoMensagem.Callback callback) {
+        if (!mensagem.isTextoTruncado()) {
+            renderizadorCartao.renderizar(mensagem, tema, callback);
+            return;
+        }
+        // Itens de lista só têm o começo do texto; o cartão precisa do texto inteiro.
+        escalonador.executarLeitura(EscalonadorTarefas.Prioridade.USUARIO,
+                () -> renderizadorCartao.renderizar(comTextoCompleto(mensagem), tema, callback));
+    }
+
+    /**
+     * Chamado quando o ViewModel não será mais usado. Deixa de receber os avisos de memória,
+     * encerra as threads de fundo (inclusive as de chamada ao provedor) e libera os bitmaps retidos pelo renderizador de cartões.
+     */
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        getApplication().unregisterComponentCallbacks(gerenciadorMemoria);
+        renderizadorCartao.encerrar();
+        escalonador.encerrar();
+        clienteProvedor.encerrar();
+    }
+
     // --- Métodos Privados de Lógica Interna ---
 
+    /**
+     * Monta a lista seccionada de favoritas a partir do índice por autor e a publica, junto com
+     * a lista de autores. Deve ser chamado em uma thread de fundo, com {@link #travaFavoritas}.
+     */
+    private void publicarFavoritasAgrupadas() {
+        String autor = filtroAutor;
+        // Se o autor filtrado não tem mais favoritas, volta a exibir todos.
+        if (autor != null && !indiceFacetasAutor.contemAutor(autor)) {
+            autor = null;
+            filtroAutor = null;
+        }
+        List<ItemListaFavoritas> itens = new ArrayList<>(indiceFacetasAutor.tamanho() + 16);
+        for (IndiceFacetasAutor.GrupoAutor grupo : indiceFacetasAutor.grupos(autor)) {
+            itens.add(ItemListaFavoritas.cabecalho(grupo.getAutor(), grupo.getMensagens().size()));
+            for (Mensagem mensagem : grupo.getMensagens()) {
+                itens.add(ItemListaFavoritas.mensagem(mensagem));
+            }
+        }
+        autoresFavoritos.postValue(indiceFacetasAutor.autores());
+        favoritasAgrupadas.postValue(itens);
+    }
+
     /**
      * Lógica principal para buscar e selecionar uma mensagem aleatória.
      * Garante que a mesma mensagem não seja exibida duas vezes seguidas, se possível.
+     * Mensagens duplicadas no provedor contam como uma só, para que não tenham mais chance
+     * de serem sorteadas nem "repitam" a mensagem anterior com outro ID.
+     *
+     * @param prioridade A prioridade da leitura.
      */
-    private void carregarMensagemAleatoria() {
-        executorService.execute(() -> {
-            List<Mensagem> todasAsMensagens = buscarTodas();
+    private void carregarMensagemAleatoria(EscalonadorTarefas.Prioridade prioridade) {
+        escalonador.executarLeitura(prioridade, () -> {
+            long sorteio = sequenciaLeituras.incrementAndGet();
+            List<Mensagem> todasAsMensagens;
+            try {
+                todasAsMensagens = buscarTodas();
+            } catch (ProvedorIndisponivelException e) {
+                Log.w(TAG, "Catálogo indisponível: " + e.getMessage());
+                // Mantém a mensagem exibida; sem nenhuma, a UI avisa que o provedor não respondeu.
+                synchronized (travaSorteio) {
+                    if (sorteio > ultimoSorteioPublicado && mensagemPublicada == null) {
+                        ultimoSorteioPublicado = sorteio;
+                        catalogoIndisponivel.postValue(true);
+                        mensagemAleatoria.postValue(null);
+                    }
+                }
+                return;
+            }
             // Se não houver mensagens, notifica a UI com um valor nulo.
             if (todasAsMensagens == null || todasAsMensagens.isEmpty()) {
-                mensagemAleatoria.postValue(null);
+                synchronized (travaSorteio) {
+                    if (sorteio > ultimoSorteioPublicado) {
+                        ultimoSorteioPublicado = sorteio;
+                        mensagemPublicada = null;
+                        mensagemAleatoria.postValue(null);
+                    }
+                }
                 return;
             }
 
-            // Cria uma lista de mensagens candidatas, excluindo a última exibida.
+            // Mantém um representante por grupo de mensagens equivalentes.
+            List<Mensagem> unicas = indiceDeduplicacao.colapsar(todasAsMensagens);
+
+            // Cria uma lista de mensagens candidatas, excluindo o grupo da última exibida.
+            long grupoUltima = indiceDeduplicacao.idCanonico(ultimaMensagemId);
             List<Mensagem> pool = new ArrayList<>();
-            for (Mensagem m : todasAsMensagens) {
-                if (m.getId() != ultimaMensagemId) {
+            for (Mensagem m : unicas) {
+                if (indiceDeduplicacao.idCanonico(m.getId()) != grupoUltima) {
                     pool.add(m);
                 }
             }
 
             // Se o pool ficou vazio (só havia uma mensagem), re-popula com todas.
             if (pool.isEmpty()) {
-                pool.addAll(todasAsMensagens);
+                pool.addAll(unicas);
             }
 
             // Seleciona uma mensagem aleatória da lista de candidatas.
             Random random = new Random();
             Mensagem msgEscolhida = pool.get(random.nextInt(pool.size()));
-            ultimaMensagemId = msgEscolhida.getId();
+            // A mensagem será exibida por inteiro: busca o texto completo só dela.
+            msgEscolhida = comTextoCompleto(msgEscolhida);
 
-            // Atualiza o LiveData com a nova mensagem.
-            mensagemAleatoria.postValue(msgEscolhida);
+            // Atualiza o LiveData com a nova mensagem, a menos que um sorteio mais novo já tenha sido exibido.
+            // A última exibida só muda junto com a publicação: um sorteio descartado não a altera.
+            synchronized (travaSorteio) {
+                if (sorteio > ultimoSorteioPublicado) {
+                    ultimoSorteioPublicado = sorteio;
+                    ultimaMensagemId = msgEscolhida.getId();
+                    mensagemPublicada = msgEscolhida;
+                    mensagemAleatoria.postValue(msgEscolhida);
+                }
+            }
         });
     }
 
     /**
      * Busca todas as mensagens disponíveis no ContentProvider.
+     * Como é uma varredura completa do catálogo, também remove do índice de deduplicação
+     * as mensagens que deixaram de existir no provedor (e o refaz, se ele foi descartado por
+     * falta de memória).
+     * Se o provedor estiver indisponível, usa o último catálogo lido com sucesso.
      * @return Uma lista de objetos {@link Mensagem}.
+     * @throws ProvedorIndisponivelException Se o provedor falhar e nenhum catálogo tiver sido lido ainda.
+     */
+    private List<Mensagem> buscarTodas() throws ProvedorIndisponivelException {
+        List<Mensagem> todas = consultarLista(CACHE_CATALOGO, prazoVarredura(), null, null);
+        linhasUltimoCatalogo = todas.size();
+        catalogoIndisponivel.postValue(false);
+        // Duas varreduras intercaladas removeriam, uma da outra, linhas ainda não registradas.
+        synchronized (indiceDeduplicacao) {
+            indiceDeduplicacao.iniciarVarredura();
+            registrarNoIndice(todas);
+            indiceDeduplicacao.finalizarVarredura();
+        }
+        agendarSincronizacaoSimilaridade(todas);
+        gerenciadorMemoria.verificarLimites();
+        return todas;
+    }
+
+    /** Uma operação em lote sobre as favoritas; acumula no contador as linhas e as chamadas feitas. */
+    private interface OperacaoEmLote {
+        void executar(ContadorLote contador) throws ProvedorIndisponivelException;
+    }
+
+    /** Linhas alteradas e chamadas feitas ao provedor durante uma operação em lote. */
+    private static final class ContadorLote {
+        int linhasAfetadas;
+        int chamadas;
+    }
+
+    /**
+     * Executa uma operação em lote na fila de escritas, mede a sua duração e, se alguma linha
+     * mudou, recarrega a lista de favoritas uma única vez (em vez de uma vez por mensagem).
+     * <p>
+     * O lote é uma escrita exclusiva: não roda junto com os toggles de favorita (nem com outros
+     * lotes). Um toggle pedido antes do lote é gravado antes dele, e um pedido depois, depois;
+     * assim o lote nunca desfaz uma marcação mais nova nem é desfeito por uma mais antiga.
+     *
+     * @param descricao Uma descrição curta da operação, para o log.
+     * @param operacao A operação.
+     * @param afetaExibida Indica se a mensagem exibida na tela principal deixou de ser favorita.
+     * @param callback O callback que receberá o resultado na thread principal.
+     */
+    private void executarOperacaoEmLote(String descricao, OperacaoEmLote operacao,
+                                        Predicate<Mensagem> afetaExibida, CallbackOperacaoEmLote callback) {
+        escalonador.executarEscritaExclusiva(() -> {
+            ContadorLote contador = new ContadorLote();
+            boolean concluida = true;
+            long inicio = System.nanoTime();
+            try {
+                operacao.executar(contador);
+            } catch (ProvedorIndisponivelException | IllegalArgumentException
+                     | UnsupportedOperationException | SQLiteException e) {
+                Log.w(TAG, "Operação em lote '" + descricao + "' interrompida: " + e.getMessage());
+                concluida = false;
+            }
+            ResultadoOperacaoEmLote resultado = new ResultadoOperacaoEmLote(descricao,
+                    contador.linhasAfetadas, contador.chamadas, (System.nanoTime() - inicio) / 1e6, concluida);
+            Log.i(TAG, resultado.toString());
+            // Interrompida, a operação pode ter gravado mais do que o contador sabe (ex.: prazo estourado).
+            if (contador.linhasAfetadas > 0 || !concluida) {
+                recarregarFavoritasAposEscrita();
+            }
+            if (contador.linhasAfetadas > 0) {
+                desmarcarMensagemExibida(afetaExibida);
+            }
+            handlerPrincipal.post(() -> callback.onConcluida(resultado));
+        });
+    }
+
+    /**
+     * Desmarca as favoritas com os IDs informados, em blocos de até {@link #MAX_IDS_POR_CHAMADA}:
+     * um {@code update} com {@code _id IN (...)} por bloco ou, se o provedor não aceitar, um
+     * {@code applyBatch} por bloco. Nos dois casos a seleção exige {@code favorita = 1}, para que
+     * linhas já desmarcadas (por outra escrita, no meio do lote) não contem como afetadas.
+     */
+    private void desmarcarPorIds(long[] ids, ContadorLote contador) throws ProvedorIndisponivelException {
+        for (int inicio = 0; inicio < ids.length; inicio += MAX_IDS_POR_CHAMADA) {
+            long[] bloco = Arrays.copyOfRange(ids, inicio, Math.min(ids.length, inicio + MAX_IDS_POR_CHAMADA));
+            if (atualizacaoEmLoteSuportada) {
+                StringBuilder selection = new StringBuilder(MensagemContract.MensagemEntry.COLUNA_FAVORITA)
+                        .append(" = ? AND ").append(MensagemContract.MensagemEntry._ID).append(" IN (");
+                String[] selectionArgs = new String[bloco.length + 1];
+                selectionArgs[0] = "1";
+                for (int i = 0; i < bloco.length; i++) {
+                    selection.append(i == 0 ? "?" : ",?");
+                    selectionArgs[i + 1] = String.valueOf(bloco[i]);
+                }
+                selection.append(')');
+                if (atualizarDiretorio(selection.toString(), selectionArgs, contador)) {
+                    continue;
+                }
+            }
+            ArrayList<ContentProviderOperation> operacoes = new ArrayList<>(bloco.length);
+            for (long id : bloco) {
+                operacoes.add(ContentProviderOperation
+                        .newUpdate(ContentUris.withAppendedId(MensagemContract.MensagemEntry.CONTENT_URI, id))
+                        .withValue(MensagemContract.MensagemEntry.COLUNA_FAVORITA, 0)
+                        // Como no update acima: só conta (e só toca) as linhas que ainda são favoritas.
+                        .withSelection(MensagemContract.MensagemEntry.COLUNA_FAVORITA + " = ?", new String[]{"1"})
+                        .build());
+            }
+            ContentProviderResult[] resultados = clienteProvedor.aplicarLote(MensagemContract.AUTHORITY, operacoes);
+            contador.chamadas++;
+            for (ContentProviderResult resultado : resultados) {
+                if (resultado.count != null) {
+                    contador.linhasAfetadas += resultado.count;
+                }
+            }
+        }
+    }
+
+    /**
+     * Desmarca as favoritas que atendem à seleção com um único {@code update}. Se o provedor não
+     * aceitar, lê os IDs das linhas afetadas e os desmarca com {@code applyBatch}.
+     */
+    private void desmarcarPorSelecao(String selection, String[] selectionArgs, ContadorLote contador)
+            throws ProvedorIndisponivelException {
+        if (atualizacaoEmLoteSuportada && atualizarDiretorio(selection, selectionArgs, contador)) {
+            return;
+        }
+        List<Mensagem> afetadas = consultarLista(null, prazoVarredura(), selection, selectionArgs);
+        contador.chamadas++;
+        long[] ids = new long[afetadas.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = afetadas.get(i).getId();
+        }
+        desmarcarPorIds(ids, contador);
+    }
+
+    /**
+     * Tenta desmarcar as favoritas da seleção com um {@code update} na URI do diretório.
+     *
+     * @return false se o provedor não aceita esse tipo de atualização.
+     */
+    private boolean atualizarDiretorio(String selection, String[] selectionArgs, ContadorLote contador)
+            throws ProvedorIndisponivelException {
+        ContentValues values = new ContentValues();
+        values.put(MensagemContract.MensagemEntry.COLUNA_FAVORITA, 0);
+        try {
+            contador.linhasAfetadas += clienteProvedor.atualizar(MensagemContract.MensagemEntry.CONTENT_URI,
+                    values, selection, selectionArgs);
+            contador.chamadas++;
+            return true;
+        } catch (IllegalArgumentException | UnsupportedOperationException | SQLiteException e) {
+            // O provedor pode recusar a URI do diretório (IllegalArgumentException), não implementar
+            // o update (UnsupportedOperationException) ou não aceitar a seleção (SQLiteException).
+            Log.w(TAG, "Provedor não aceita atualização em lote no diretório; usando applyBatch.", e);
+            contador.chamadas++;
+            atualizacaoEmLoteSuportada = false;
+            return false;
+        }
+    }
+
+    /**
+     * Atualiza o estado de favorita da mensagem exibida na tela principal, se ela foi desmarcada
+     * por uma operação em lote (o CheckBox reflete o objeto publicado).
+     *
+     * @param afetaExibida Indica se a mensagem foi desmarcada.
      */
-    private List<Mensagem> buscarTodas() {
-        Cursor cursor = getApplication().getContentResolver().query(
+    private void desmarcarMensagemExibida(Predicate<Mensagem> afetaExibida) {
+        synchronized (travaSorteio) {
+            Mensagem exibida = mensagemPublicada;
+            if (exibida != null && exibida.getFavorita() == 1 && afetaExibida.test(exibida)) {
+                Mensagem desmarcada = new Mensagem(exibida.getId(), exibida.getTexto(), exibida.getAutor(), 0);
+                desmarcada.setTextoTruncado(exibida.isTextoTruncado());
+                desmarcada.setTamanhoTexto(exibida.getTamanhoTexto());
+                desmarcada.setComprimentoNormalizado(exibida.getComprimentoNormalizado());
+                mensagemPublicada = desmarcada;
+                mensagemAleatoria.postValue(desmarcada);
+            }
+        }
+    }
+
+    /**
+     * Agenda, em segundo plano, a aplicação do catálogo lido ao índice de similaridade.
+     * Se já houver uma sincronização agendada, ela passa a usar este catálogo.
+     *
+     * @param catalogo O catálogo completo recém-lido.
+     */
+    private void agendarSincronizacaoSimilaridade(List<Mensagem> catalogo) {
+        if (catalogoParaSimilaridade.getAndSet(catalogo) != null) {
+            return;
+        }
+        escalonador.executarLeitura(EscalonadorTarefas.Prioridade.SEGUNDO_PLANO, () -> {
+            List<Mensagem> pendente = catalogoParaSimilaridade.getAndSet(null);
+            if (pendente != null) {
+                sincronizarIndiceSimilaridade(pendente);
+            }
+        });
+    }
+
+    /**
+     * Garante que o índice de similaridade tenha conteúdo antes de uma consulta: aplica na hora
+     * um catálogo que esteja aguardando a sincronização ou, se o índice estiver vazio (ainda não
+     * montado, ou descartado por falta de memória), lê o catálogo. Deve ser chamado em uma thread de fundo.
+     *
+     * @throws ProvedorIndisponivelException Se for preciso ler o catálogo e ele estiver indisponível.
+     */
+    private void garantirIndiceSimilaridade() throws ProvedorIndisponivelException {
+        List<Mensagem> pendente = catalogoParaSimilaridade.getAndSet(null);
+        if (pendente == null && indiceSimilaridade.tamanho() == 0) {
+            buscarTodas();
+            pendente = catalogoParaSimilaridade.getAndSet(null);
+        }
+        if (pendente != null) {
+            sincronizarIndiceSimilaridade(pendente);
+        }
+    }
+
+    private void sincronizarIndiceSimilaridade(List<Mensagem> catalogo) {
+        long inicio = System.nanoTime();
+        int alteradas = indiceSimilaridade.sincronizar(catalogo);
+        mensagensForaDasRecomendacoes = indiceSimilaridade.getMensagensForaDoLimite();
+        if (mensagensForaDasRecomendacoes > 0) {
+            Log.w(TAG, "Índice de similaridade no limite de memória: " + mensagensForaDasRecomendacoes
+                    + " mensagens ficaram fora das recomendações");
+        }
+        if (alteradas > 0) {
+            Log.d(TAG, "Índice de similaridade: " + alteradas + " alterações em "
+                    + (System.nanoTime() - inicio) / 1_000_000L + "ms (" + indiceSimilaridade.tamanho() + " mensagens)");
+            gerenciadorMemoria.verificarLimites();
+        }
+    }
+
+    /**
+     * Lê do provedor, em uma única consulta, as mensagens apontadas pelo índice de similaridade e
+     * as devolve na ordem do índice, com uma mensagem por grupo de duplicatas.
+     * Deve ser chamado em uma thread de fundo.
+     *
+     * @param resultados Os resultados do índice, do mais para o menos parecido.
+     * @param gruposExcluidos Grupos de duplicatas (IDs canônicos) que não podem ser sugeridos.
+     * @param tempoConsultaNanos A duração da consulta ao índice, para o log.
+     * @return Até {@link #QUANTIDADE_RECOMENDACOES} mensagens.
+     */
+    private List<Mensagem> carregarRecomendadas(List<IndiceSimilaridade.Resultado> resultados,
+                                                Set<Long> gruposExcluidos, long tempoConsultaNanos) {
+        List<Mensagem> recomendadas = new ArrayList<>();
+        if (resultados.isEmpty()) {
+            return recomendadas;
+        }
+        long inicio = System.nanoTime();
+        // Poucas dezenas de IDs: bem abaixo do limite de argumentos do SQLite.
+        StringBuilder selection = new StringBuilder(MensagemContract.MensagemEntry._ID).append(" IN (");
+        String[] selectionArgs = new String[resultados.size()];
+        for (int i = 0; i < resultados.size(); i++) {
+            selection.append(i == 0 ? "?" : ",?");
+            selectionArgs[i] = String.valueOf(resultados.get(i).getId());
+        }
+        selection.append(')');
+        List<Mensagem> lidas;
+        try {
+            lidas = consultarLista(null, PRAZO_PROVEDOR_MS, selection.toString(), selectionArgs);
+        } catch (ProvedorIndisponivelException e) {
+            Log.w(TAG, "Recomendações indisponíveis: " + e.getMessage());
+            return recomendadas;
+        }
+        Map<Long, Mensagem> porId = new HashMap<>();
+        for (Mensagem mensagem : lidas) {
+            porId.put(mensagem.getId(), mensagem);
+        }
+        Set<Long> grupos = new HashSet<>(gruposExcluidos);
+        for (IndiceSimilaridade.Resultado resultado : resultados) {
+            Mensagem mensagem = porId.get(resultado.getId());
+            // Some do resultado o que foi apagado no provedor e as duplicatas do que já entrou.
+            if (mensagem != null && grupos.add(indiceDeduplicacao.idCanonico(mensagem.getId()))) {
+                recomendadas.add(mensagem);
+                if (recomendadas.size() == QUANTIDADE_RECOMENDACOES) {
+                    break;
+                }
+            }
+        }
+        Log.d(TAG, "Recomendações: índice em " + tempoConsultaNanos / 1_000L + "µs, leitura em "
+                + (System.nanoTime() - inicio) / 1_000_000L + "ms, " + recomendadas.size() + " sugestões");
+        return recomendadas;
+    }
+
+    private void entregarRecomendacoes(CallbackRecomendacoes callback, List<Mensagem> mensagens) {
+        handlerPrincipal.post(() -> callback.onRecomendacoes(mensagens));
+    }
+
+    /**
+     * Consulta mensagens para listas, pedindo ao provedor apenas as colunas usadas e um
+     * prefixo limitado do texto ({@link MensagemContract.MensagemEntry#PROJECAO_LISTA}).
+     * Se o provedor não aceitar expressões na projeção, recorre à projeção simples.
+     * A consulta passa pelo {@link #clienteProvedor}: tem prazo e, em caso de falha, devolve o
+     * último resultado bom guardado sob {@code chaveCache}.
+     *
+     * @param chaveCache A chave do cache de contingência desta consulta.
+     * @param prazoMs O prazo da consulta (veja {@link #prazoVarredura()}).
+     * @param selection A cláusula WHERE, ou null.
+     * @param selectionArgs Os argumentos da cláusula WHERE, ou null.
+     * @return As mensagens lidas (ainda não registradas no índice de deduplicação).
+     * @throws ProvedorIndisponivelException Se o provedor falhar e não houver resultado anterior.
+     */
+    private List<Mensagem> consultarLista(String chaveCache, long prazoMs, String selection, String[] selectionArgs)
+            throws ProvedorIndisponivelException {
+        if (projecaoComPrefixoSuportada) {
+            try {
+                return clienteProvedor.consultar(chaveCache, prazoMs,
+                        MensagemContract.MensagemEntry.CONTENT_URI,
+                        MensagemContract.MensagemEntry.PROJECAO_LISTA, selection, selectionArgs, null,
+                        this::cursorParaLista
+                );
+            } catch (IllegalArgumentException | SQLiteException e) {
+                Log.w(TAG, "Provedor não aceita a projeção com prefixo; usando a projeção simples.", e);
+                projecaoComPrefixoSuportada = false;
+            }
+        }
+        return clienteProvedor.consultar(chaveCache, prazoMs,
                 MensagemContract.MensagemEntry.CONTENT_URI,
-                null, null, null, null
+                MensagemContract.MensagemEntry.PROJECAO_LISTA_SIMPLES, selection, selectionArgs, null,
+                this::cursorParaLista
         );
-        return cursorParaLista(cursor);
+    }
+
+    /**
+     * Prazo das consultas que podem trazer o catálogo inteiro: cresce com o número de linhas do
+     * último catálogo lido, com um mínimo de {@link #PRAZO_VARREDURA_MINIMO_MS}.
+     *
+     * @return O prazo, em milissegundos.
+     */
+    private long prazoVarredura() {
+        return Math.max(PRAZO_VARREDURA_MINIMO_MS,
+                PRAZO_PROVEDOR_MS + linhasUltimoCatalogo * MICROS_POR_LINHA_VARREDURA / 1_000L);
+    }
+
+    /**
+     * Descarta as favoritas guardadas para contingência e as relê do provedor. Chamado depois de
+     * toda escrita que alterou, ou pode ter alterado, alguma favorita: sem isso, um provedor que
+     * caísse logo depois faria a lista voltar ao estado anterior à escrita.
+     */
+    private void recarregarFavoritasAposEscrita() {
+        clienteProvedor.invalidarCache(CACHE_FAVORITAS);
+        carregarMensagensFavoritas();
+    }
+
+    /**
+     * Retorna uma cópia da mensagem com o texto completo, buscando-o por ID no provedor
+     * (ou no cache) se a mensagem tiver apenas o prefixo. Deve ser chamado em uma thread de fundo.
+     *
+     * @param mensagem A mensagem, possivelmente com o texto truncado.
+     * @return A própria mensagem, se já estiver completa, ou uma cópia com o texto completo.
+     */
+    private Mensagem comTextoCompleto(Mensagem mensagem) {
+        if (!mensagem.isTextoTruncado()) {
+            return mensagem;
+        }
+        String texto = cacheTextosCompletos.get(mensagem.getId());
+        if (texto == null) {
+            Uri uri = ContentUris.withAppendedId(MensagemContract.MensagemEntry.CONTENT_URI, mensagem.getId());
+            try {
+                // Textos avulsos não usam o cache de contingência: o LruCache acima já cumpre esse papel.
+                texto = clienteProvedor.consultar(null, uri,
+                        MensagemContract.MensagemEntry.PROJECAO_TEXTO_COMPLETO, null, null, null,
+                        cursor -> cursor.moveToFirst()
+                                ? cursor.getString(cursor.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUNA_TEXTO))
+                                : null);
+            } catch (ProvedorIndisponivelException e) {
+                Log.w(TAG, "Texto completo da mensagem " + mensagem.getId() + " indisponível: " + e.getMessage());
+            }
+            if (texto == null) {
+                // Sem acesso ao texto completo: exibe o prefixo, que é melhor que nada.
+                return mensagem;
+            }
+            cacheTextosCompletos.put(mensagem.getId(), texto);
+            gerenciadorMemoria.verificarLimites();
+        }
+        Mensagem completa = new Mensagem(mensagem.getId(), texto, mensagem.getAutor(), mensagem.getFavorita());
+        completa.setTextoTruncado(false);
+        completa.setComprimentoNormalizado(mensagem.getComprimentoNormalizado());
+        return completa;
     }
 
     /**
      * Converte um objeto {@link Cursor} em uma lista de objetos {@link Mensagem}.
      * Este método encapsula a lógica de iteração do cursor e garante que ele seja fechado.
+     * Aceita tanto cursores com o texto completo quanto com apenas o prefixo do texto.
+     * Roda na thread de chamada do {@link #clienteProvedor}, que pode ser abandonada se o prazo
+     * estourar; por isso não mexe no índice de deduplicação (veja {@link #registrarNoIndice(List)}).
      *
      * @param cursor O Cursor retornado pela consulta ao ContentResolver.
-     * @return Uma {@link ArrayList} de objetos {@link Mensagem}.
+     * @return Uma {@link ListaMensagensCompacta} com as mensagens lidas.
      */
     private List<Mensagem> cursorParaLista(Cursor cursor) {
-        ArrayList<Mensagem> lista = new ArrayList<>();
+        // Guardada compacta: é esta lista que vai para o cache de contingência.
+        ListaMensagensCompacta lista = new ListaMensagensCompacta(cursor != null ? cursor.getCount() : 0);
         if (cursor != null) {
             try {
                 // Obtém os índices das colunas uma única vez para otimização.
                 int idIndex = cursor.getColumnIndexOrThrow(MensagemContract.MensagemEntry._ID);
-                int textoIndex = cursor.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUNA_TEXTO);
+                // Consultas de lista trazem o prefixo do texto e o tamanho total; as demais, o texto inteiro.
+                int textoIndex = cursor.getColumnIndex(MensagemContract.MensagemEntry.COLUNA_TEXTO_PREFIXO);
+                if (textoIndex < 0) {
+                    textoIndex = cursor.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUNA_TEXTO);
+                }
+                int tamanhoIndex = cursor.getColumnIndex(MensagemContract.MensagemEntry.COLUNA_TEXTO_TAMANHO);
+                int comprimentoIndex = cursor.getColumnIndex(MensagemContract.MensagemEntry.COLUNA_TEXTO_COMPRIMENTO_NORMALIZADO);
                 int autorIndex = cursor.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUNA_AUTOR);
                 int favoritaIndex = cursor.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUNA_FAVORITA);
 
@@ -203,14 +1324,121 @@ public class MensagemConsumidorViewModel extends AndroidViewModel {
                     String texto = cursor.getString(textoIndex);
                     String autor = cursor.getString(autorIndex);
                     int favorita = cursor.getInt(favoritaIndex);
-                    // Cria o objeto Model e o adiciona à lista.
-                    lista.add(new Mensagem(id, texto, autor, favorita));
+                    int tamanhoTexto = tamanhoIndex >= 0 ? cursor.getInt(tamanhoIndex) : 0;
+                    boolean truncado = tamanhoTexto > MensagemContract.MensagemEntry.TAMANHO_PREFIXO_TEXTO;
+                    // Sem a coluna calculada o texto veio inteiro, e o comprimento sai dele mesmo.
+                    int comprimentoNormalizado = comprimentoIndex >= 0
+                            ? cursor.getInt(comprimentoIndex)
+                            : IndiceDeduplicacao.comprimentoNormalizado(texto);
+                    lista.adicionar(id, texto, autor, favorita, truncado, tamanhoTexto, comprimentoNormalizado);
                 }
             } finally {
                 // Garante que o cursor seja fechado para liberar recursos.
                 cursor.close();
             }
         }
+        lista.finalizar();
         return lista;
     }
-}
\ No newline at end of file
+
+    /**
+     * Registra as mensagens lidas no índice de deduplicação. Mensagens com o texto truncado
+     * são registradas pelo prefixo e pelo comprimento normalizado do texto completo.
+     *
+     * @param mensagens As mensagens lidas do provedor (ou do cache de contingência).
+     */
+    private void registrarNoIndice(List<Mensagem> mensagens) {
+        boolean registrouPrefixo = false;
+        for (Mensagem mensagem : mensagens) {
+            if (mensagem.isTextoTruncado()) {
+                indiceDeduplicacao.registrarPrefixo(mensagem.getId(), mensagem.getTexto(),
+                        mensagem.getComprimentoNormalizado(), mensagem.getAutor());
+                registrouPrefixo = true;
+            } else {
+                indiceDeduplicacao.registrar(mensagem.getId(), mensagem.getTexto(), mensagem.getAutor());
+            }
+        }
+        if (registrouPrefixo) {
+            agendarVerificacaoDuplicatas();
+        }
+    }
+
+    /**
+     * Agenda, em segundo plano, a conferência das linhas que o índice de deduplicação só conhece
+     * pelo prefixo e que têm o mesmo hash de outra linha. Até serem conferidas elas ficam separadas
+     * (duas mensagens diferentes nunca são exibidas como uma só); a conferência lê o texto inteiro
+     * delas, em blocos de {@link #MAX_IDS_POR_CHAMADA} IDs, e o registra no índice, que só então
+     * junta as que forem de fato iguais. Se alguma favorita foi conferida, a lista de favoritas é
+     * recarregada para juntar as que agora se sabe serem a mesma mensagem.
+     */
+    private void agendarVerificacaoDuplicatas() {
+        if (!verificacaoDuplicatasAgendada.compareAndSet(false, true)) {
+            return;
+        }
+        escalonador.executarLeitura(EscalonadorTarefas.Prioridade.SEGUNDO_PLANO, () -> {
+            verificacaoDuplicatasAgendada.set(false);
+            long[] ids = indiceDeduplicacao.idsAVerificar();
+            boolean conferiuFavorita = false;
+            for (int inicio = 0; inicio < ids.length; inicio += MAX_IDS_POR_CHAMADA) {
+                int fim = Math.min(ids.length, inicio + MAX_IDS_POR_CHAMADA);
+                StringBuilder selection = new StringBuilder(MensagemContract.MensagemEntry._ID).append(" IN (");
+                String[] selectionArgs = new String[fim - inicio];
+                for (int i = inicio; i < fim; i++) {
+                    selection.append(i == inicio ? "?" : ",?");
+                    selectionArgs[i - inicio] = String.valueOf(ids[i]);
+                }
+                selection.append(')');
+                List<Mensagem> completas;
+                try {
+                    // Sem cache de contingência: um bloco velho não serve para conferir nada.
+                    completas = clienteProvedor.consultar(null,
+                            MensagemContract.MensagemEntry.CONTENT_URI,
+                            MensagemContract.MensagemEntry.PROJECAO_LISTA_SIMPLES, selection.toString(),
+                            selectionArgs, null, this::cursorParaLista);
+                } catch (ProvedorIndisponivelException | IllegalArgumentException | SQLiteException e) {
+                    // As linhas continuam separadas; a próxima leitura de lista agenda outra conferência.
+                    Log.w(TAG, "Conferência de duplicatas adiada: " + e.getMessage());
+                    return;
+                }
+                // Não pode se intercalar com uma varredura (veja buscarTodas).
+                synchronized (indiceDeduplicacao) {
+                    registrarNoIndice(completas);
+                }
+                for (Mensagem mensagem : completas) {
+                    conferiuFavorita |= mensagem.getFavorita() == 1;
+                }
+            }
+            if (conferiuFavorita) {
+                carregarMensagensFavoritas(EscalonadorTarefas.Prioridade.SEGUNDO_PLANO);
+            }
+        });
+    }
+
+    /**
+     * Estima a memória ocupada por um valor do cache de contingência (uma lista de mensagens).
+     *
+     * @param valor O valor guardado no cache.
+     * @return A memória aproximada, em bytes.
+     */
+    private static int estimarBytes(Object valor) {
+        if (valor instanceof ListaMensagensCompacta) {
+            return (int) Math.min(((ListaMensagensCompacta) valor).getBytesOcupados(), Integer.MAX_VALUE);
+        }
+        if (!(valor instanceof List)) {
+            return BYTES_POR_MENSAGEM;
+        }
+        long total = BYTES_POR_MENSAGEM;
+        for (Object item : (List<?>) valor) {
+            total += BYTES_POR_MENSAGEM;
+            if (item instanceof Mensagem) {
+                Mensagem mensagem = (Mensagem) item;
+                total += 2L * (comprimento(mensagem.getTexto()) + comprimento(mensagem.getAutor()));
+            }
+        }
+        return (int) Math.min(total, Integer.MAX_VALUE);
+    }
+
+    private static int comprimento(String texto) {
+        return texto != null ? texto.length() : 0;
+    }
+}
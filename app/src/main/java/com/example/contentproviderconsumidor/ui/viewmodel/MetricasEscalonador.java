@@ -0,0 +1,99 @@
+package com.example.contentproviderconsumidor.ui.viewmodel;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+
+/**
+ * Retrato (imutável) das filas do {@link EscalonadorTarefas} em um dado momento: quantas tarefas
+ * de cada tipo aguardam e quanto tempo, em média e no pior caso, elas esperaram para começar.
+ */
+public class MetricasEscalonador {
+
+    /** Os números de um tipo de tarefa (leituras do usuário, leituras em segundo plano ou escritas). */
+    public static final class Fila {
+        private final int naFila;
+        private final long iniciadas;
+        private final double esperaMediaMs;
+        private final double esperaMaximaMs;
+
+        public Fila(int naFila, long iniciadas, double esperaMediaMs, double esperaMaximaMs) {
+            this.naFila = naFila;
+            this.iniciadas = iniciadas;
+            this.esperaMediaMs = esperaMediaMs;
+            this.esperaMaximaMs = esperaMaximaMs;
+        }
+
+        /** @return Tarefas agendadas que ainda não começaram. */
+        public int getNaFila() {
+            return naFila;
+        }
+
+        /** @return Tarefas que já começaram desde a criação do escalonador. */
+        public long getIniciadas() {
+            return iniciadas;
+        }
+
+        /** @return O tempo médio entre o agendamento e o início, em milissegundos. */
+        public double getEsperaMediaMs() {
+            return esperaMediaMs;
+        }
+
+        /** @return O maior tempo entre o agendamento e o início, em milissegundos. */
+        public double getEsperaMaximaMs() {
+            return esperaMaximaMs;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "{fila=%d, iniciadas=%d, espera média=%.1fms, máx=%.1fms}",
+                    naFila, iniciadas, esperaMediaMs, esperaMaximaMs);
+        }
+    }
+
+    private final Fila leiturasUsuario;
+    private final Fila leiturasSegundoPlano;
+    private final Fila escritas;
+    private final int leiturasEmExecucao;
+    private final int escritasEmExecucao;
+
+    public MetricasEscalonador(Fila leiturasUsuario, Fila leiturasSegundoPlano, Fila escritas,
+                               int leiturasEmExecucao, int escritasEmExecucao) {
+        this.leiturasUsuario = leiturasUsuario;
+        this.leiturasSegundoPlano = leiturasSegundoPlano;
+        this.escritas = escritas;
+        this.leiturasEmExecucao = leiturasEmExecucao;
+        this.escritasEmExecucao = escritasEmExecucao;
+    }
+
+    public Fila getLeiturasUsuario() {
+        return leiturasUsuario;
+    }
+
+    public Fila getLeiturasSegundoPlano() {
+        return leiturasSegundoPlano;
+    }
+
+    public Fila getEscritas() {
+        return escritas;
+    }
+
+    public int getLeiturasEmExecucao() {
+        return leiturasEmExecucao;
+    }
+
+    public int getEscritasEmExecucao() {
+        return escritasEmExecucao;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "MetricasEscalonador{leiturasUsuario=" + leiturasUsuario
+                + ", leiturasSegundoPlano=" + leiturasSegundoPlano
+                + ", escritas=" + escritas
+                + ", emExecucao=" + leiturasEmExecucao + "L/" + escritasEmExecucao + "E"
+                + '}';
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.contentproviderconsumidor.ui.viewmodel;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+
+/**
+ * Resultado (imutável) de uma operação em lote sobre as favoritas (ex.: remover as selecionadas):
+ * quantas linhas o provedor alterou, quantas chamadas foram necessárias e quanto tempo levou,
+ * do início da primeira chamada ao fim da última (sem contar a recarga da lista).
+ */
+public class ResultadoOperacaoEmLote {
+
+    private final String descricao;
+    private final int linhasAfetadas;
+    private final int chamadasProvedor;
+    private final double duracaoMs;
+    private final boolean concluida;
+
+    public ResultadoOperacaoEmLote(String descricao, int linhasAfetadas, int chamadasProvedor,
+                                   double duracaoMs, boolean concluida) {
+        this.descricao = descricao;
+        this.linhasAfetadas = linhasAfetadas;
+        this.chamadasProvedor = chamadasProvedor;
+        this.duracaoMs = duracaoMs;
+        this.concluida = concluida;
+    }
+
+    /** @return Uma descrição curta da operação, usada nos logs. */
+    public String getDescricao() {
+        return descricao;
+    }
+
+    /** @return Quantas linhas o provedor informou ter alterado. */
+    public int getLinhasAfetadas() {
+        return linhasAfetadas;
+    }
+
+    /** @return Quantas chamadas (update ou applyBatch) foram feitas ao provedor. */
+    public int getChamadasProvedor() {
+        return chamadasProvedor;
+    }
+
+    public double getDuracaoMs() {
+        return duracaoMs;
+    }
+
+    /**
+     * @return false se o provedor falhou no meio da operação; as linhas já alteradas continuam
+     *         alteradas e a lista é recarregada mesmo assim.
+     */
+    public boolean isConcluida() {
+        return concluida;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "ResultadoOperacaoEmLote{%s: %d linhas, %d chamadas, %.1fms%s}",
+                descricao, linhasAfetadas, chamadasProvedor, duracaoMs, concluida ? "" : ", interrompida");
+    }
+}
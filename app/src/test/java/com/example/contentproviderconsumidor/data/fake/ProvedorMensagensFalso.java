@@ -0,0 +1,391 @@
+package com.example.contentproviderconsumidor.data.fake;
+
+import android.content.ContentProvider;
+import android.content.ContentUris;
+import android.content.ContentValues;
+import android.content.UriMatcher;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.net.Uri;
+import android.text.TextUtils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.contentproviderconsumidor.data.db.MensagemContract;
+import com.example.contentproviderconsumidor.data.db.MensagemContract.MensagemEntry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Um ContentProvider local que imita o provedor do app Gerador, implementando o mesmo esquema
+ * de {@link MensagemContract}. Permite testar o consumidor (em testes Robolectric/JVM) sem
+ * instalar o outro aplicativo e com catálogos muito maiores que o do Gerador.
+ * <p>
+ * Os dados ficam em um banco SQLite em memória, então projeções, seleções e ordenações
+ * arbitrárias funcionam como no provedor real. Além disso, é possível configurar:
+ * <ul>
+ *     <li>a quantidade de linhas ({@link #popular(int, float)});</li>
+ *     <li>uma latência artificial por chamada ({@link #setLatenciaMs(long)});</li>
+ *     <li>uma taxa de falhas ({@link #setTaxaFalha(double)}): consultas retornam {@code null}
+ *     e atualizações não têm efeito, como acontece quando o processo do provedor morre;</li>
+ *     <li>o envio de notificações de mudança ({@link #setNotificarMudancas(boolean)}).</li>
+ * </ul>
+ * Cada atualização que altera linhas guarda um retrato das favoritas resultantes
+ * ({@link #favoritasJaExistiram(Set)}), para os testes conferirem que toda lista publicada pelo
+ * consumidor corresponde a um estado real do provedor, e não a uma mistura de dois.
+ * Uso típico: {@code Robolectric.setupContentProvider(ProvedorMensagensFalso.class, MensagemContract.AUTHORITY)}.
+ */
+public class ProvedorMensagensFalso extends ContentProvider {
+
+    private static final int MENSAGENS = 100;
+    private static final int MENSAGEM_ID = 101;
+
+    private static final UriMatcher uriMatcher = new UriMatcher(UriMatcher.NO_MATCH);
+
+    static {
+        uriMatcher.addURI(MensagemContract.AUTHORITY, MensagemContract.PATH_MENSAGENS, MENSAGENS);
+        uriMatcher.addURI(MensagemContract.AUTHORITY, MensagemContract.PATH_MENSAGENS + "/#", MENSAGEM_ID);
+    }
+
+    /** Banco em memória com a tabela de mensagens. */
+    private SQLiteDatabase db;
+
+    private volatile long latenciaMs;
+    private volatile double taxaFalha;
+    private volatile boolean notificarMudancas = true;
+
+    // --- Contadores, para os testes verificarem quantas chamadas chegaram ao provedor ---
+
+    private final AtomicInteger consultas = new AtomicInteger();
+    private final AtomicInteger atualizacoes = new AtomicInteger();
+    private final AtomicInteger insercoes = new AtomicInteger();
+    private final AtomicInteger remocoes = new AtomicInteger();
+    private final AtomicInteger falhasInjetadas = new AtomicInteger();
+
+    /** Duração de cada chamada atendida, em nanossegundos (inclui a latência injetada). */
+    private final List<Long> duracoesNanos = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * Os conjuntos de favoritas pelos quais a tabela passou, do estado inicial ao atual.
+     * Protegido por {@link #travaEscritas}, que também serializa as escritas com o retrato.
+     */
+    private final List<Set<Long>> historicoFavoritas = new ArrayList<>();
+    private final Object travaEscritas = new Object();
+
+    @Override
+    public boolean onCreate() {
+        db = SQLiteDatabase.create(null);
+        db.execSQL("CREATE TABLE " + MensagemEntry.TABELA + " ("
+                + MensagemEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + MensagemEntry.COLUNA_TEXTO + " TEXT NOT NULL, "
+                + MensagemEntry.COLUNA_AUTOR + " TEXT NOT NULL, "
+                + MensagemEntry.COLUNA_FAVORITA + " INTEGER NOT NULL DEFAULT 0)");
+        // Mantém barato o retrato das favoritas tirado a cada escrita, mesmo com catálogos grandes.
+        db.execSQL("CREATE INDEX indice_favorita ON " + MensagemEntry.TABELA
+                + " (" + MensagemEntry.COLUNA_FAVORITA + ")");
+        synchronized (travaEscritas) {
+            historicoFavoritas.add(Collections.emptySet());
+        }
+        return true;
+    }
+
+    // --- Configuração ---
+
+    /**
+     * Substitui o conteúdo da tabela por {@code total} mensagens geradas.
+     *
+     * @param total              Quantidade de linhas.
+     * @param fracaoDuplicatas   Fração (0 a 1) das linhas que repetem o conteúdo de uma linha
+     *                           anterior, com variações de espaço, pontuação e caixa.
+     */
+    public void popular(int total, float fracaoDuplicatas) {
+        db.beginTransaction();
+        try {
+            db.delete(MensagemEntry.TABELA, null, null);
+            ContentValues valores = new ContentValues();
+            int unicas = 0;
+            for (int i = 0; i < total; i++) {
+                boolean duplicata = unicas > 0 && ThreadLocalRandom.current().nextFloat() < fracaoDuplicatas;
+                int base = duplicata ? ThreadLocalRandom.current().nextInt(unicas) : unicas++;
+                String texto = "Mensagem motivacional número " + base + ", persista e vença.";
+                String autor = "Autor " + (base % 97);
+                if (duplicata) {
+                    texto = texto.toUpperCase().replace(",", "  ") + "!";
+                }
+                valores.put(MensagemEntry.COLUNA_TEXTO, texto);
+                valores.put(MensagemEntry.COLUNA_AUTOR, autor);
+                valores.put(MensagemEntry.COLUNA_FAVORITA, 0);
+                db.insert(MensagemEntry.TABELA, null, valores);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        synchronized (travaEscritas) {
+            historicoFavoritas.clear();
+            historicoFavoritas.add(Collections.emptySet());
+        }
+        notificar(MensagemEntry.CONTENT_URI);
+    }
+
+    public void setLatenciaMs(long latenciaMs) {
+        this.latenciaMs = latenciaMs;
+    }
+
+    public void setTaxaFalha(double taxaFalha) {
+        this.taxaFalha = taxaFalha;
+    }
+
+    public void setNotificarMudancas(boolean notificarMudancas) {
+        this.notificarMudancas = notificarMudancas;
+    }
+
+    // --- Inspeção do estado, usada nas verificações dos testes ---
+
+    /** @return Os IDs atualmente marcados como favoritos, lidos diretamente do banco. */
+    public Set<Long> idsFavoritos() {
+        Set<Long> ids = new HashSet<>();
+        try (Cursor cursor = db.query(MensagemEntry.TABELA, new String[]{MensagemEntry._ID},
+                MensagemEntry.COLUNA_FAVORITA + " = 1", null, null, null, null)) {
+            while (cursor.moveToNext()) {
+                ids.add(cursor.getLong(0));
+            }
+        }
+        return ids;
+    }
+
+    /** @return Todos os IDs da tabela, em ordem crescente. */
+    public long[] todosOsIds() {
+        try (Cursor cursor = db.query(MensagemEntry.TABELA, new String[]{MensagemEntry._ID},
+                null, null, null, null, MensagemEntry._ID)) {
+            long[] ids = new long[cursor.getCount()];
+            for (int i = 0; cursor.moveToNext(); i++) {
+                ids[i] = cursor.getLong(0);
+            }
+            return ids;
+        }
+    }
+
+    /**
+     * @param id O ID da mensagem.
+     * @return O texto completo da mensagem, ou null se ela não existe.
+     */
+    public String textoDe(long id) {
+        try (Cursor cursor = db.query(MensagemEntry.TABELA, new String[]{MensagemEntry.COLUNA_TEXTO},
+                MensagemEntry._ID + " = ?", new String[]{String.valueOf(id)}, null, null, null)) {
+            return cursor.moveToFirst() ? cursor.getString(0) : null;
+        }
+    }
+
+    /**
+     * @param favoritas Um conjunto de IDs (ex.: os de uma lista publicada pelo consumidor).
+     * @return true se, em algum momento, exatamente esses IDs foram as favoritas da tabela.
+     */
+    public boolean favoritasJaExistiram(Set<Long> favoritas) {
+        synchronized (travaEscritas) {
+            return historicoFavoritas.contains(favoritas);
+        }
+    }
+
+    /** @return Quantos estados de favoritas a tabela já teve, contando o inicial. */
+    public int getVersoesFavoritas() {
+        synchronized (travaEscritas) {
+            return historicoFavoritas.size();
+        }
+    }
+
+    public int getConsultas() {
+        return consultas.get();
+    }
+
+    public int getAtualizacoes() {
+        return atualizacoes.get();
+    }
+
+    public int getInsercoes() {
+        return insercoes.get();
+    }
+
+    public int getRemocoes() {
+        return remocoes.get();
+    }
+
+    public int getFalhasInjetadas() {
+        return falhasInjetadas.get();
+    }
+
+    /** @return Uma cópia das durações das chamadas atendidas, em nanossegundos. */
+    public List<Long> getDuracoesNanos() {
+        synchronized (duracoesNanos) {
+            return new ArrayList<>(duracoesNanos);
+        }
+    }
+
+    // --- ContentProvider ---
+
+    @Nullable
+    @Override
+    public Cursor query(@NonNull Uri uri, @Nullable String[] projection, @Nullable String selection,
+                        @Nullable String[] selectionArgs, @Nullable String sortOrder) {
+        long inicio = System.nanoTime();
+        consultas.incrementAndGet();
+        simularLatencia();
+        if (deveFalhar()) {
+            return null;
+        }
+        String[] argumentos = selectionArgs;
+        String selecao = selection;
+        if (uriMatcher.match(uri) == MENSAGEM_ID) {
+            selecao = combinarSelecaoPorId(selection);
+            argumentos = combinarArgumentosPorId(uri, selectionArgs);
+        } else if (uriMatcher.match(uri) != MENSAGENS) {
+            throw new IllegalArgumentException("URI desconhecida: " + uri);
+        }
+        Cursor cursor = db.query(MensagemEntry.TABELA, projection, selecao, argumentos, null, null, sortOrder);
+        // Força o preenchimento da janela agora, para que a latência medida inclua a leitura.
+        cursor.getCount();
+        if (getContext() != null) {
+            cursor.setNotificationUri(getContext().getContentResolver(), uri);
+        }
+        duracoesNanos.add(System.nanoTime() - inicio);
+        return cursor;
+    }
+
+    @Override
+    public int update(@NonNull Uri uri, @Nullable ContentValues values, @Nullable String selection,
+                      @Nullable String[] selectionArgs) {
+        long inicio = System.nanoTime();
+        atualizacoes.incrementAndGet();
+        simularLatencia();
+        if (deveFalhar()) {
+            return 0;
+        }
+        String[] argumentos = selectionArgs;
+        String selecao = selection;
+        if (uriMatcher.match(uri) == MENSAGEM_ID) {
+            selecao = combinarSelecaoPorId(selection);
+            argumentos = combinarArgumentosPorId(uri, selectionArgs);
+        } else if (uriMatcher.match(uri) != MENSAGENS) {
+            throw new IllegalArgumentException("URI desconhecida: " + uri);
+        }
+        int linhas;
+        synchronized (travaEscritas) {
+            linhas = db.update(MensagemEntry.TABELA, values, selecao, argumentos);
+            registrarFavoritas();
+        }
+        if (linhas > 0) {
+            notificar(uri);
+        }
+        duracoesNanos.add(System.nanoTime() - inicio);
+        return linhas;
+    }
+
+    @Nullable
+    @Override
+    public Uri insert(@NonNull Uri uri, @Nullable ContentValues values) {
+        insercoes.incrementAndGet();
+        simularLatencia();
+        long id;
+        synchronized (travaEscritas) {
+            id = db.insert(MensagemEntry.TABELA, null, values);
+            registrarFavoritas();
+        }
+        if (id < 0) {
+            return null;
+        }
+        notificar(MensagemEntry.CONTENT_URI);
+        return ContentUris.withAppendedId(MensagemEntry.CONTENT_URI, id);
+    }
+
+    @Override
+    public int delete(@NonNull Uri uri, @Nullable String selection, @Nullable String[] selectionArgs) {
+        remocoes.incrementAndGet();
+        simularLatencia();
+        String[] argumentos = selectionArgs;
+        String selecao = selection;
+        if (uriMatcher.match(uri) == MENSAGEM_ID) {
+            selecao = combinarSelecaoPorId(selection);
+            argumentos = combinarArgumentosPorId(uri, selectionArgs);
+        }
+        int linhas;
+        synchronized (travaEscritas) {
+            linhas = db.delete(MensagemEntry.TABELA, selecao, argumentos);
+            registrarFavoritas();
+        }
+        if (linhas > 0) {
+            notificar(MensagemEntry.CONTENT_URI);
+        }
+        return linhas;
+    }
+
+    @Nullable
+    @Override
+    public String getType(@NonNull Uri uri) {
+        switch (uriMatcher.match(uri)) {
+            case MENSAGENS:
+                return "vnd.android.cursor.dir/vnd." + MensagemContract.AUTHORITY + "." + MensagemContract.PATH_MENSAGENS;
+            case MENSAGEM_ID:
+                return "vnd.android.cursor.item/vnd." + MensagemContract.AUTHORITY + "." + MensagemContract.PATH_MENSAGENS;
+            default:
+                return null;
+        }
+    }
+
+    // --- Métodos Privados ---
+
+    private void simularLatencia() {
+        if (latenciaMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(latenciaMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Guarda as favoritas atuais no histórico, se mudaram. Deve ser chamado com {@link #travaEscritas}. */
+    private void registrarFavoritas() {
+        Set<Long> favoritas = idsFavoritos();
+        if (!favoritas.equals(historicoFavoritas.get(historicoFavoritas.size() - 1))) {
+            historicoFavoritas.add(favoritas);
+        }
+    }
+
+    private boolean deveFalhar() {
+        if (taxaFalha > 0 && ThreadLocalRandom.current().nextDouble() < taxaFalha) {
+            falhasInjetadas.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    private void notificar(Uri uri) {
+        if (notificarMudancas && getContext() != null) {
+            getContext().getContentResolver().notifyChange(uri, null);
+        }
+    }
+
+    private static String combinarSelecaoPorId(String selection) {
+        String porId = MensagemEntry._ID + " = ?";
+        return TextUtils.isEmpty(selection) ? porId : "(" + selection + ") AND " + porId;
+    }
+
+    private static String[] combinarArgumentosPorId(Uri uri, String[] selectionArgs) {
+        String id = uri.getLastPathSegment();
+        if (selectionArgs == null || selectionArgs.length == 0) {
+            return new String[]{id};
+        }
+        String[] argumentos = new String[selectionArgs.length + 1];
+        System.arraycopy(selectionArgs, 0, argumentos, 0, selectionArgs.length);
+        argumentos[selectionArgs.length] = id;
+        return argumentos;
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.contentproviderconsumidor.data.indice;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import com.example.contentproviderconsumidor.data.db.MensagemContract;
+import com.example.contentproviderconsumidor.data.model.Mensagem;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Testes do {@link IndiceDeduplicacao}: quais textos são equivalentes, a conferência do conteúdo
+ * inteiro antes de juntar linhas vistas só pelo prefixo, e a limpeza feita pelas varreduras.
+ */
+public class IndiceDeduplicacaoTest {
+
+    /** Um texto maior que o prefixo das listas, com as letras do hash todas no começo. */
+    private static final String TEXTO_LONGO = repetir("abcdefghij", 30);
+
+    @Test
+    public void textosQueDiferemSoEmEspacosPontuacaoCaixaEAcentos_saoEquivalentes() {
+        IndiceDeduplicacao indice = new IndiceDeduplicacao();
+        indice.registrar(5, "A vida é bela.", "Autor");
+        indice.registrar(3, "  a VIDA e bela!! ", "Autor");
+        indice.registrar(9, "A vida é bela, sim.", "Autor");
+        indice.registrar(7, "A vida é bela.", "Outro autor");
+
+        assertEquals(3, indice.idCanonico(5));
+        assertEquals(3, indice.idCanonico(3));
+        assertArrayEquals(new long[]{3, 5}, indice.idsDoGrupo(5));
+        assertEquals("Texto diferente", 9, indice.idCanonico(9));
+        assertEquals("Autor diferente", 7, indice.idCanonico(7));
+        assertEquals("Desconhecida é o próprio grupo", 100, indice.idCanonico(100));
+    }
+
+    @Test
+    public void prefixo_produzOMesmoHashQueOTextoCompleto() {
+        String prefixo = TEXTO_LONGO.substring(0, MensagemContract.MensagemEntry.TAMANHO_PREFIXO_TEXTO);
+
+        IndiceDeduplicacao indice = new IndiceDeduplicacao();
+        indice.registrar(1, TEXTO_LONGO, "Autor");
+        indice.registrarPrefixo(2, prefixo, IndiceDeduplicacao.comprimentoNormalizado(TEXTO_LONGO), "Autor");
+        assertEquals("Mesmo hash: 2 colide com 1 e precisa ser conferida", 1, indice.getTotalGrupos());
+        assertArrayEquals(new long[]{2}, indice.idsAVerificar());
+    }
+
+    @Test
+    public void linhasVistasSoPeloPrefixo_soSeJuntamDepoisDeConferidas() {
+        // Os dois textos só diferem depois das letras que entram no hash, e têm o mesmo comprimento.
+        String texto = TEXTO_LONGO + " final um";
+        String outroTexto = TEXTO_LONGO + " final do";
+        int comprimento = IndiceDeduplicacao.comprimentoNormalizado(texto);
+        assertEquals(comprimento, IndiceDeduplicacao.comprimentoNormalizado(outroTexto));
+        String prefixo = texto.substring(0, MensagemContract.MensagemEntry.TAMANHO_PREFIXO_TEXTO);
+
+        IndiceDeduplicacao indice = new IndiceDeduplicacao();
+        indice.registrarPrefixo(1, prefixo, comprimento, "Autor");
+        indice.registrarPrefixo(2, prefixo, comprimento, "Autor");
+        indice.registrarPrefixo(3, prefixo, comprimento, "Autor");
+        assertEquals("Sem conferir, ficam separadas", 2, indice.idCanonico(2));
+        assertArrayEquals(new long[]{1, 2, 3}, indice.idsAVerificar());
+
+        indice.registrar(1, texto, "Autor");
+        indice.registrar(2, texto, "Autor");
+        indice.registrar(3, outroTexto, "Autor");
+        assertEquals(1, indice.idCanonico(2));
+        assertArrayEquals(new long[]{1, 2}, indice.idsDoGrupo(1));
+        assertEquals("Mesmo hash, conteúdo diferente", 3, indice.idCanonico(3));
+        assertArrayEquals(new long[0], indice.idsAVerificar());
+
+        // Ler a mesma linha de novo pela lista não desfaz a conferência.
+        indice.registrarPrefixo(2, prefixo, comprimento, "Autor");
+        assertEquals(1, indice.idCanonico(2));
+    }
+
+    @Test
+    public void colapsar_mantemAPrimeiraDeCadaGrupoNaOrdemOriginal() {
+        IndiceDeduplicacao indice = new IndiceDeduplicacao();
+        List<Mensagem> mensagens = Arrays.asList(
+                new Mensagem(4, "Carpe diem", "Horácio", 1),
+                new Mensagem(2, "Outra frase", "Horácio", 1),
+                new Mensagem(1, "carpe  diem!", "Horácio", 1));
+        for (Mensagem mensagem : mensagens) {
+            indice.registrar(mensagem.getId(), mensagem.getTexto(), mensagem.getAutor());
+        }
+
+        List<Mensagem> colapsadas = indice.colapsar(mensagens);
+
+        assertEquals(2, colapsadas.size());
+        assertEquals(4, colapsadas.get(0).getId());
+        assertEquals(2, colapsadas.get(1).getId());
+    }
+
+    @Test
+    public void varredura_removeAsLinhasQueNaoForamVistas() {
+        IndiceDeduplicacao indice = new IndiceDeduplicacao();
+        indice.registrar(1, "Frase", "Autor");
+        indice.registrar(2, "frase", "Autor");
+        indice.registrar(3, "Outra", "Autor");
+
+        indice.iniciarVarredura();
+        indice.registrar(2, "frase", "Autor");
+        indice.registrar(3, "Outra", "Autor");
+        indice.finalizarVarredura();
+
+        assertEquals(2, indice.getTotalLinhas());
+        assertEquals(2, indice.idCanonico(2));
+        assertArrayEquals(new long[]{2}, indice.idsDoGrupo(2));
+    }
+
+    @Test
+    public void remover_eReutilizarEntradas_naoMisturaGrupos() {
+        IndiceDeduplicacao indice = new IndiceDeduplicacao(4);
+        for (long id = 1; id <= 1_000; id++) {
+            indice.registrar(id, "Frase número " + (id % 10), "Autor");
+        }
+        for (long id = 1; id <= 1_000; id += 2) {
+            indice.remover(id);
+        }
+        // As entradas liberadas são reaproveitadas por linhas novas.
+        for (long id = 2_001; id <= 2_100; id++) {
+            indice.registrar(id, "Frase número " + (id % 10), "Autor");
+        }
+
+        assertEquals(600, indice.getTotalLinhas());
+        assertEquals(10, indice.getTotalGrupos());
+        assertEquals(2, indice.idCanonico(2_002));
+        assertEquals(110, indice.idsDoGrupo(2).length);
+    }
+
+    @Test
+    public void alterarOTexto_mudaALinhaDeGrupo() {
+        IndiceDeduplicacao indice = new IndiceDeduplicacao();
+        indice.registrar(1, "Primeira", "Autor");
+        indice.registrar(2, "Primeira", "Autor");
+        indice.registrar(2, "Segunda", "Autor");
+
+        assertArrayEquals(new long[]{1}, indice.idsDoGrupo(1));
+        assertEquals(2, indice.idCanonico(2));
+    }
+
+    private static String repetir(String texto, int vezes) {
+        StringBuilder resultado = new StringBuilder();
+        for (int i = 0; i < vezes; i++) {
+            resultado.append(texto).append(' ');
+        }
+        return resultado.toString();
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.contentproviderconsumidor.data.indice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.example.contentproviderconsumidor.data.model.Mensagem;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Testes do {@link IndiceFacetasAutor}: a ordem alfabética das facetas, a junção das grafias de
+ * um mesmo autor e a atualização incremental.
+ */
+public class IndiceFacetasAutorTest {
+
+    @Test
+    public void grupos_ficamEmOrdemAlfabeticaComOsIdsOrdenados() {
+        IndiceFacetasAutor indice = new IndiceFacetasAutor();
+        indice.sincronizar(Arrays.asList(
+                new Mensagem(9, "t9", "Bruno", 1),
+                new Mensagem(4, "t4", "Ana", 1),
+                new Mensagem(7, "t7", "Álvaro", 1),
+                new Mensagem(2, "t2", "Bruno", 1),
+                new Mensagem(5, "t5", "bernardo", 1)));
+
+        assertEquals(Arrays.asList("Álvaro", "Ana", "bernardo", "Bruno"), indice.autores());
+        List<IndiceFacetasAutor.GrupoAutor> grupos = indice.grupos(null);
+        assertEquals(4, grupos.size());
+        assertEquals("Bruno", grupos.get(3).getAutor());
+        assertEquals(Arrays.asList(2L, 9L), ids(grupos.get(3).getMensagens()));
+    }
+
+    @Test
+    public void grafiasDoMesmoAutor_caemNaMesmaFaceta() {
+        IndiceFacetasAutor indice = new IndiceFacetasAutor();
+        indice.sincronizar(Arrays.asList(
+                new Mensagem(1, "t1", "João", 1),
+                new Mensagem(2, "t2", "Joao", 1),
+                new Mensagem(3, "t3", " JOÃO ", 1),
+                new Mensagem(4, "t4", "Joana", 1)));
+
+        assertEquals("Exibida com a primeira grafia", Arrays.asList("Joana", "João"), indice.autores());
+        assertEquals(Arrays.asList(1L, 2L, 3L), ids(indice.grupos("Joao").get(0).getMensagens()));
+        assertTrue(indice.contemAutor("JOÃO"));
+
+        indice.remover(1);
+        indice.remover(3);
+        assertEquals(Arrays.asList(2L), ids(indice.grupos("João").get(0).getMensagens()));
+        indice.remover(2);
+        assertFalse("A faceta vazia some com todas as grafias", indice.contemAutor("Joao"));
+        assertFalse(indice.contemAutor("João"));
+        assertEquals(Arrays.asList("Joana"), indice.autores());
+    }
+
+    @Test
+    public void semAutor_vaiParaDesconhecido() {
+        IndiceFacetasAutor indice = new IndiceFacetasAutor();
+        indice.sincronizar(Arrays.asList(
+                new Mensagem(1, "t1", null, 1),
+                new Mensagem(2, "t2", "   ", 1)));
+
+        assertEquals(Arrays.asList(IndiceFacetasAutor.AUTOR_DESCONHECIDO), indice.autores());
+        assertEquals(2, indice.grupos(IndiceFacetasAutor.AUTOR_DESCONHECIDO).get(0).getMensagens().size());
+    }
+
+    @Test
+    public void sincronizar_aplicaSoAsDiferencas() {
+        IndiceFacetasAutor indice = new IndiceFacetasAutor();
+        List<Mensagem> favoritas = new ArrayList<>(Arrays.asList(
+                new Mensagem(1, "t1", "Ana", 1),
+                new Mensagem(2, "t2", "Bruno", 1)));
+        assertTrue(indice.sincronizar(favoritas));
+        assertFalse("Nada mudou", indice.sincronizar(favoritas));
+
+        // Texto novo na mesma faceta, troca de autor e uma favorita desmarcada.
+        assertTrue(indice.sincronizar(Arrays.asList(
+                new Mensagem(1, "t1 editado", "Ana", 1),
+                new Mensagem(3, "t3", "Ana", 1))));
+        assertEquals(Arrays.asList("Ana"), indice.autores());
+        List<Mensagem> daAna = indice.grupos("Ana").get(0).getMensagens();
+        assertEquals("t1 editado", daAna.get(0).getTexto());
+        assertEquals(2, indice.tamanho());
+
+        assertTrue(indice.adicionar(new Mensagem(3, "t3", "Carla", 1)));
+        assertEquals(Arrays.asList("Ana", "Carla"), indice.autores());
+        assertEquals(Arrays.asList(1L), ids(indice.grupos("Ana").get(0).getMensagens()));
+        assertTrue(indice.grupos("Bruno").isEmpty());
+    }
+
+    private static List<Long> ids(List<Mensagem> mensagens) {
+        List<Long> ids = new ArrayList<>();
+        for (Mensagem mensagem : mensagens) {
+            ids.add(mensagem.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.contentproviderconsumidor.data.indice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.example.contentproviderconsumidor.data.db.MensagemContract;
+import com.example.contentproviderconsumidor.data.model.Mensagem;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Testes do {@link IndiceSimilaridade}: a pontuação TF-IDF por cosseno, as exclusões das
+ * consultas, a manutenção incremental e o limite de memória.
+ */
+public class IndiceSimilaridadeTest {
+
+    /**
+     * Mensagens sem nenhum termo em comum com as dos testes. Sem elas, num catálogo de poucas
+     * mensagens todo termo repetido passaria da fração de termos comuns e seria podado das consultas.
+     */
+    private static final int AVULSAS = 30;
+
+    private static final List<Mensagem> CATALOGO = catalogo(
+            new Mensagem(1, "Sol e lua no horizonte", "A", 0),
+            new Mensagem(2, "Sol forte na estrada", "B", 0),
+            new Mensagem(3, "A lua cheia", "C", 0),
+            new Mensagem(4, "Trabalho duro traz resultados", "D", 0),
+            new Mensagem(5, "Resultados vêm com trabalho e paciência", "E", 0),
+            new Mensagem(6, "Que para de com sem", "F", 0),
+            new Mensagem(7, "O sol nasce para todos", "G", 0),
+            new Mensagem(8, "Dias de sol", "H", 0));
+
+    @Test
+    public void semelhantes_ordenaPeloCossenoESemAPropriaMensagem() {
+        IndiceSimilaridade indice = indiceCom(CATALOGO);
+
+        List<IndiceSimilaridade.Resultado> resultados = indice.semelhantes(4, 10);
+
+        assertEquals(1, resultados.size());
+        assertEquals(5, resultados.get(0).getId());
+        assertTrue(resultados.get(0).getSimilaridade() > 0f);
+        assertTrue(resultados.get(0).getSimilaridade() < 1f);
+        assertTrue(indice.semelhantes(99, 10).isEmpty());
+    }
+
+    @Test
+    public void semelhantes_daMaisPesoAosTermosRaros() {
+        IndiceSimilaridade indice = indiceCom(CATALOGO);
+
+        // A mensagem 1 divide "lua" (em 2 mensagens) com a 3 e "sol" (em 4) com a 2, a 7 e a 8.
+        List<IndiceSimilaridade.Resultado> resultados = indice.semelhantes(1, 10);
+
+        assertEquals(3, resultados.get(0).getId());
+        assertEquals(Arrays.asList(2L, 7L, 8L), ordenados(ids(resultados.subList(1, 4))));
+        assertTrue(resultados.get(0).getSimilaridade() > resultados.get(1).getSimilaridade());
+        assertEquals(4, resultados.size());
+    }
+
+    @Test
+    public void palavrasVaziasEAcentos_naoContam() {
+        IndiceSimilaridade indice = indiceCom(CATALOGO);
+
+        assertTrue("Só palavras vazias", indice.semelhantes(6, 10).isEmpty());
+        assertEquals(Arrays.asList(5L), ids(indice.semelhantesAoTexto("PACIENCIA!", 10)));
+        assertTrue(indice.semelhantesAoTexto("para que", 10).isEmpty());
+    }
+
+    @Test
+    public void textoIdentico_temSimilaridadeMaxima() {
+        IndiceSimilaridade indice = indiceCom(CATALOGO);
+
+        List<IndiceSimilaridade.Resultado> resultados = indice.semelhantesAoTexto("Trabalho duro traz resultados", 1);
+
+        assertEquals(4, resultados.get(0).getId());
+        assertEquals(1f, resultados.get(0).getSimilaridade(), 1e-4f);
+        assertEquals(1, resultados.size());
+    }
+
+    @Test
+    public void textoLongo_eComparadoSoPeloPrefixo() {
+        StringBuilder longo = new StringBuilder();
+        while (longo.length() < MensagemContract.MensagemEntry.TAMANHO_PREFIXO_TEXTO) {
+            longo.append("montanha neve floresta ");
+        }
+        longo.append("oceano praia areia");
+        List<Mensagem> catalogo = new ArrayList<>(CATALOGO);
+        catalogo.add(new Mensagem(10, longo.toString(), "G", 0));
+        catalogo.add(new Mensagem(11, "montanha com neve", "H", 0));
+        catalogo.add(new Mensagem(12, "oceano e praia", "I", 0));
+        IndiceSimilaridade indice = indiceCom(catalogo);
+
+        // O fim do texto longo ("oceano praia areia") fica depois do prefixo e não é indexado.
+        assertEquals(Arrays.asList(11L), ids(indice.semelhantes(10, 10)));
+        // A consulta pelo texto completo dá o mesmo resultado que a versão indexada.
+        List<IndiceSimilaridade.Resultado> resultados = indice.semelhantesAoTexto(longo.toString(), 10);
+        assertEquals(Arrays.asList(10L, 11L), ids(resultados));
+        assertEquals(1f, resultados.get(0).getSimilaridade(), 1e-4f);
+    }
+
+    @Test
+    public void recomendarPorPerfil_somaAsFavoritasESemIncluiLas() {
+        IndiceSimilaridade indice = indiceCom(CATALOGO);
+
+        List<Long> ids = ids(indice.recomendarPorPerfil(new long[]{3, 4}, 10));
+
+        assertEquals("As favoritas não entram", Arrays.asList(1L, 5L), ordenados(ids));
+        assertTrue(indice.recomendarPorPerfil(new long[]{99}, 10).isEmpty());
+    }
+
+    @Test
+    public void sincronizar_aplicaSoAsDiferencas() {
+        IndiceSimilaridade indice = new IndiceSimilaridade(Long.MAX_VALUE);
+        assertEquals(CATALOGO.size(), indice.sincronizar(CATALOGO));
+        assertEquals("Nada mudou", 0, indice.sincronizar(CATALOGO));
+
+        List<Mensagem> alterado = new ArrayList<>(CATALOGO);
+        alterado.set(1, new Mensagem(2, "Trabalho duro", "B", 0));
+        alterado.remove(2);
+        assertEquals("Uma alterada e uma removida", 2, indice.sincronizar(alterado));
+        assertEquals(CATALOGO.size() - 1, indice.tamanho());
+        assertTrue(ids(indice.semelhantes(4, 10)).contains(2L));
+        assertFalse(ids(indice.semelhantes(1, 10)).contains(2L));
+        assertFalse(ids(indice.semelhantes(1, 10)).contains(3L));
+    }
+
+    @Test
+    public void limiteDeMemoria_deixaMensagensNovasDeForaEContaQuantas() {
+        List<Mensagem> catalogo = new ArrayList<>();
+        for (int id = 1; id <= 10_000; id++) {
+            catalogo.add(new Mensagem(id, "frase " + id + " palavra" + (id % 97) + " termo" + (id % 13), "A", 0));
+        }
+        IndiceSimilaridade completo = indiceCom(catalogo);
+        IndiceSimilaridade limitado = new IndiceSimilaridade(completo.getBytesOcupados() / 2);
+
+        limitado.sincronizar(catalogo);
+
+        assertTrue(limitado.tamanho() < catalogo.size());
+        assertEquals(catalogo.size() - limitado.tamanho(), limitado.getMensagensForaDoLimite());
+        assertFalse(limitado.isLimitadoPeloOrcamento());
+    }
+
+    @Test
+    public void reduzirPara_esvaziaOIndiceInteiro() {
+        IndiceSimilaridade indice = indiceCom(CATALOGO);
+
+        indice.reduzirPara(indice.getBytesOcupados());
+        assertEquals("Cabe no alvo: nada muda", CATALOGO.size(), indice.tamanho());
+
+        indice.reduzirPara(0);
+        assertEquals(0, indice.tamanho());
+        assertEquals(CATALOGO.size(), indice.getDescartes());
+        assertTrue(indice.semelhantes(1, 10).isEmpty());
+    }
+
+    private static List<Mensagem> catalogo(Mensagem... mensagens) {
+        List<Mensagem> catalogo = new ArrayList<>(Arrays.asList(mensagens));
+        for (int i = 0; i < AVULSAS; i++) {
+            catalogo.add(new Mensagem(1_000 + i, "avulsa" + i, "Z", 0));
+        }
+        return catalogo;
+    }
+
+    private static IndiceSimilaridade indiceCom(List<Mensagem> catalogo) {
+        IndiceSimilaridade indice = new IndiceSimilaridade(Long.MAX_VALUE);
+        indice.sincronizar(catalogo);
+        return indice;
+    }
+
+    private static List<Long> ids(List<IndiceSimilaridade.Resultado> resultados) {
+        List<Long> ids = new ArrayList<>();
+        for (IndiceSimilaridade.Resultado resultado : resultados) {
+            ids.add(resultado.getId());
+        }
+        return ids;
+    }
+
+    private static List<Long> ordenados(List<Long> ids) {
+        List<Long> ordenados = new ArrayList<>(ids);
+        ordenados.sort(null);
+        return ordenados;
+    }
+}
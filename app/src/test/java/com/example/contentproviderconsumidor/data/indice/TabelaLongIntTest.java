@@ -0,0 +1,105 @@
+package com.example.contentproviderconsumidor.data.indice;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Testes da {@link TabelaLongInt}: a sondagem linear e, principalmente, a remoção por
+ * deslocamento para trás, que precisa manter encontráveis todas as chaves que continuam na tabela.
+ */
+public class TabelaLongIntTest {
+
+    @Test
+    public void colocarObterRemover_comportamSeComoUmMapa() {
+        TabelaLongInt tabela = new TabelaLongInt(4);
+
+        assertEquals(TabelaLongInt.AUSENTE, tabela.obter(42));
+        tabela.colocar(42, 7);
+        tabela.colocar(-1, 0);
+        tabela.colocar(Long.MIN_VALUE, 3);
+        assertEquals(7, tabela.obter(42));
+        assertEquals(0, tabela.obter(-1));
+        assertEquals(3, tabela.obter(Long.MIN_VALUE));
+        assertEquals(3, tabela.tamanho());
+
+        tabela.colocar(42, 8);
+        assertEquals("Colocar de novo substitui o valor", 8, tabela.obter(42));
+        assertEquals(3, tabela.tamanho());
+
+        assertEquals(8, tabela.remover(42));
+        assertEquals(TabelaLongInt.AUSENTE, tabela.remover(42));
+        assertEquals(TabelaLongInt.AUSENTE, tabela.obter(42));
+        assertEquals(2, tabela.tamanho());
+    }
+
+    @Test
+    public void remocao_mantemEncontraveisAsChavesDoMesmoAgrupamento() {
+        // Uma tabela pequena e cheia até o limite: as chaves formam agrupamentos longos, e cada
+        // remoção no meio de um agrupamento precisa deslocar as seguintes para trás.
+        TabelaLongInt tabela = new TabelaLongInt(16);
+        List<Long> chaves = new ArrayList<>();
+        for (long chave = 1; chave <= 16; chave++) {
+            tabela.colocar(chave * 1024, (int) chave);
+            chaves.add(chave * 1024);
+        }
+        for (int i = 0; i < chaves.size(); i += 2) {
+            assertEquals(i + 1, tabela.remover(chaves.get(i)));
+        }
+        for (int i = 0; i < chaves.size(); i++) {
+            int esperado = i % 2 == 0 ? TabelaLongInt.AUSENTE : i + 1;
+            assertEquals("Chave " + chaves.get(i), esperado, tabela.obter(chaves.get(i)));
+        }
+        assertEquals(8, tabela.tamanho());
+    }
+
+    @Test
+    public void operacoesAleatorias_concordamComHashMap() {
+        Random random = new Random(20261019L);
+        TabelaLongInt tabela = new TabelaLongInt(8);
+        Map<Long, Integer> referencia = new HashMap<>();
+        for (int operacao = 0; operacao < 200_000; operacao++) {
+            // Poucas chaves distintas, para que remoções e reinserções se misturem com o crescimento.
+            long chave = random.nextInt(5_000) - 2_500L;
+            if (random.nextInt(3) == 0) {
+                Integer anterior = referencia.remove(chave);
+                assertEquals(anterior != null ? anterior : TabelaLongInt.AUSENTE, tabela.remover(chave));
+            } else {
+                int valor = random.nextInt(Integer.MAX_VALUE);
+                referencia.put(chave, valor);
+                tabela.colocar(chave, valor);
+            }
+        }
+        assertEquals(referencia.size(), tabela.tamanho());
+        for (long chave = -2_500; chave < 2_500; chave++) {
+            Integer esperado = referencia.get(chave);
+            assertEquals("Chave " + chave, esperado != null ? esperado : TabelaLongInt.AUSENTE, tabela.obter(chave));
+        }
+    }
+
+    @Test
+    public void limparELiberar_esvaziamATabela() {
+        TabelaLongInt tabela = new TabelaLongInt(16);
+        for (long chave = 0; chave < 1_000; chave++) {
+            tabela.colocar(chave, 1);
+        }
+        long bytesCheia = tabela.bytesOcupados();
+
+        tabela.limpar();
+        assertEquals(0, tabela.tamanho());
+        assertEquals(TabelaLongInt.AUSENTE, tabela.obter(10));
+        assertEquals("Limpar mantém a capacidade", bytesCheia, tabela.bytesOcupados());
+
+        tabela.colocar(10, 2);
+        tabela.liberar();
+        assertEquals(0, tabela.tamanho());
+        assertEquals(TabelaLongInt.AUSENTE, tabela.obter(10));
+        assertEquals("Liberar volta à capacidade mínima", 16L * (Long.BYTES + Integer.BYTES), tabela.bytesOcupados());
+    }
+}
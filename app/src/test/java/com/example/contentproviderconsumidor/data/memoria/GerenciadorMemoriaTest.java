@@ -0,0 +1,163 @@
+package com.example.contentproviderconsumidor.data.memoria;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.ComponentCallbacks2;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * Testes do {@link GerenciadorMemoria}: quanto de cada camada fica depois de cada nível de aviso
+ * do sistema, e a ordem em que as camadas cedem espaço quando a soma passa do orçamento.
+ * Os descartes rodam na própria thread do teste (o executor é {@code Runnable::run}).
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+@SuppressWarnings("deprecation")
+public class GerenciadorMemoriaTest {
+
+    private static final long BYTES_POR_CACHE = 1_000;
+
+    private GerenciadorMemoria gerenciador;
+
+    /** Um cache por camada, na ordem de {@link NivelDescarte}. */
+    private CacheFalso[] caches;
+
+    @Before
+    public void setUp() {
+        gerenciador = new GerenciadorMemoria(4 * BYTES_POR_CACHE, Runnable::run);
+        caches = new CacheFalso[NivelDescarte.values().length];
+        for (NivelDescarte nivel : NivelDescarte.values()) {
+            caches[nivel.ordinal()] = new CacheFalso(nivel, BYTES_POR_CACHE, true);
+            gerenciador.registrar(caches[nivel.ordinal()]);
+        }
+    }
+
+    @Test
+    public void avisoLeveEmPrimeiroPlano_reduzSoAsCamadasMaisBaratas() {
+        gerenciador.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE);
+        assertMantidos(500, 750, 1_000, 1_000);
+    }
+
+    @Test
+    public void interfaceEscondidaOuMemoriaBaixa_esvaziamOsDerivados() {
+        gerenciador.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+        assertMantidos(0, 500, 1_000, 1_000);
+
+        setUp();
+        gerenciador.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+        assertMantidos(0, 500, 1_000, 1_000);
+    }
+
+    @Test
+    public void segundoPlanoOuMemoriaCritica_reduzemAsListasPelaMetade() {
+        gerenciador.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+        assertMantidos(0, 0, 500, 1_000);
+
+        setUp();
+        gerenciador.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL);
+        assertMantidos(0, 0, 500, 1_000);
+    }
+
+    @Test
+    public void avisoModerado_mantemSoOsIndices() {
+        gerenciador.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_MODERATE);
+        assertMantidos(0, 0, 0, 1_000);
+    }
+
+    @Test
+    public void avisoCompletoOuLowMemory_esvaziamTudo() {
+        gerenciador.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        assertMantidos(0, 0, 0, 0);
+
+        setUp();
+        gerenciador.onLowMemory();
+        assertMantidos(0, 0, 0, 0);
+        assertEquals(1, gerenciador.getMetricas().getAvisosMemoria());
+    }
+
+    @Test
+    public void camadasMantidasInteiras_naoSaoTocadas() {
+        gerenciador.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE);
+        gerenciador.onTrimMemory(0);
+
+        assertEquals(1, caches[NivelDescarte.DERIVADOS.ordinal()].reducoes);
+        assertEquals(0, caches[NivelDescarte.MENSAGENS.ordinal()].reducoes);
+        assertEquals(0, caches[NivelDescarte.INDICES.ordinal()].reducoes);
+        assertMantidos(500, 750, 1_000, 1_000);
+    }
+
+    @Test
+    public void verificarLimites_reduzAsCamadasEmOrdemAteCaberNoOrcamento() {
+        // Um índice que não é reduzido pela verificação ainda conta na soma: os demais cedem espaço.
+        CacheFalso indiceFixo = new CacheFalso(NivelDescarte.INDICES, 1_500, false);
+        gerenciador.registrar(indiceFixo);
+
+        gerenciador.verificarLimites();
+
+        assertMantidos(0, 500, 1_000, 1_000);
+        assertEquals(1_500, indiceFixo.bytes);
+        assertEquals(0, indiceFixo.reducoes);
+    }
+
+    private void assertMantidos(long derivados, long textoCompleto, long mensagens, long indices) {
+        long[] esperados = {derivados, textoCompleto, mensagens, indices};
+        for (NivelDescarte nivel : NivelDescarte.values()) {
+            assertEquals(nivel.name(), esperados[nivel.ordinal()], caches[nivel.ordinal()].bytes);
+        }
+    }
+
+    /** Um cache que só guarda o seu tamanho e conta as reduções pedidas. */
+    private static final class CacheFalso implements CacheGerenciado {
+        private final NivelDescarte nivel;
+        private final boolean limitadoPeloOrcamento;
+        private long bytes;
+        private int reducoes;
+
+        CacheFalso(NivelDescarte nivel, long bytes, boolean limitadoPeloOrcamento) {
+            this.nivel = nivel;
+            this.bytes = bytes;
+            this.limitadoPeloOrcamento = limitadoPeloOrcamento;
+        }
+
+        @Override
+        public String getNome() {
+            return nivel.name();
+        }
+
+        @Override
+        public NivelDescarte getNivel() {
+            return nivel;
+        }
+
+        @Override
+        public long getBytesOcupados() {
+            return bytes;
+        }
+
+        @Override
+        public long getLimiteBytes() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public void reduzirPara(long bytesAlvo) {
+            reducoes++;
+            bytes = Math.min(bytes, bytesAlvo);
+        }
+
+        @Override
+        public long getDescartes() {
+            return reducoes;
+        }
+
+        @Override
+        public boolean isLimitadoPeloOrcamento() {
+            return limitadoPeloOrcamento;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.contentproviderconsumidor.data.provedor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.example.contentproviderconsumidor.data.provedor.DisjuntorCircuito.Estado;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Testes das mudanças de estado do {@link DisjuntorCircuito}. Um tempo aberto de zero faz a
+ * próxima chamada já passar para MEIO_ABERTO; um tempo longo mantém o disjuntor aberto.
+ */
+public class DisjuntorCircuitoTest {
+
+    private static final long UMA_HORA_MS = 60 * 60 * 1000L;
+
+    @Test
+    public void falhasSeguidas_abremODisjuntorSoNoLimiar() {
+        DisjuntorCircuito disjuntor = new DisjuntorCircuito(3, UMA_HORA_MS);
+
+        falhar(disjuntor, 2);
+        assertEquals(Estado.FECHADO, disjuntor.getEstado());
+        falhar(disjuntor, 1);
+        assertEquals(Estado.ABERTO, disjuntor.getEstado());
+        assertFalse("Aberto: recusa sem chamar o provedor", disjuntor.permitirChamada());
+        assertEquals(1, disjuntor.getTransicoes());
+    }
+
+    @Test
+    public void sucesso_zeraAsFalhasConsecutivas() {
+        DisjuntorCircuito disjuntor = new DisjuntorCircuito(3, UMA_HORA_MS);
+
+        falhar(disjuntor, 2);
+        assertTrue(disjuntor.permitirChamada());
+        disjuntor.registrarSucesso();
+        falhar(disjuntor, 2);
+
+        assertEquals(Estado.FECHADO, disjuntor.getEstado());
+        assertEquals(0, disjuntor.getTransicoes());
+    }
+
+    @Test
+    public void meioAberto_liberaUmaChamadaDeTestePorVez() {
+        List<String> mudancas = new ArrayList<>();
+        DisjuntorCircuito disjuntor = new DisjuntorCircuito(1, 0);
+        disjuntor.setOuvinte((anterior, novo) -> mudancas.add(anterior + ">" + novo));
+        falhar(disjuntor, 1);
+
+        assertTrue("Passado o tempo aberto, a chamada de teste vai", disjuntor.permitirChamada());
+        assertEquals(Estado.MEIO_ABERTO, disjuntor.getEstado());
+        assertFalse("Só uma chamada de teste", disjuntor.permitirChamada());
+
+        disjuntor.registrarSucesso();
+        assertEquals(Estado.FECHADO, disjuntor.getEstado());
+        assertTrue(disjuntor.permitirChamada());
+        disjuntor.registrarSucesso();
+
+        assertEquals(List.of("FECHADO>ABERTO", "ABERTO>MEIO_ABERTO", "MEIO_ABERTO>FECHADO"), mudancas);
+        assertEquals(3, disjuntor.getTransicoes());
+    }
+
+    @Test
+    public void falhaNoTeste_abreDeNovo() {
+        DisjuntorCircuito disjuntor = new DisjuntorCircuito(2, 0);
+        falhar(disjuntor, 2);
+
+        assertTrue(disjuntor.permitirChamada());
+        disjuntor.registrarFalha();
+
+        assertEquals("Uma falha no teste basta, sem esperar o limiar", Estado.ABERTO, disjuntor.getEstado());
+        assertEquals(3, disjuntor.getTransicoes());
+    }
+
+    @Test
+    public void chamadaCancelada_liberaOTesteSemMudarOEstado() {
+        DisjuntorCircuito disjuntor = new DisjuntorCircuito(1, 0);
+        falhar(disjuntor, 1);
+        assertTrue(disjuntor.permitirChamada());
+
+        disjuntor.cancelarChamada();
+
+        assertEquals(Estado.MEIO_ABERTO, disjuntor.getEstado());
+        assertTrue("Outra chamada de teste pode ir", disjuntor.permitirChamada());
+    }
+
+    private static void falhar(DisjuntorCircuito disjuntor, int vezes) {
+        for (int i = 0; i < vezes; i++) {
+            assertTrue(disjuntor.permitirChamada());
+            disjuntor.registrarFalha();
+        }
+    }
+}
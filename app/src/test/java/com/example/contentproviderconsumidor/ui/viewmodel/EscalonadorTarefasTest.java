@@ -0,0 +1,164 @@
+package com.example.contentproviderconsumidor.ui.viewmodel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Testes das escritas do {@link EscalonadorTarefas}: a serialização por chave e a barreira das
+ * escritas exclusivas. As tarefas registram o que fizeram em {@link #eventos}; as travas seguram
+ * uma tarefa em execução para conferir o que o escalonador deixa (ou não) rodar enquanto isso.
+ */
+public class EscalonadorTarefasTest {
+
+    private static final long TEMPO_LIMITE_MS = 5_000;
+
+    /** Tempo dado a uma tarefa que não deveria começar, antes de conferir que ela não começou. */
+    private static final long TEMPO_OBSERVACAO_MS = 200;
+
+    private final List<String> eventos = Collections.synchronizedList(new ArrayList<>());
+
+    private PoolsObservaveis pools;
+    private EscalonadorTarefas escalonador;
+
+    @Before
+    public void setUp() {
+        pools = new PoolsObservaveis(2, 4);
+        escalonador = pools.criarEscalonador();
+    }
+
+    @After
+    public void tearDown() {
+        escalonador.encerrar();
+    }
+
+    @Test
+    public void exclusiva_esperaAsEscritasPedidasAntes() throws InterruptedException {
+        CountDownLatch iniciou = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        escalonador.executarEscrita(1, () -> {
+            eventos.add("A");
+            iniciou.countDown();
+            aguardar(liberar);
+            eventos.add("A-fim");
+        });
+        assertTrue(iniciou.await(TEMPO_LIMITE_MS, TimeUnit.MILLISECONDS));
+
+        escalonador.executarEscritaExclusiva(() -> eventos.add("X"));
+        // Chave livre, mas pedida depois da exclusiva: também espera.
+        escalonador.executarEscrita(2, () -> eventos.add("B"));
+        Thread.sleep(TEMPO_OBSERVACAO_MS);
+        assertEquals(List.of("A"), copiaEventos());
+
+        liberar.countDown();
+        assertTrue(pools.aguardarOcioso(TEMPO_LIMITE_MS));
+        assertEquals(List.of("A", "A-fim", "X", "B"), copiaEventos());
+    }
+
+    @Test
+    public void exclusiva_retemAsEscritasPedidasDepoisAteTerminar() throws InterruptedException {
+        CountDownLatch iniciou = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        escalonador.executarEscritaExclusiva(() -> {
+            eventos.add("X");
+            iniciou.countDown();
+            aguardar(liberar);
+            eventos.add("X-fim");
+        });
+        assertTrue(iniciou.await(TEMPO_LIMITE_MS, TimeUnit.MILLISECONDS));
+
+        escalonador.executarEscrita(1, () -> eventos.add("B1"));
+        escalonador.executarEscrita(2, () -> eventos.add("B2"));
+        Thread.sleep(TEMPO_OBSERVACAO_MS);
+        assertEquals(List.of("X"), copiaEventos());
+
+        liberar.countDown();
+        assertTrue(pools.aguardarOcioso(TEMPO_LIMITE_MS));
+        List<String> depois = copiaEventos().subList(2, 4);
+        assertEquals(List.of("X", "X-fim"), copiaEventos().subList(0, 2));
+        assertTrue(depois.contains("B1") && depois.contains("B2"));
+    }
+
+    @Test
+    public void exclusivas_naoRodamJuntoComNenhumaOutraEscrita() throws InterruptedException {
+        AtomicInteger emAndamento = new AtomicInteger();
+        AtomicInteger exclusivasComCompanhia = new AtomicInteger();
+        for (int i = 0; i < 200; i++) {
+            if (i % 10 == 0) {
+                int numero = i / 10;
+                escalonador.executarEscritaExclusiva(() -> {
+                    if (emAndamento.incrementAndGet() != 1) {
+                        exclusivasComCompanhia.incrementAndGet();
+                    }
+                    eventos.add("X" + numero);
+                    Thread.yield();
+                    emAndamento.decrementAndGet();
+                });
+            } else {
+                escalonador.executarEscrita(i % 7, () -> {
+                    emAndamento.incrementAndGet();
+                    Thread.yield();
+                    emAndamento.decrementAndGet();
+                });
+            }
+        }
+
+        assertTrue(pools.aguardarOcioso(TEMPO_LIMITE_MS));
+        assertEquals(0, exclusivasComCompanhia.get());
+        List<String> esperadas = new ArrayList<>();
+        for (int numero = 0; numero < 20; numero++) {
+            esperadas.add("X" + numero);
+        }
+        assertEquals("Exclusivas na ordem de chegada", esperadas, copiaEventos());
+    }
+
+    @Test
+    public void escritasDaMesmaChave_rodamEmOrdemEAsDeChavesDiferentesEmParalelo() throws InterruptedException {
+        // As duas chaves só passam da trava se rodarem ao mesmo tempo.
+        CountDownLatch juntas = new CountDownLatch(2);
+        for (long chave = 1; chave <= 2; chave++) {
+            escalonador.executarEscrita(chave, () -> {
+                juntas.countDown();
+                aguardar(juntas);
+            });
+        }
+        for (int i = 0; i < 100; i++) {
+            String evento = "E" + i;
+            escalonador.executarEscrita(1, () -> eventos.add(evento));
+        }
+
+        assertTrue(pools.aguardarOcioso(TEMPO_LIMITE_MS));
+        assertEquals(0, juntas.getCount());
+        List<String> esperados = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            esperados.add("E" + i);
+        }
+        assertEquals(esperados, copiaEventos());
+    }
+
+    private List<String> copiaEventos() {
+        synchronized (eventos) {
+            return new ArrayList<>(eventos);
+        }
+    }
+
+    private static void aguardar(CountDownLatch trava) {
+        try {
+            if (!trava.await(TEMPO_LIMITE_MS, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Trava não liberada a tempo");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package com.example.contentproviderconsumidor.ui.viewmodel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Looper;
+
+import androidx.lifecycle.Observer;
+
+import com.example.contentproviderconsumidor.data.db.MensagemContract;
+import com.example.contentproviderconsumidor.data.fake.ProvedorMensagensFalso;
+import com.example.contentproviderconsumidor.data.model.Mensagem;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Teste de estresse do {@link MensagemConsumidorViewModel} contra o {@link ProvedorMensagensFalso},
+ * com um catálogo grande ({@link #TOTAL_LINHAS} linhas).
+ * <p>
+ * Várias threads disparam, ao mesmo tempo, sorteios de mensagens, marcações de favoritas e
+ * recargas da lista. Cada valor publicado recebe um número de sequência (a ordem em que chegou
+ * ao observador). Ao final, com todas as tarefas de fundo terminadas, verifica-se que:
+ * <ul>
+ *     <li>nenhuma atualização foi perdida (o estado do provedor é a última escolha de cada ID);</li>
+ *     <li>toda lista publicada foi, em algum momento, o estado real do provedor;</li>
+ *     <li>a lista de maior número de sequência é o estado final do provedor, e uma recarga
+ *     posterior não traz de volta nenhum valor velho;</li>
+ *     <li>todo sorteio publicado traz o texto completo da mensagem e não repete o anterior.</li>
+ * </ul>
+ * Nenhuma verificação depende de esperar um tempo fixo: o teste espera o ViewModel ficar ocioso
+ * e, para publicações específicas, um {@link CountDownLatch} acionado pelo observador.
+ * A vazão e a latência das chamadas ao provedor são impressas na saída do teste.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class MensagemConsumidorViewModelStressTest {
+
+    private static final int TOTAL_LINHAS = 100_000;
+    private static final int THREADS = 8;
+    private static final int OPERACOES_POR_THREAD = 25;
+    private static final long TEMPO_LIMITE_MS = 180_000;
+
+    /** Intervalo entre duas passagens pela fila da thread principal enquanto se espera um latch. */
+    private static final long INTERVALO_FILA_PRINCIPAL_MS = 10;
+
+    /**
+     * Espera entre duas recargas quando o disjuntor recusou a anterior: ele só deixa passar uma
+     * chamada de teste depois de um tempo aberto, medido no relógio real.
+     */
+    private static final long ESPERA_DISJUNTOR_MS = 1_000;
+
+    private ProvedorMensagensFalso provedor;
+    private PoolsObservaveis pools;
+    private MensagemConsumidorViewModel viewModel;
+
+    /**
+     * Listas de favoritas publicadas, na ordem em que chegaram ao observador: o número de
+     * sequência de cada uma é a sua posição. Só é acessada na thread principal.
+     */
+    private final List<Publicacao> publicacoesFavoritas = new ArrayList<>();
+
+    /** Sorteios publicados, na ordem em que chegaram ao observador. Só é acessada na thread principal. */
+    private final List<Mensagem> mensagensSorteadas = new ArrayList<>();
+
+    /** A publicação que o teste está esperando, se houver. */
+    private EsperaPublicacao esperaFavoritas;
+
+    private final Observer<List<Mensagem>> observadorFavoritas = lista -> {
+        Publicacao publicacao = new Publicacao(publicacoesFavoritas.size(), lista);
+        publicacoesFavoritas.add(publicacao);
+        EsperaPublicacao espera = esperaFavoritas;
+        if (espera != null && espera.sequencia < 0 && publicacao.ids.equals(espera.ids)) {
+            espera.sequencia = publicacao.sequencia;
+            espera.latch.countDown();
+        }
+    };
+    private final Observer<Mensagem> observadorSorteio = mensagem -> {
+        if (mensagem != null) {
+            mensagensSorteadas.add(mensagem);
+        }
+    };
+
+    @Before
+    public void setUp() {
+        provedor = Robolectric.setupContentProvider(ProvedorMensagensFalso.class, MensagemContract.AUTHORITY);
+        provedor.popular(TOTAL_LINHAS, 0f);
+        pools = new PoolsObservaveis(4, 2);
+        viewModel = new MensagemConsumidorViewModel(RuntimeEnvironment.getApplication(), pools.criarEscalonador());
+        viewModel.getMensagensFavoritas().observeForever(observadorFavoritas);
+        viewModel.getMensagemAleatoria().observeForever(observadorSorteio);
+    }
+
+    @After
+    public void tearDown() {
+        viewModel.getMensagensFavoritas().removeObserver(observadorFavoritas);
+        viewModel.getMensagemAleatoria().removeObserver(observadorSorteio);
+    }
+
+    @Test
+    public void operacoesConcorrentes_naoPerdemAtualizacoesNemPublicamValoresVelhos() throws Exception {
+        provedor.setLatenciaMs(1);
+
+        long inicio = System.nanoTime();
+        Map<Long, Boolean> esperado = martelar();
+        aguardarTarefas();
+        relatar(System.nanoTime() - inicio);
+
+        // Nenhuma atualização perdida: cada ID termina com o último estado pedido.
+        Set<Long> favoritosNoProvedor = provedor.idsFavoritos();
+        for (Map.Entry<Long, Boolean> entrada : esperado.entrySet()) {
+            assertEquals("Estado final do ID " + entrada.getKey(),
+                    entrada.getValue(), favoritosNoProvedor.contains(entrada.getKey()));
+        }
+        // O consumidor só altera linhas; nunca insere nem remove.
+        assertEquals(0, provedor.getInsercoes());
+        assertEquals(0, provedor.getRemocoes());
+
+        // Toda lista publicada foi um estado real do provedor, sem IDs repetidos.
+        assertFalse("Nenhuma lista de favoritas foi publicada", publicacoesFavoritas.isEmpty());
+        for (Publicacao publicacao : publicacoesFavoritas) {
+            assertEquals("IDs repetidos na publicação " + publicacao.sequencia,
+                    publicacao.tamanho, publicacao.ids.size());
+            assertTrue("A publicação " + publicacao.sequencia + " nunca foi o estado do provedor",
+                    provedor.favoritasJaExistiram(publicacao.ids));
+        }
+
+        // Cada escrita recarrega a lista depois de gravar: com tudo terminado, a última
+        // publicação é o estado final, sem nenhuma recarga extra.
+        Publicacao ultima = publicacoesFavoritas.get(publicacoesFavoritas.size() - 1);
+        assertEquals("A publicação " + ultima.sequencia + " (a última) não é o estado final do provedor",
+                favoritosNoProvedor, ultima.ids);
+        // Com o provedor saudável, a recarga seguinte é a próxima publicação, e traz o estado final.
+        int proximaSequencia = publicacoesFavoritas.size();
+        assertEquals("Uma lista diferente foi publicada antes do estado final",
+                proximaSequencia, recarregarEConferir(favoritosNoProvedor));
+
+        verificarSorteios();
+    }
+
+    @Test
+    public void falhasDoProvedor_naoTravamOViewModel() throws Exception {
+        provedor.setLatenciaMs(1);
+        provedor.setTaxaFalha(0.2);
+
+        long inicio = System.nanoTime();
+        martelar();
+        aguardarTarefas();
+
+        // Com o provedor saudável de novo, o ViewModel deve voltar a refletir o estado real.
+        provedor.setTaxaFalha(0);
+        assertTrue("Nenhuma falha foi injetada", provedor.getFalhasInjetadas() > 0);
+        recarregarEConferir(provedor.idsFavoritos());
+        relatar(System.nanoTime() - inicio);
+    }
+
+    // --- Métodos auxiliares ---
+
+    /**
+     * Dispara as operações concorrentes. Cada thread só marca IDs "seus" (posição % THREADS), de forma
+     * que o estado final esperado de cada ID é bem definido.
+     *
+     * @return O último estado de favorita pedido para cada ID.
+     */
+    private Map<Long, Boolean> martelar() throws InterruptedException {
+        long[] ids = provedor.todosOsIds();
+        Map<Long, Boolean> esperado = new ConcurrentHashMap<>();
+        CountDownLatch largada = new CountDownLatch(1);
+        CountDownLatch chegada = new CountDownLatch(THREADS);
+
+        for (int t = 0; t < THREADS; t++) {
+            final int indiceThread = t;
+            new Thread(() -> {
+                try {
+                    largada.await();
+                    ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+                    for (int i = 0; i < OPERACOES_POR_THREAD; i++) {
+                        int operacao = aleatorio.nextInt(3);
+                        if (operacao == 0) {
+                            viewModel.carregarNovaMensagemAleatoria();
+                        } else if (operacao == 1) {
+                            long id = ids[aleatorio.nextInt(ids.length / THREADS) * THREADS + indiceThread];
+                            boolean favorita = aleatorio.nextBoolean();
+                            esperado.put(id, favorita);
+                            viewModel.atualizarStatusFavorita(id, favorita);
+                        } else {
+                            viewModel.carregarMensagensFavoritas();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    chegada.countDown();
+                }
+            }, "estresse-" + t).start();
+        }
+
+        largada.countDown();
+        assertTrue(chegada.await(TEMPO_LIMITE_MS, TimeUnit.MILLISECONDS));
+        return esperado;
+    }
+
+    /**
+     * Espera o ViewModel terminar todas as tarefas de fundo (inclusive as recargas pedidas pelas
+     * escritas) e entrega ao observador tudo o que foi publicado. Depois disso, nada mais chega.
+     */
+    private void aguardarTarefas() throws InterruptedException {
+        assertTrue("As tarefas de fundo não terminaram", pools.aguardarOcioso(TEMPO_LIMITE_MS));
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+
+    /**
+     * Com o ViewModel ocioso, pede uma recarga e espera, pelo latch do observador, a publicação
+     * do estado informado. Confere, pelos números de sequência, que nada diferente foi publicado
+     * depois dela: nenhuma leitura velha chega depois do estado final.
+     * <p>
+     * Se o disjuntor estiver aberto, a recarga é recusada (e pode publicar a lista do cache de
+     * contingência); ela é repetida até o disjuntor deixar uma chamada passar.
+     *
+     * @param esperado Os IDs favoritos no provedor.
+     * @return O número de sequência da publicação do estado esperado.
+     */
+    private int recarregarEConferir(Set<Long> esperado) throws InterruptedException {
+        EsperaPublicacao espera = new EsperaPublicacao(esperado);
+        esperaFavoritas = espera;
+        long limite = System.currentTimeMillis() + TEMPO_LIMITE_MS;
+        while (true) {
+            viewModel.carregarMensagensFavoritas();
+            aguardarTarefas();
+            if (espera.latch.getCount() == 0) {
+                break;
+            }
+            // A recarga não publicou o estado real: o disjuntor ainda estava aberto pelas falhas anteriores.
+            assertTrue("A lista publicada não convergiu para o estado do provedor",
+                    System.currentTimeMillis() < limite);
+            aguardarLatch(espera.latch, ESPERA_DISJUNTOR_MS);
+        }
+        esperaFavoritas = null;
+
+        for (int sequencia = espera.sequencia; sequencia < publicacoesFavoritas.size(); sequencia++) {
+            assertEquals("A publicação " + sequencia + " trouxe de volta um valor velho",
+                    esperado, publicacoesFavoritas.get(sequencia).ids);
+        }
+        return espera.sequencia;
+    }
+
+    /**
+     * Espera o latch, processando a fila da thread principal enquanto isso: os valores postados
+     * pelo ViewModel só chegam ao observador quando essa fila é processada.
+     *
+     * @return true se o latch foi acionado dentro do prazo.
+     */
+    private boolean aguardarLatch(CountDownLatch latch, long prazoMs) throws InterruptedException {
+        long limite = System.currentTimeMillis() + prazoMs;
+        while (!latch.await(INTERVALO_FILA_PRINCIPAL_MS, TimeUnit.MILLISECONDS)) {
+            shadowOf(Looper.getMainLooper()).idle();
+            if (System.currentTimeMillis() >= limite) {
+                return latch.getCount() == 0;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Todo sorteio publicado é uma mensagem do provedor, exibida com o texto completo, e nenhum
+     * repete o sorteio publicado logo antes dele.
+     */
+    private void verificarSorteios() {
+        assertFalse("Nenhum sorteio foi publicado", mensagensSorteadas.isEmpty());
+        Mensagem anterior = null;
+        for (int sequencia = 0; sequencia < mensagensSorteadas.size(); sequencia++) {
+            Mensagem mensagem = mensagensSorteadas.get(sequencia);
+            String texto = provedor.textoDe(mensagem.getId());
+            assertNotNull("O sorteio " + sequencia + " não existe no provedor", texto);
+            assertFalse("O sorteio " + sequencia + " foi publicado truncado", mensagem.isTextoTruncado());
+            assertEquals("Texto do sorteio " + sequencia, texto, mensagem.getTexto());
+            if (anterior != null) {
+                assertNotEquals("O sorteio " + sequencia + " repete o anterior", anterior.getId(), mensagem.getId());
+            }
+            anterior = mensagem;
+        }
+    }
+
+    /**
+     * Imprime a vazão (operações disparadas até o repouso) e os percentis de latência
+     * das chamadas atendidas pelo provedor.
+     */
+    private void relatar(long duracaoNanos) {
+        List<Long> duracoes = provedor.getDuracoesNanos();
+        Collections.sort(duracoes);
+        int total = THREADS * OPERACOES_POR_THREAD;
+        double segundos = duracaoNanos / 1e9;
+        System.out.printf("[estresse] %d operações sobre %d linhas em %.2fs (%.1f ops/s); provedor: %d consultas, "
+                        + "%d atualizações, %d inserções, %d remoções, %d falhas; %d listas de favoritas publicadas%n",
+                total, TOTAL_LINHAS, segundos, total / segundos,
+                provedor.getConsultas(), provedor.getAtualizacoes(), provedor.getInsercoes(),
+                provedor.getRemocoes(), provedor.getFalhasInjetadas(), publicacoesFavoritas.size());
+        if (!duracoes.isEmpty()) {
+            System.out.printf("[estresse] latência por chamada: p50=%.2fms p95=%.2fms p99=%.2fms máx=%.2fms%n",
+                    percentil(duracoes, 0.50), percentil(duracoes, 0.95),
+                    percentil(duracoes, 0.99), duracoes.get(duracoes.size() - 1) / 1e6);
+        }
+    }
+
+    private static double percentil(List<Long> ordenadas, double p) {
+        int indice = (int) Math.min(ordenadas.size() - 1, Math.round(p * (ordenadas.size() - 1)));
+        return ordenadas.get(indice) / 1e6;
+    }
+
+    /** Uma lista de favoritas publicada: o seu número de sequência e os IDs que trazia. */
+    private static final class Publicacao {
+        final int sequencia;
+        final int tamanho;
+        final Set<Long> ids = new HashSet<>();
+
+        Publicacao(int sequencia, List<Mensagem> lista) {
+            this.sequencia = sequencia;
+            this.tamanho = lista == null ? 0 : lista.size();
+            if (lista != null) {
+                for (Mensagem mensagem : lista) {
+                    ids.add(mensagem.getId());
+                }
+            }
+        }
+    }
+
+    /** Uma publicação esperada pelo teste; o observador aciona o latch quando ela chega. */
+    private static final class EsperaPublicacao {
+        final Set<Long> ids;
+        final CountDownLatch latch = new CountDownLatch(1);
+        /** O número de sequência da publicação, ou -1 enquanto ela não chegou. */
+        int sequencia = -1;
+
+        EsperaPublicacao(Set<Long> ids) {
+            this.ids = ids;
+        }
+    }
+}
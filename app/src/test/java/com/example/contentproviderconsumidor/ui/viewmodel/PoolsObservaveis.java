@@ -0,0 +1,98 @@
+package com.example.contentproviderconsumidor.ui.viewmodel;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Os dois pools de um {@link EscalonadorTarefas} de teste, com um contador compartilhado das
+ * tarefas entregues a eles e ainda não terminadas. Permite esperar o escalonador ficar ocioso
+ * sem que o código de produção conte nada.
+ * <p>
+ * Basta observar os pools: uma escrita retida pelo escalonador (pela chave ou pela barreira)
+ * só existe enquanto outra escrita está no pool, e uma tarefa que pede outra (ex.: uma escrita
+ * que pede a recarga da lista) a entrega antes de terminar. Com o contador em zero, então,
+ * tudo o que foi pedido (e o que isso pediu) já terminou.
+ */
+final class PoolsObservaveis {
+
+    private final Object trava = new Object();
+
+    /** Tarefas entregues a qualquer um dos pools que ainda não terminaram. Protegido por {@link #trava}. */
+    private int pendentes;
+
+    private final PoolContado leitura;
+    private final PoolContado escrita;
+
+    PoolsObservaveis(int threadsLeitura, int threadsEscrita) {
+        leitura = new PoolContado(threadsLeitura, new PriorityBlockingQueue<>());
+        escrita = new PoolContado(threadsEscrita, new LinkedBlockingQueue<>());
+    }
+
+    /** @return Um escalonador novo, que usa estes pools. */
+    EscalonadorTarefas criarEscalonador() {
+        return new EscalonadorTarefas(leitura, escrita);
+    }
+
+    /**
+     * Espera até que não haja nenhuma tarefa na fila nem em execução.
+     *
+     * @param prazoMs Tempo máximo de espera.
+     * @return false se o prazo estourou com tarefas ainda pendentes.
+     */
+    boolean aguardarOcioso(long prazoMs) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(prazoMs);
+        synchronized (trava) {
+            while (pendentes > 0) {
+                long restanteMs = TimeUnit.NANOSECONDS.toMillis(limite - System.nanoTime());
+                if (restanteMs <= 0) {
+                    return false;
+                }
+                trava.wait(restanteMs);
+            }
+            return true;
+        }
+    }
+
+    private void entregue() {
+        synchronized (trava) {
+            pendentes++;
+        }
+    }
+
+    private void terminada() {
+        synchronized (trava) {
+            if (--pendentes == 0) {
+                trava.notifyAll();
+            }
+        }
+    }
+
+    /** Um pool que avisa quando recebe e quando termina uma tarefa. */
+    private final class PoolContado extends ThreadPoolExecutor {
+
+        PoolContado(int threads, BlockingQueue<Runnable> fila) {
+            super(threads, threads, 30, TimeUnit.SECONDS, fila);
+        }
+
+        @Override
+        public void execute(Runnable tarefa) {
+            entregue();
+            try {
+                super.execute(tarefa);
+            } catch (RejectedExecutionException e) {
+                terminada();
+                throw e;
+            }
+        }
+
+        @Override
+        protected void afterExecute(Runnable tarefa, Throwable erro) {
+            super.afterExecute(tarefa, erro);
+            terminada();
+        }
+    }
+}